@@ -0,0 +1,348 @@
+package minesweeper;
+
+import java.util.*;
+
+/**
+ *  {@code Benchmark} times generating fields and flood filling
+ *  openings in them on large boards.  Each timing is compared to
+ *  a reference that does the same work the old way: on a plain
+ *  grid with a bounds check on every neighbor visit, counting a
+ *  bomb at a time, or on one thread.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+public class Benchmark {
+    /*
+     *  How many times each measurement is repeated.  The best
+     *  time is reported so warm up and garbage collection don't
+     *  count against either side.
+     */
+    private static final int    repeats         = 7;
+
+    /*
+     *  The fraction of the field that's bombs when generating.
+     */
+    private static final double density         = 0.15;
+    private static final double crowdedDensity  = 0.90;
+
+    /*
+     *  Defeats dead code elimination of the reference work.
+     */
+    private static int          sink;
+
+    /*
+     *  Lay out bombs the way Field used to, probing forward from a
+     *  random cell until one without a bomb turns up, on a grid
+     *  without sentinels so every neighbor has to be bounds checked.
+     */
+    private static byte[]
+    checkedLayout(int size, int bombCount, Random ourRandom)
+    {
+        int     maxCells;
+        byte    cells[];
+
+        maxCells = size * size;
+        cells = new byte[maxCells];
+        for (; (bombCount > 0); --bombCount) {
+            int     i;
+            int     j;
+            int     row;
+            int     column;
+
+            i = ourRandom.nextInt(maxCells);
+            for (j = maxCells; (j > 0); --j, i = ++i % maxCells) {
+                if ((cells[i] & 0x10) == 0) {
+                    break;
+                }
+            }
+            cells[i] |= 0x10;
+
+            row = i / size;
+            column = i % size;
+            for (j = row - 1; (j <= row + 1); ++j) {
+                int     k;
+
+                if ((j < 0) || (j >= size)) {
+                    continue;
+                }
+                for (k = column - 1; (k <= column + 1); ++k) {
+                    if ((k < 0) || (k >= size) ||
+                        ((j == row) && (k == column))) {
+                        continue;
+                    }
+                    ++cells[(j * size) + k];
+                }
+            }
+        }
+
+        return(cells);
+    }
+
+    /*
+     *  Lay out the same bombs Field does for a seed, but count them
+     *  the way placeBomb() does, adding each bomb to its eight
+     *  neighbors one at a time.
+     */
+    private static byte[]
+    incrementLayout(int size, int bombCount, long seed)
+    {
+        int         stride;
+        int         tile;
+        int         counts[];
+        long        bits[];
+        byte        cells[];
+        SplitMix    random;
+        TileLayout  layout;
+
+        stride = size + 2;
+        cells = new byte[stride * stride];
+        layout = new TileLayout(size, size, bombCount, seed);
+        counts = new int[(int) (layout.getTileRows() *
+                                layout.getTileColumns())];
+        layout.bombsInTiles(counts);
+        bits = new long[TileLayout.tileSize];
+        random = new SplitMix(seed);
+        for (tile = 0; (tile < counts.length); ++tile) {
+            int     tileRow;
+            int     tileColumn;
+            int     row;
+
+            tileRow = (int) (tile / layout.getTileColumns());
+            tileColumn = (int) (tile % layout.getTileColumns());
+            layout.layOutTile(tileRow, tileColumn, counts[tile], bits,
+                              random);
+            for (row = 0; (row < layout.rowsInTile(tileRow)); ++row) {
+                long    word;
+                int     first;
+
+                first = ((((tileRow << TileLayout.tileShift) + row + 1) *
+                          stride) + (tileColumn << TileLayout.tileShift) + 1);
+                for (word = bits[row]; (word != 0); word &= word - 1) {
+                    int     index;
+
+                    index = first + Long.numberOfTrailingZeros(word);
+                    cells[index] |= 0x10;
+                    ++cells[index - stride - 1];
+                    ++cells[index - stride];
+                    ++cells[index - stride + 1];
+                    ++cells[index - 1];
+                    ++cells[index + 1];
+                    ++cells[index + stride - 1];
+                    ++cells[index + stride];
+                    ++cells[index + stride + 1];
+                }
+            }
+        }
+
+        return(cells);
+    }
+
+    /*
+     *  Flood fill from the given square of a grid without
+     *  sentinels, bounds checking every neighbor.
+     *  Returns the number of squares exposed.
+     */
+    private static int
+    checkedFill(byte cells[], int size, int row, int column)
+    {
+        int     i;
+        int     j;
+        int     index;
+        int     exposed;
+
+        if ((row < 0) || (row >= size) ||
+            (column < 0) || (column >= size)) {
+            return(0);
+        }
+
+        index = (row * size) + column;
+        if ((cells[index] & 0x20) != 0) {
+            return(0);
+        }
+
+        cells[index] |= 0x20;
+        exposed = 1;
+        if ((cells[index] & 0x0f) != 0) {
+            return(exposed);
+        }
+
+        for (i = row - 1; (i <= row + 1); ++i) {
+            for (j = column - 1; (j <= column + 1); ++j) {
+                exposed += checkedFill(cells, size, i, j);
+            }
+        }
+
+        return(exposed);
+    }
+
+    /*
+     *  Return the best of several timings of the given work in
+     *  milliseconds.
+     */
+    private static double
+    bestOf(Runnable work)
+    {
+        int     i;
+        long    best;
+
+        best = Long.MAX_VALUE;
+        for (i = 0; (i < repeats); ++i) {
+            long    start;
+            long    elapsed;
+
+            start = System.nanoTime();
+            work.run();
+            elapsed = System.nanoTime() - start;
+            if (elapsed < best) {
+                best = elapsed;
+            }
+        }
+
+        return(best / 1e6);
+    }
+
+    /*
+     *  Print one line of results.
+     */
+    private static void
+    report(String what, int size, double fieldMillis,
+           double referenceMillis)
+    {
+        System.out.printf("%-12s %6dx%-6d %10.2f ms %10.2f ms %7.2fx%n",
+                          what, size, size, fieldMillis,
+                          referenceMillis,
+                          referenceMillis / fieldMillis);
+    }
+
+    /*
+     *  Time generation and a flood fill of a whole empty field
+     *  at each of the given sizes.
+     */
+    private static void
+    run(int sizes[])
+    {
+        System.out.println(Runtime.getRuntime().availableProcessors() +
+                           " processors");
+        System.out.printf("%-12s %13s %13s %13s %8s%n",
+                          "", "size", "Field", "reference", "gain");
+        for (int size : sizes) {
+            int         bombCount;
+            int         crowdedCount;
+            double      fieldMillis;
+            double      referenceMillis;
+            Field       fields[];
+            byte        grids[][];
+            int         which[];
+            int         i;
+            int         threshold;
+            int         labelThreshold;
+
+            bombCount = (int) (size * (long) size * density);
+            crowdedCount = (int) (size * (long) size * crowdedDensity);
+
+            fieldMillis = bestOf(() -> new Field(size, bombCount));
+            referenceMillis = bestOf(() -> {
+                    sink += checkedLayout(size, bombCount,
+                                          new Random()).length;
+                });
+            report("generate", size, fieldMillis, referenceMillis);
+
+            /*
+             *  A field that's nearly all bombs is where probing
+             *  for a free cell hurts the most.
+             */
+            fieldMillis = bestOf(() -> new Field(size, crowdedCount));
+            referenceMillis = bestOf(() -> {
+                    sink += checkedLayout(size, crowdedCount,
+                                          new Random()).length;
+                });
+            report("crowded", size, fieldMillis, referenceMillis);
+
+            /*
+             *  The same bombs counted a row of words at a time and
+             *  a bomb at a time, both on one thread, and without
+             *  labeling the openings, which the reference doesn't.
+             */
+            threshold = Field.getParallelThreshold();
+            labelThreshold = Field.getLabelThreshold();
+            Field.setParallelThreshold(Integer.MAX_VALUE);
+            Field.setLabelThreshold(0);
+            fieldMillis = bestOf(() -> new Field(size, bombCount, 1L));
+            referenceMillis = bestOf(() -> {
+                    sink += incrementLayout(size, bombCount, 1L).length;
+                });
+            report("counts", size, fieldMillis, referenceMillis);
+            fieldMillis = bestOf(() -> new Field(size, crowdedCount, 1L));
+            referenceMillis = bestOf(() -> {
+                    sink += incrementLayout(size, crowdedCount, 1L).length;
+                });
+            Field.setLabelThreshold(labelThreshold);
+            report("counts 90%", size, fieldMillis, referenceMillis);
+
+            /*
+             *  The same field laid out in parallel and on one
+             *  thread.
+             */
+            Field.setParallelThreshold(1);
+            fieldMillis = bestOf(() -> new Field(size, bombCount, 1L));
+            Field.setParallelThreshold(Integer.MAX_VALUE);
+            referenceMillis = bestOf(() -> new Field(size, bombCount, 1L));
+            Field.setParallelThreshold(threshold);
+            report("parallel", size, fieldMillis, referenceMillis);
+
+            /*
+             *  A field with no bombs is one big opening.  Build
+             *  them all up front so only the fill is timed.
+             */
+            fields = new Field[repeats];
+            grids = new byte[repeats][];
+            for (i = 0; (i < repeats); ++i) {
+                fields[i] = new Field(size, 0);
+                grids[i] = new byte[size * size];
+            }
+            which = new int[2];
+            fieldMillis = bestOf(() -> {
+                    fields[which[0]++].expose(size / 2, size / 2);
+                });
+            referenceMillis = bestOf(() -> {
+                    sink += checkedFill(grids[which[1]++], size,
+                                        size / 2, size / 2);
+                });
+            report("flood fill", size, fieldMillis, referenceMillis);
+        }
+    }
+
+    /**
+     *  Run the benchmark.
+     *  @param args sizes of the fields to benchmark, 512, 1024
+     *  and 2048 when none are given
+     */
+    public static void main(String[] args)
+    {
+        int     i;
+        int     sizes[];
+        Thread  runner;
+
+        if (args.length == 0) {
+            sizes = new int[] {512, 1024, 2048};
+        } else {
+            sizes = new int[args.length];
+            for (i = 0; (i < args.length); ++i) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        /*
+         *  The reference flood fill is recursive so give it a
+         *  thread with plenty of stack.
+         */
+        runner = new Thread(null, () -> run(sizes), "benchmark",
+                            1L << 31);
+        runner.start();
+        try {
+            runner.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
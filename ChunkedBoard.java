@@ -0,0 +1,688 @@
+package minesweeper;
+
+import java.util.*;
+
+/**
+ *  {@code ChunkedBoard} is the part of a mine field kept in 64 by
+ *  64 chunks that doesn't depend on where the chunks come from or
+ *  where they're kept.  A chunk is created the first time one of
+ *  its cells is looked at, from the bombs of its own tile and the
+ *  edges of the tiles around it, so the counts agree across the
+ *  edges of chunks no matter what order they're created in.
+ *  Subclasses say which cells are on the board, where the bombs of
+ *  each tile go and how chunks are stored.
+ *  <p>
+ *  Rows, columns and counts are {@code long}s.  The cells of each
+ *  chunk are packed into bytes the same way {@code Field} packs
+ *  its cells and are read and played the same way.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+public abstract class ChunkedBoard {
+    /*
+     *  The cells of a chunk are packed into bytes the same way as
+     *  the cells of a Field.
+     */
+    static final int            ADJACENT_MASK   = 0x0f;
+    static final int            BOMB            = 0x10;
+    static final int            EXPOSED         = 0x20;
+    static final int            FLAGGED         = 0x40;
+    static final int            MARKED          = 0x80;
+
+    static final int            tileSize        = TileLayout.tileSize;
+    static final int            tileShift       = TileLayout.tileShift;
+    private static final int    haloStride      = tileSize + 2;
+
+    private final long          seed;
+    private long                exposedCells;
+    private long                flaggedCells;
+    private long                markedCells;
+    private boolean             revealed;
+    private String              status;
+
+    /*
+     *  Where the first cell exposed may be, taken from the default
+     *  when the board is made, whether that first cell is still to
+     *  come, and the bombs it moved, four entries each as
+     *  moveBombs() gives them.
+     */
+    private final int           firstClickMode;
+    private boolean             firstClickPending;
+    private long                moves[]         = new long[0];
+
+    /*
+     *  The last chunk looked up, since cells tend to be looked at
+     *  near the one before.
+     */
+    private long                lastKey         = Long.MIN_VALUE;
+    private Chunk               lastChunk;
+
+    /*
+     *  Scratch space for creating chunks: the bombs of one tile,
+     *  a word per row, and the bombs of a chunk and the one cell
+     *  wide halo around it, a byte per cell.
+     */
+    private final long          tileBits[]      = new long[tileSize];
+    private final byte          halo[]          =
+                                        new byte[haloStride * haloStride];
+
+    /*
+     *  The cells of an opening waiting to have their neighbors
+     *  exposed, as pairs of row and column.
+     */
+    private long                fillStack[]     = new long[64];
+
+    /**
+     *  One 64 by 64 chunk of the field, a byte per cell, row by
+     *  row.
+     */
+    static final class Chunk {
+        final byte  cells[]     = new byte[tileSize * tileSize];
+
+        /**
+         *  @return whether any cell of the chunk has been exposed,
+         *  flagged or marked
+         */
+        boolean hasProgress()
+        {
+            for (byte cell : cells) {
+                if ((cell & (EXPOSED | FLAGGED | MARKED)) != 0) {
+                    return(true);
+                }
+            }
+
+            return(false);
+        }
+    }
+
+    /**
+     *  Construct a board laid out from the given seed.
+     *  @param seed seed for laying out the bombs
+     */
+    ChunkedBoard(long seed)
+    {
+        this.seed = seed;
+        firstClickMode = Field.getFirstClick();
+        firstClickPending = (firstClickMode != Field.firstClickAnywhere);
+    }
+
+    /**
+     *  Return the seed the field was laid out from.
+     *  @return the seed
+     */
+    public long getSeed()
+    {
+        return(seed);
+    }
+
+    /**
+     *  Return whether a row and column are on the board.
+     *  @param row the row
+     *  @param column the column
+     *  @return whether the cell is on the board
+     */
+    abstract boolean    isOnField(long row, long column);
+
+    /**
+     *  Lay out the bombs of one tile, bit c of {@code bits[r]} for
+     *  the cell at row r and column c of the tile.
+     *  @param tileRow row of the tile
+     *  @param tileColumn column of the tile
+     *  @param bits where to store the bombs, one word per row
+     *  @return whether the tile is on the board at all
+     */
+    abstract boolean    tileBombs(long tileRow, long tileColumn,
+                                  long bits[]);
+
+    /**
+     *  Decide where the bombs go that the first click moves out of
+     *  its way.
+     *  @param clear the row and column of each cell to keep clear,
+     *  two entries each, the one clicked first
+     *  @param cells the number of cells to keep clear
+     *  @return the row and column each bomb moves from and then
+     *  the row and column it moves to, four entries for each bomb
+     */
+    abstract long[]     moveBombs(long clear[], int cells);
+
+    /**
+     *  Return a chunk that's been created before.
+     *  @param key the chunk's coordinates from {@code key()}
+     *  @return the chunk, or null if it hasn't been created or
+     *  has been thrown away with nothing to remember
+     */
+    abstract Chunk      findChunk(long key);
+
+    /**
+     *  Keep a newly created chunk.
+     *  @param key the chunk's coordinates from {@code key()}
+     *  @param chunk the chunk
+     */
+    abstract void       keepChunk(long key, Chunk chunk);
+
+    /**
+     *  Return the number of chunks that are in memory.
+     *  @return the number of chunks
+     */
+    public abstract int getChunkCount();
+
+    /**
+     *  Return whether every cell that isn't a bomb is exposed.
+     *  @return Whether all the empty cells are exposed.
+     */
+    public abstract boolean     isCleared();
+
+    /**
+     *  Combine the coordinates of a tile into one key.  Either
+     *  coordinate can be negative.
+     *  @param tileRow row of the tile
+     *  @param tileColumn column of the tile
+     *  @return the key
+     */
+    static long key(long tileRow, long tileColumn)
+    {
+        return((tileRow << 32) | (tileColumn & 0xffffffffL));
+    }
+
+    /**
+     *  Return the chunk holding the given cell, creating it if it
+     *  hasn't been looked at before.
+     *  @param row the row of the cell
+     *  @param column the column of the cell
+     *  @return the chunk
+     */
+    Chunk       chunk(long row, long column)
+    {
+        long    key;
+        Chunk   found;
+
+        key = key(row >> tileShift, column >> tileShift);
+        if (key == lastKey) {
+            return(lastChunk);
+        }
+
+        found = findChunk(key);
+        if (found == null) {
+            found = layOutChunk(row >> tileShift, column >> tileShift);
+            keepChunk(key, found);
+        }
+        lastKey = key;
+        lastChunk = found;
+
+        return(found);
+    }
+
+    /**
+     *  Return the index of a cell within its chunk.
+     *  @param row the row of the cell
+     *  @param column the column of the cell
+     *  @return the index
+     */
+    static int  offset(long row, long column)
+    {
+        return((int) (((row & (tileSize - 1)) << tileShift) |
+                      (column & (tileSize - 1))));
+    }
+
+    /**
+     *  Lay out the bombs of a chunk and count the bombs adjacent to
+     *  each of its cells, looking at the edges of the chunks around
+     *  it for the bombs just outside it.
+     *  @param tileRow row of the chunk
+     *  @param tileColumn column of the chunk
+     *  @return the chunk with nothing exposed, flagged or marked
+     */
+    Chunk
+    layOutChunk(long tileRow, long tileColumn)
+    {
+        int     rowOffset;
+        int     row;
+        Chunk   created;
+
+        Arrays.fill(halo, (byte) 0);
+        for (rowOffset = -1; (rowOffset <= 1); ++rowOffset) {
+            int     columnOffset;
+
+            for (columnOffset = -1; (columnOffset <= 1); ++columnOffset) {
+                int     first;
+                int     last;
+
+                if (tileBombs(tileRow + rowOffset, tileColumn + columnOffset,
+                              tileBits) == false) {
+                    continue;
+                }
+                moveTileBombs(tileRow + rowOffset, tileColumn + columnOffset,
+                              tileBits);
+
+                /*
+                 *  Only the edge of a neighboring tile that touches
+                 *  this one falls in the halo.
+                 */
+                first = (rowOffset < 0) ? (tileSize - 1) : 0;
+                last = (rowOffset > 0) ? 0 : (tileSize - 1);
+                for (row = first; (row <= last); ++row) {
+                    long    word;
+
+                    for (word = tileBits[row]; (word != 0);
+                                                word &= word - 1) {
+                        int     haloRow;
+                        int     haloColumn;
+
+                        haloRow = row + 1 + (rowOffset * tileSize);
+                        haloColumn = Long.numberOfTrailingZeros(word) + 1 +
+                                                (columnOffset * tileSize);
+                        if ((haloColumn >= 0) && (haloColumn < haloStride)) {
+                            halo[(haloRow * haloStride) + haloColumn] = 1;
+                        }
+                    }
+                }
+            }
+        }
+
+        created = new Chunk();
+        for (row = 0; (row < tileSize); ++row) {
+            int     column;
+
+            for (column = 0; (column < tileSize); ++column) {
+                int     index;
+                int     count;
+
+                index = ((row + 1) * haloStride) + column + 1;
+                count = halo[index - haloStride - 1] +
+                        halo[index - haloStride] +
+                        halo[index - haloStride + 1] +
+                        halo[index - 1] +
+                        halo[index + 1] +
+                        halo[index + haloStride - 1] +
+                        halo[index + haloStride] +
+                        halo[index + haloStride + 1];
+                created.cells[(row << tileShift) | column] =
+                        (byte) (count | ((halo[index] != 0) ? BOMB : 0));
+            }
+        }
+
+        return(created);
+    }
+
+    /*
+     *  Take the bombs the first click moved out of a tile and put
+     *  in the ones it moved into it.
+     */
+    private void
+    moveTileBombs(long tileRow, long tileColumn, long bits[])
+    {
+        int     i;
+
+        for (i = 0; (i < moves.length); i += 2) {
+            if (((moves[i] >> tileShift) != tileRow) ||
+                ((moves[i + 1] >> tileShift) != tileColumn)) {
+                continue;
+            }
+
+            if ((i & 2) == 0) {
+                bits[(int) (moves[i] & (tileSize - 1))] &=
+                                                ~(1L << moves[i + 1]);
+            } else {
+                bits[(int) (moves[i] & (tileSize - 1))] |=
+                                                1L << moves[i + 1];
+            }
+        }
+    }
+
+    /*
+     *  Move the bombs out of the clicked cell, and out of its
+     *  neighbors too when the first click has to open an opening.
+     *  Chunks made from now on get the moved bombs from their
+     *  tiles, and the chunks already made around the bombs that
+     *  moved are laid out again, keeping what the player did in
+     *  them.
+     */
+    private void        moveBombsFrom(long row, long column)
+    {
+        long        clear[];
+        int         squares;
+        int         i;
+        Set<Long>   keys;
+
+        clear = new long[18];
+        squares = 0;
+        clear[squares++] = row;
+        clear[squares++] = column;
+        if (firstClickMode == Field.firstClickOpening) {
+            for (i = 0; (i < 9); ++i) {
+                if ((i != 4) &&
+                    (isOnField(row + (i / 3) - 1, column + (i % 3) - 1) ==
+                                                                    true)) {
+                    clear[squares++] = row + (i / 3) - 1;
+                    clear[squares++] = column + (i % 3) - 1;
+                }
+            }
+        }
+        moves = moveBombs(clear, squares / 2);
+
+        keys = new HashSet<Long>();
+        for (i = 0; (i < moves.length); i += 2) {
+            int     j;
+
+            for (j = 0; (j < 9); ++j) {
+                keys.add(key((moves[i] + (j / 3) - 1) >> tileShift,
+                             (moves[i + 1] + (j % 3) - 1) >> tileShift));
+            }
+        }
+        for (long key : keys) {
+            Chunk   found;
+            Chunk   fresh;
+
+            found = findChunk(key);
+            if (found == null) {
+                continue;
+            }
+
+            fresh = layOutChunk(key >> 32, (int) key);
+            for (i = 0; (i < found.cells.length); ++i) {
+                found.cells[i] = (byte) ((found.cells[i] &
+                                          (EXPOSED | FLAGGED | MARKED)) |
+                                         (fresh.cells[i] &
+                                          (BOMB | ADJACENT_MASK)));
+            }
+        }
+    }
+
+    /**
+     *  Get the type of a specific cell.
+     *  @param row The row of the cell whose type to get.
+     *  @param column The column of the cell whose type to get.
+     *  @return The type of the given cell.
+     */
+    public String       getType(long row, long column)
+    {
+        return(FieldEngine.typeOf(getState(row, column)));
+    }
+
+    /**
+     *  Get the state of a specific cell, the same as
+     *  {@code Field.getState()}.
+     *  @param row The row of the cell whose state to get.
+     *  @param column The column of the cell whose state to get.
+     *  @return The state of the given cell or
+     *  {@code Field.invalidState} when the coordinates are off the
+     *  field.
+     */
+    public int  getState(long row, long column)
+    {
+        int     cell;
+
+        if (isOnField(row, column) == false) {
+            return(Field.invalidState);
+        }
+
+        cell = chunk(row, column).cells[offset(row, column)];
+        if ((revealed == true) || ((cell & EXPOSED) != 0)) {
+            return(((cell & BOMB) != 0) ?
+                            Field.bombState : (cell & ADJACENT_MASK));
+        }
+
+        if ((cell & FLAGGED) != 0) {
+            return(Field.flaggedState);
+        }
+        if ((cell & MARKED) != 0) {
+            return(Field.markedState);
+        }
+
+        return(Field.hiddenState);
+    }
+
+    /**
+     *  Expose all the cells in the field.  Like
+     *  {@code Field.exposeAll()} nothing is touched, the field just
+     *  answers as if every cell were exposed from now on.
+     */
+    public void exposeAll()
+    {
+        firstClickPending = false;
+        revealed = true;
+    }
+
+    /*
+     *  Expose a cell of a chunk and count it as no longer hidden.
+     */
+    private void        exposeCell(Chunk chunk, int offset)
+    {
+        int     cell;
+
+        cell = chunk.cells[offset];
+        chunk.cells[offset] = (byte) (cell | EXPOSED);
+        ++exposedCells;
+        if ((cell & FLAGGED) != 0) {
+            --flaggedCells;
+        }
+        if ((cell & MARKED) != 0) {
+            --markedCells;
+        }
+    }
+
+    /*
+     *  Expose an opening starting from a hidden cell with no
+     *  adjacent bombs.  Each cell is exposed when it's first
+     *  reached and only cells with no adjacent bombs go on the
+     *  stack, as in Field.
+     */
+    private void        exposeOpening(long row, long column)
+    {
+        int     top;
+
+        exposeCell(chunk(row, column), offset(row, column));
+        top = 0;
+        fillStack[top++] = row;
+        fillStack[top++] = column;
+        while (top > 0) {
+            long    nextRow;
+
+            column = fillStack[--top];
+            row = fillStack[--top];
+            for (nextRow = row - 1; (nextRow <= row + 1); ++nextRow) {
+                long    nextColumn;
+
+                for (nextColumn = column - 1; (nextColumn <= column + 1);
+                                                            ++nextColumn) {
+                    Chunk   next;
+                    int     offset;
+
+                    if (isOnField(nextRow, nextColumn) == false) {
+                        continue;
+                    }
+
+                    next = chunk(nextRow, nextColumn);
+                    offset = offset(nextRow, nextColumn);
+                    if ((next.cells[offset] & EXPOSED) != 0) {
+                        continue;
+                    }
+
+                    exposeCell(next, offset);
+                    if ((next.cells[offset] & ADJACENT_MASK) != 0) {
+                        continue;
+                    }
+
+                    if (top == fillStack.length) {
+                        fillStack = Arrays.copyOf(fillStack, top * 2);
+                    }
+                    fillStack[top++] = nextRow;
+                    fillStack[top++] = nextColumn;
+                }
+            }
+        }
+    }
+
+    /**
+     *  Expose a specific cell.
+     *  @param row The row of the cell to expose.
+     *  @param column The column of the cell to expose.
+     *  @return Is the game finished.
+     */
+    public boolean      expose(long row, long column)
+    {
+        int     offset;
+        Chunk   found;
+
+        if (isOnField(row, column) == false) {
+            return(false);
+        }
+
+        if (firstClickPending == true) {
+            firstClickPending = false;
+            moveBombsFrom(row, column);
+        }
+        found = chunk(row, column);
+        offset = offset(row, column);
+        if (revealed == true) {
+            /*
+             *  Everything's already exposed.
+             */
+        } else if ((found.cells[offset] & EXPOSED) != 0) {
+            /*
+             *  Nothing more to expose.
+             */
+        } else if ((found.cells[offset] & (BOMB | ADJACENT_MASK)) == 0) {
+            exposeOpening(row, column);
+        } else {
+            exposeCell(found, offset);
+        }
+
+        if ((found.cells[offset] & BOMB) != 0) {
+            status = "Boom!";
+            return(true);
+        }
+
+        if (isCleared() == true) {
+            status = "Winner!";
+            return(true);
+        }
+
+        return(false);
+    }
+
+    /*
+     *  Set and clear bits of a cell, keeping the counts of flagged
+     *  and marked hidden cells up to date.
+     */
+    private void
+    changeCell(long row, long column, int set, int clear)
+    {
+        int     offset;
+        int     cell;
+        Chunk   found;
+
+        if (isOnField(row, column) == false) {
+            return;
+        }
+
+        found = chunk(row, column);
+        offset = offset(row, column);
+        cell = found.cells[offset] & 0xff;
+        found.cells[offset] = (byte) ((cell & ~clear) | set);
+        if ((cell & EXPOSED) != 0) {
+            return;
+        }
+
+        cell ^= found.cells[offset] & 0xff;
+        if ((cell & FLAGGED) != 0) {
+            flaggedCells += ((found.cells[offset] & FLAGGED) != 0) ? 1 : -1;
+        }
+        if ((cell & MARKED) != 0) {
+            markedCells += ((found.cells[offset] & MARKED) != 0) ? 1 : -1;
+        }
+    }
+
+    /**
+     *  Flag a specific cell.
+     *  @param row The row of the cell to flag.
+     *  @param column The column of the cell to flag.
+     */
+    public void flag(long row, long column)
+    {
+        changeCell(row, column, FLAGGED, MARKED);
+    }
+
+    /**
+     *  Mark a specific cell.
+     *  @param row The row of the cell to mark.
+     *  @param column The column of the cell to mark.
+     */
+    public void mark(long row, long column)
+    {
+        changeCell(row, column, MARKED, FLAGGED);
+    }
+
+    /**
+     *  Clear a specific cell's mark.
+     *  @param row The row of the cell to clear.
+     *  @param column The column of the cell to clear.
+     */
+    public void clearMark(long row, long column)
+    {
+        changeCell(row, column, 0, FLAGGED | MARKED);
+    }
+
+    /**
+     *  Return the number of cells that have been exposed.
+     *  @return The number of exposed cells.
+     */
+    public long getExposedCount()
+    {
+        return(exposedCells);
+    }
+
+    /**
+     *  Return whether the whole field has been revealed by
+     *  {@code exposeAll()}.
+     *  @return whether the field has been revealed
+     */
+    public boolean      isRevealed()
+    {
+        return(revealed);
+    }
+
+    /**
+     *  Return the number of hidden cells that have been flagged.
+     *  @return The number of flags placed.
+     */
+    public long getFlagCount()
+    {
+        if (revealed == true) {
+            return(0);
+        }
+
+        return(flaggedCells);
+    }
+
+    /**
+     *  Return the number of hidden cells that have been marked.
+     *  @return The number of marks placed.
+     */
+    public long getMarkCount()
+    {
+        if (revealed == true) {
+            return(0);
+        }
+
+        return(markedCells);
+    }
+
+    /**
+     *  Return the status of the game.
+     *  null unless the game's over.
+     *  @return The status of the game.
+     */
+    public String       getStatus()
+    {
+        return(status);
+    }
+
+    /**
+     *  @return {@code String} representation of object
+     */
+    public String toString()
+    {
+        return(getClass().getName() + "[seed=" + seed + "]");
+    }
+}
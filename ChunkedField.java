@@ -0,0 +1,465 @@
+package minesweeper;
+
+import java.util.*;
+
+/**
+ *  {@code ChunkedField} is a mine field too big to hold in memory
+ *  all at once.  The field is split into 64 by 64 chunks, the same
+ *  tiles {@code TileLayout} lays out, and a chunk is only created
+ *  the first time one of its cells is looked at.  A chunk's bombs
+ *  come from the seed and the chunk's coordinates alone, and its
+ *  adjacent counts include the bombs of the chunks around it, so
+ *  the field reads the same no matter what order the chunks are
+ *  created in.  It's laid out exactly like a {@code Field} of the
+ *  same size, bomb count and seed, and moves the same bombs out of
+ *  the way of a first click.
+ *  <p>
+ *  Rows, columns and counts are {@code long}s so fields can be far
+ *  bigger than {@code Field} allows.  Memory is only used for the
+ *  chunks the player has looked at.  As a {@code FieldEngine} it
+ *  also takes {@code int} rows and columns.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+public class ChunkedField extends ChunkedBoard implements FieldEngine {
+    /*
+     *  The biggest number of rows or columns a field can have.
+     *  It keeps the number of cells in a long and the coordinates
+     *  of a chunk in 32 bits.
+     */
+    private static final long   maxSide         = 1L << 31;
+
+    private final long          rows;
+    private final long          columns;
+    private final long          bombCount;
+    private final TileLayout    layout;
+    private final SplitMix      random;
+
+    /*
+     *  The chunks created so far, keyed by their coordinates.
+     */
+    private final Map<Long, Chunk>  chunks      =
+                                        new HashMap<Long, Chunk>();
+
+    /**
+     *  Construct a mine field with the given number of rows and
+     *  columns and the given number of bombs laid out from the
+     *  given seed.  Nothing is laid out until it's looked at.
+     *  @param rows number of rows of cells, at most 2<sup>31</sup>
+     *  @param columns number of columns of cells, at most
+     *  2<sup>31</sup>
+     *  @param bombCount number of bombs to randomly place in the
+     *  field, or a negative number to choose one from the seed
+     *  @param seed seed for laying out the bombs
+     */
+    public ChunkedField(long rows, long columns, long bombCount, long seed)
+    {
+        super(seed);
+
+        long    maxCells;
+
+        /*
+         *  Gotta have at least one cell.
+         */
+        rows = Math.max(1, Math.min(maxSide, rows));
+        columns = Math.max(1, Math.min(maxSide, columns));
+        this.rows = rows;
+        this.columns = columns;
+
+        maxCells = rows * columns;
+        if (bombCount < 0) {
+            /*
+             *  Given a negative number of bombs, choose a
+             *  pseudo random number.
+             */
+            bombCount = new SplittableRandom(seed).nextLong(
+                                                (maxCells / 5) + 1) + 1;
+        } else if (bombCount > maxCells) {
+            /*
+             *  Given more bombs than can fit, make the field
+             *  nothing but bombs.
+             */
+            bombCount = maxCells;
+        }
+        this.bombCount = bombCount;
+        layout = new TileLayout(rows, columns, bombCount, seed);
+        random = new SplitMix(seed);
+    }
+
+    /**
+     *  @return number of rows of cells
+     */
+    public long getRows()
+    {
+        return(rows);
+    }
+
+    /**
+     *  @return number of columns of cells
+     */
+    public long getColumns()
+    {
+        return(columns);
+    }
+
+    /**
+     *  Return the size of the mine field, the smaller of its
+     *  number of rows and columns, which is all of it when it's
+     *  square.
+     *  @return number of cells on a side
+     */
+    public int  getSize()
+    {
+        return((int) Math.min(Integer.MAX_VALUE, Math.min(rows, columns)));
+    }
+
+    /**
+     *  Get the state of a specific cell.
+     *  @param row The row of the cell whose state to get.
+     *  @param column The column of the cell whose state to get.
+     *  @return The state of the given cell.
+     */
+    public int  getState(int row, int column)
+    {
+        return(getState((long) row, (long) column));
+    }
+
+    /**
+     *  Expose a specific cell.
+     *  @param row The row of the cell to expose.
+     *  @param column The column of the cell to expose.
+     *  @return Is the game finished.
+     */
+    public boolean      expose(int row, int column)
+    {
+        return(expose((long) row, (long) column));
+    }
+
+    /**
+     *  Flag a specific cell.
+     *  @param row The row of the cell to flag.
+     *  @param column The column of the cell to flag.
+     */
+    public void flag(int row, int column)
+    {
+        flag((long) row, (long) column);
+    }
+
+    /**
+     *  Mark a specific cell.
+     *  @param row The row of the cell to mark.
+     *  @param column The column of the cell to mark.
+     */
+    public void mark(int row, int column)
+    {
+        mark((long) row, (long) column);
+    }
+
+    /**
+     *  Clear a specific cell's mark.
+     *  @param row The row of the cell to clear.
+     *  @param column The column of the cell to clear.
+     */
+    public void clearMark(int row, int column)
+    {
+        clearMark((long) row, (long) column);
+    }
+
+    /**
+     *  Return the number of chunks that have been created.
+     *  @return the number of chunks in memory
+     */
+    public int  getChunkCount()
+    {
+        return(chunks.size());
+    }
+
+    boolean     isOnField(long row, long column)
+    {
+        return((row >= 0) && (row < rows) &&
+               (column >= 0) && (column < columns));
+    }
+
+    Chunk       findChunk(long key)
+    {
+        return(chunks.get(key));
+    }
+
+    void        keepChunk(long key, Chunk chunk)
+    {
+        chunks.put(key, chunk);
+    }
+
+    /*
+     *  The bombs of a tile come from TileLayout, the same as for
+     *  a Field.
+     */
+    boolean
+    tileBombs(long tileRow, long tileColumn, long bits[])
+    {
+        if ((tileRow < 0) || (tileRow >= layout.getTileRows()) ||
+            (tileColumn < 0) || (tileColumn >= layout.getTileColumns())) {
+            return(false);
+        }
+
+        Arrays.fill(bits, 0);
+        layout.layOutTile(tileRow, tileColumn,
+                          (int) layout.bombsInTile(tileRow, tileColumn),
+                          bits, random);
+        return(true);
+    }
+
+    long[]      moveBombs(long clear[], int cells)
+    {
+        return(layout.moveBombs(clear, cells));
+    }
+
+    /**
+     *  Return the number of bombs in the field.
+     *  @return The number of bombs in the field.
+     */
+    public long getBombCount()
+    {
+        return(bombCount);
+    }
+
+    /**
+     *  Return the number of cells that are still hidden.
+     *  @return The number of hidden cells.
+     */
+    public long getHiddenCount()
+    {
+        if (isRevealed() == true) {
+            return(0);
+        }
+
+        return((rows * columns) - getExposedCount());
+    }
+
+    /**
+     *  Return whether every cell that isn't a bomb is exposed.
+     *  @return Whether all the empty cells are exposed.
+     */
+    public boolean      isCleared()
+    {
+        return(getHiddenCount() == bombCount);
+    }
+
+    /**
+     *  Return the number of hidden cells that have been flagged
+     *  but aren't bombs.  Only chunks that have been looked at can
+     *  have flags, so only they're counted.  Before the first click
+     *  it's for the bombs as they're laid out, the same as
+     *  {@code Field}.
+     *  @return The number of wrongly flagged cells.
+     */
+    public long getWrongFlagCount()
+    {
+        long    count;
+
+        count = 0;
+        for (Chunk chunk : chunks.values()) {
+            for (byte cell : chunk.cells) {
+                if ((cell & (FLAGGED | BOMB | EXPOSED)) == FLAGGED) {
+                    ++count;
+                }
+            }
+        }
+
+        return(count);
+    }
+
+    /**
+     *  @return {@code String} representation of object
+     */
+    public String toString()
+    {
+        return(getClass().getName() +
+               "[rows=" + rows +
+               ",columns=" + columns +
+               ",bombCount=" + bombCount +
+               ",seed=" + getSeed() + "]");
+    }
+
+    /*
+     *  Expose the same cells of a Field and a ChunkedField laid out
+     *  from the same seed and make sure they read the same.
+     */
+    private static int
+    sameAsFieldTest(int givenSize, int givenBombCount, long givenSeed)
+    {
+        int             row;
+        int             column;
+        int             errorCount;
+        Field           field;
+        ChunkedField    chunked;
+
+        errorCount = 0;
+        field = new Field(givenSize, givenBombCount, givenSeed);
+        chunked = new ChunkedField(givenSize, givenSize, givenBombCount,
+                                   givenSeed);
+        System.out.println("Testing " + chunked + " against " + field);
+
+        /*
+         *  Before the first click a flag is wrong or not by the
+         *  bombs as they're laid out.
+         */
+        for (row = 0; (row < givenSize); row += 2) {
+            field.flag(row, givenSize - 1);
+            chunked.flag(row, givenSize - 1);
+        }
+        if (field.getWrongFlagCount() != chunked.getWrongFlagCount()) {
+            System.out.println("**** ERROR:  wrong flags differ from" +
+                               " Field before the first click");
+            ++errorCount;
+        }
+        for (row = 0; (row < givenSize); row += 2) {
+            field.clearMark(row, givenSize - 1);
+            chunked.clearMark(row, givenSize - 1);
+        }
+
+        /*
+         *  Open every opening, flag the bombs next to the corners
+         *  and mark a few more cells.
+         */
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if (((row * 7) + column) % 11 == 0) {
+                    field.mark(row, column);
+                    chunked.mark(row, column);
+                }
+                if (((row * 3) + column) % 13 == 0) {
+                    field.flag(row, column);
+                    chunked.flag(row, column);
+                }
+                if (((row * 5) + column) % 3 == 0) {
+                    field.clearMark(row, column);
+                    chunked.clearMark(row, column);
+                }
+            }
+        }
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if ((field.getState(row, column) == Field.hiddenState) &&
+                    ((row + column) % 5 == 0)) {
+                    if (field.expose(row, column) !=
+                                chunked.expose(row, column)) {
+                        System.out.println("**** ERROR: Exposing " +
+                                           row + "x" + column +
+                                           " ends a different game");
+                        ++errorCount;
+                    }
+                }
+            }
+        }
+
+        for (row = -1; (row <= givenSize); ++row) {
+            for (column = -1; (column <= givenSize); ++column) {
+                if (field.getState(row, column) !=
+                                    chunked.getState(row, column)) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column + " is " +
+                                       chunked.getState(row, column) +
+                                       " but Field has " +
+                                       field.getState(row, column));
+                    ++errorCount;
+                }
+            }
+        }
+        if ((field.getHiddenCount() != chunked.getHiddenCount()) ||
+            (field.getFlagCount() != chunked.getFlagCount()) ||
+            (field.getMarkCount() != chunked.getMarkCount()) ||
+            (field.getWrongFlagCount() != chunked.getWrongFlagCount()) ||
+            (field.getBombCount() != chunked.getBombCount())) {
+            System.out.println("**** ERROR:  counts differ from Field");
+            ++errorCount;
+        }
+
+        field.exposeAll();
+        chunked.exposeAll();
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if (field.getType(row, column).equals(
+                            chunked.getType(row, column)) == false) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column +
+                                       " has a different type");
+                    ++errorCount;
+                }
+            }
+        }
+
+        return(errorCount);
+    }
+
+    /**
+     *  Performs a unit test on the {@code ChunkedField} class by
+     *  comparing it with {@code Field} and playing on a field far
+     *  too big for one.
+     *  @param args arguments to the unit test
+     */
+    public static void main(String[] args)
+    {
+        int             errors;
+        long            row;
+        long            column;
+        ChunkedField    huge;
+
+        errors = 0;
+        errors += sameAsFieldTest(1, 0, 1L);
+        errors += sameAsFieldTest(30, 100, 2L);
+        errors += sameAsFieldTest(200, 4000, 3L);
+        errors += sameAsFieldTest(333, 9000, 4L);
+
+        /*
+         *  A first click moves the same bombs out of its way.
+         */
+        Field.setFirstClick(Field.firstClickOpening);
+        errors += sameAsFieldTest(30, 300, 6L);
+        errors += sameAsFieldTest(200, 12000, 7L);
+        Field.setFirstClick(Field.firstClickSafe);
+        errors += sameAsFieldTest(130, 8000, 8L);
+        Field.setFirstClick(Field.firstClickAnywhere);
+
+        /*
+         *  A million by a million field only creates the chunks
+         *  around where it's played.
+         */
+        huge = new ChunkedField(1000000, 1000000, 150000000000L, 5L);
+        System.out.println("Testing " + huge);
+        row = 765432;
+        column = 234567;
+        while ((huge.chunk(row, column).cells[offset(row, column)] &
+                                        (BOMB | ADJACENT_MASK)) != 0) {
+            ++column;
+        }
+        if (huge.expose(row, column) == true) {
+            System.out.println("**** ERROR:  Exposing an empty cell" +
+                               " ended the game");
+            ++errors;
+        }
+        if ((huge.getHiddenCount() >= 1000000L * 1000000L) ||
+            (huge.getChunkCount() > 16)) {
+            System.out.println("**** ERROR:  exposed " +
+                               ((1000000L * 1000000L) -
+                                        huge.getHiddenCount()) +
+                               " cells with " + huge.getChunkCount() +
+                               " chunks");
+            ++errors;
+        }
+        huge.flag(0, 999999);
+        if ((huge.getState(0, 999999) != Field.flaggedState) ||
+            (huge.getFlagCount() != 1) ||
+            (huge.getState(1000000, 0) != Field.invalidState)) {
+            System.out.println("**** ERROR:  corner of the huge field" +
+                               " is wrong");
+            ++errors;
+        }
+
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,661 @@
+package minesweeper;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ *  {@code CompressedBitSet} is a set of {@code long} positions kept
+ *  the way Roaring bitmaps keep them.  The positions are split into
+ *  blocks of 65536 by their high bits, and each block that has any
+ *  positions in it holds its low 16 bits in whichever container
+ *  suits it: a sorted array when there are only a few, a bitmap
+ *  when there are many, or a list of runs when they come in long
+ *  stretches.  A set's memory follows how many positions it holds
+ *  and how they're clustered rather than how big a range they're
+ *  spread over.
+ *  <p>
+ *  Adding and removing keep a block in an array or a bitmap.
+ *  {@code optimize()} turns blocks into runs where that's smaller.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+final class CompressedBitSet {
+    /*
+     *  A block with more positions than this is kept as a bitmap,
+     *  which is then smaller than the array.
+     */
+    private static final int    arrayLimit      = 4096;
+    private static final int    blockShift      = 16;
+    private static final int    blockMask       = (1 << blockShift) - 1;
+    private static final int    bitmapWords     = (1 << blockShift) / 64;
+
+    /*
+     *  A rough allowance for the object and map entry that go
+     *  with each container.
+     */
+    private static final int    overhead        = 64;
+
+    private final Map<Long, Container>  containers  =
+                                        new HashMap<Long, Container>();
+    private long                lastKey         = -1;
+    private Container           lastContainer;
+    private long                cardinality;
+
+    /*
+     *  The low 16 bits of the positions in one block.  Adding and
+     *  removing may outgrow a container, so they return the one
+     *  that should replace it.
+     */
+    private abstract static class Container {
+        /*
+         *  Return whether the given low bits are in the block.
+         */
+        abstract boolean    contains(int low);
+
+        /*
+         *  Add low bits that aren't in the block yet.
+         */
+        abstract Container  add(int low);
+
+        /*
+         *  Remove low bits that are in the block, returning null
+         *  when the block is left empty.
+         */
+        abstract Container  remove(int low);
+
+        abstract int        cardinality();
+
+        abstract int        sizeInBytes();
+
+        /*
+         *  Call the action with each position in the block, in
+         *  order, given the position of the block's first bit.
+         */
+        abstract void       forEach(long base, LongConsumer action);
+
+        /*
+         *  Return the number of runs of consecutive low bits.
+         */
+        abstract int        runCount();
+
+        /*
+         *  Return the smallest container holding the same bits.
+         */
+        Container           optimize()
+        {
+            int     runs;
+            int     count;
+
+            runs = runCount();
+            count = cardinality();
+            if ((4 * runs) < Math.min(2 * count, bitmapWords * 8)) {
+                return((this instanceof RunContainer) ?
+                                    this : new RunContainer(this, runs));
+            }
+            if (count <= arrayLimit) {
+                /*
+                 *  Copying an array container drops its spare room.
+                 */
+                return(new ArrayContainer(this));
+            }
+
+            return((this instanceof BitmapContainer) ?
+                                    this : new BitmapContainer(this));
+        }
+    }
+
+    /*
+     *  A few positions, as a sorted array of their low bits.
+     */
+    private static final class ArrayContainer extends Container {
+        private char    values[];
+        private int     count;
+
+        ArrayContainer()
+        {
+            values = new char[4];
+        }
+
+        ArrayContainer(Container from)
+        {
+            values = new char[Math.max(4, from.cardinality())];
+            from.forEach(0, (position) -> {
+                    values[count++] = (char) position;
+                });
+        }
+
+        boolean     contains(int low)
+        {
+            return(Arrays.binarySearch(values, 0, count, (char) low) >= 0);
+        }
+
+        Container   add(int low)
+        {
+            int     at;
+
+            if (count == arrayLimit) {
+                return(new BitmapContainer(this).add(low));
+            }
+
+            at = -(Arrays.binarySearch(values, 0, count, (char) low) + 1);
+            if (count == values.length) {
+                values = Arrays.copyOf(values,
+                                       Math.min(arrayLimit, count * 2));
+            }
+            System.arraycopy(values, at, values, at + 1, count - at);
+            values[at] = (char) low;
+            ++count;
+            return(this);
+        }
+
+        Container   remove(int low)
+        {
+            int     at;
+
+            at = Arrays.binarySearch(values, 0, count, (char) low);
+            System.arraycopy(values, at + 1, values, at, count - at - 1);
+            --count;
+            return((count == 0) ? null : this);
+        }
+
+        int         cardinality()
+        {
+            return(count);
+        }
+
+        int         sizeInBytes()
+        {
+            return(overhead + (2 * values.length));
+        }
+
+        void        forEach(long base, LongConsumer action)
+        {
+            int     i;
+
+            for (i = 0; (i < count); ++i) {
+                action.accept(base + values[i]);
+            }
+        }
+
+        int         runCount()
+        {
+            int     i;
+            int     runs;
+
+            runs = 0;
+            for (i = 0; (i < count); ++i) {
+                if ((i == 0) || (values[i] != values[i - 1] + 1)) {
+                    ++runs;
+                }
+            }
+
+            return(runs);
+        }
+    }
+
+    /*
+     *  Many positions, as a bit for every position in the block.
+     */
+    private static final class BitmapContainer extends Container {
+        private final long  words[]     = new long[bitmapWords];
+        private int         count;
+
+        BitmapContainer(Container from)
+        {
+            from.forEach(0, (position) -> {
+                    words[(int) position >>> 6] |= 1L << position;
+                });
+            count = from.cardinality();
+        }
+
+        boolean     contains(int low)
+        {
+            return(((words[low >>> 6] >>> low) & 1) != 0);
+        }
+
+        Container   add(int low)
+        {
+            words[low >>> 6] |= 1L << low;
+            ++count;
+            return(this);
+        }
+
+        Container   remove(int low)
+        {
+            words[low >>> 6] &= ~(1L << low);
+            --count;
+            if (count <= arrayLimit) {
+                return(new ArrayContainer(this));
+            }
+
+            return(this);
+        }
+
+        int         cardinality()
+        {
+            return(count);
+        }
+
+        int         sizeInBytes()
+        {
+            return(overhead + (8 * bitmapWords));
+        }
+
+        void        forEach(long base, LongConsumer action)
+        {
+            int     i;
+
+            for (i = 0; (i < bitmapWords); ++i) {
+                long    word;
+
+                for (word = words[i]; (word != 0); word &= word - 1) {
+                    action.accept(base + (i << 6) +
+                                  Long.numberOfTrailingZeros(word));
+                }
+            }
+        }
+
+        int         runCount()
+        {
+            int     i;
+            int     runs;
+            long    carry;
+
+            /*
+             *  A run starts at each set bit whose lower neighbor,
+             *  possibly in the word before, is clear.
+             */
+            runs = 0;
+            carry = 0;
+            for (i = 0; (i < bitmapWords); ++i) {
+                runs += Long.bitCount(words[i] & ~((words[i] << 1) | carry));
+                carry = words[i] >>> 63;
+            }
+
+            return(runs);
+        }
+    }
+
+    /*
+     *  Positions that come in long stretches, as the first low bits
+     *  and length less one of each run, in order.
+     */
+    private static final class RunContainer extends Container {
+        private final char  runs[];
+        private final int   count;
+
+        RunContainer(Container from, int runCount)
+        {
+            int     filled[];
+
+            runs = new char[2 * runCount];
+            filled = new int[] {0, -2};
+            from.forEach(0, (position) -> {
+                    if (position == filled[1] + 1) {
+                        ++runs[filled[0] - 1];
+                    } else {
+                        runs[filled[0]++] = (char) position;
+                        runs[filled[0]++] = 0;
+                    }
+                    filled[1] = (int) position;
+                });
+            count = from.cardinality();
+        }
+
+        boolean     contains(int low)
+        {
+            int     first;
+            int     last;
+
+            /*
+             *  Find the last run starting at or before low.
+             */
+            first = 0;
+            last = (runs.length / 2) - 1;
+            while (first < last) {
+                int     middle;
+
+                middle = (first + last + 1) >>> 1;
+                if (runs[2 * middle] <= low) {
+                    first = middle;
+                } else {
+                    last = middle - 1;
+                }
+            }
+
+            return((runs[2 * first] <= low) &&
+                   (low <= runs[2 * first] + runs[(2 * first) + 1]));
+        }
+
+        /*
+         *  Runs aren't changed in place.  Unpack them and let the
+         *  next optimize() pack them again.
+         */
+        Container   add(int low)
+        {
+            if (count < arrayLimit) {
+                return(new ArrayContainer(this).add(low));
+            }
+
+            return(new BitmapContainer(this).add(low));
+        }
+
+        Container   remove(int low)
+        {
+            if (count <= arrayLimit + 1) {
+                return(new ArrayContainer(this).remove(low));
+            }
+
+            return(new BitmapContainer(this).remove(low));
+        }
+
+        int         cardinality()
+        {
+            return(count);
+        }
+
+        int         sizeInBytes()
+        {
+            return(overhead + (2 * runs.length));
+        }
+
+        void        forEach(long base, LongConsumer action)
+        {
+            int     i;
+
+            for (i = 0; (i < runs.length); i += 2) {
+                int     low;
+
+                for (low = runs[i]; (low <= runs[i] + runs[i + 1]); ++low) {
+                    action.accept(base + low);
+                }
+            }
+        }
+
+        int         runCount()
+        {
+            return(runs.length / 2);
+        }
+    }
+
+    /*
+     *  Return the container for a block, or null if the block is
+     *  empty.  Nearby positions tend to be looked at together so
+     *  the last block is remembered.
+     */
+    private Container   container(long key)
+    {
+        if (key != lastKey) {
+            lastContainer = containers.get(key);
+            lastKey = key;
+        }
+
+        return(lastContainer);
+    }
+
+    /*
+     *  Replace the container of a block, or drop the block when
+     *  it's left empty.
+     */
+    private void        replace(long key, Container container)
+    {
+        if (container == null) {
+            containers.remove(key);
+        } else {
+            containers.put(key, container);
+        }
+        lastKey = key;
+        lastContainer = container;
+    }
+
+    /**
+     *  Return whether a position is in the set.
+     *  @param position the position, which can't be negative
+     *  @return whether it's in the set
+     */
+    boolean contains(long position)
+    {
+        Container   found;
+
+        found = container(position >>> blockShift);
+        return((found != null) &&
+               found.contains((int) position & blockMask));
+    }
+
+    /**
+     *  Add a position to the set.
+     *  @param position the position, which can't be negative
+     *  @return whether it wasn't in the set before
+     */
+    boolean add(long position)
+    {
+        long        key;
+        int         low;
+        Container   found;
+
+        key = position >>> blockShift;
+        low = (int) position & blockMask;
+        found = container(key);
+        if (found == null) {
+            found = new ArrayContainer();
+        } else if (found.contains(low) == true) {
+            return(false);
+        }
+
+        replace(key, found.add(low));
+        ++cardinality;
+        return(true);
+    }
+
+    /**
+     *  Remove a position from the set.
+     *  @param position the position
+     *  @return whether it was in the set
+     */
+    boolean remove(long position)
+    {
+        long        key;
+        int         low;
+        Container   found;
+
+        key = position >>> blockShift;
+        low = (int) position & blockMask;
+        found = container(key);
+        if ((found == null) || (found.contains(low) == false)) {
+            return(false);
+        }
+
+        replace(key, found.remove(low));
+        --cardinality;
+        return(true);
+    }
+
+    /**
+     *  @return number of positions in the set
+     */
+    long cardinality()
+    {
+        return(cardinality);
+    }
+
+    /**
+     *  Call the given action with each position in the set, in no
+     *  particular order of blocks but in order within each.
+     *  @param action what to call
+     */
+    void forEach(LongConsumer action)
+    {
+        for (Map.Entry<Long, Container> entry : containers.entrySet()) {
+            entry.getValue().forEach(entry.getKey() << blockShift, action);
+        }
+    }
+
+    /**
+     *  Keep each block in whichever container is smallest for it,
+     *  which turns long stretches of positions into runs.
+     */
+    void optimize()
+    {
+        for (Map.Entry<Long, Container> entry : containers.entrySet()) {
+            entry.setValue(entry.getValue().optimize());
+        }
+        lastKey = -1;
+        lastContainer = null;
+    }
+
+    /**
+     *  Return roughly how many bytes the set takes up.
+     *  @return the size in bytes
+     */
+    long sizeInBytes()
+    {
+        long    size;
+
+        size = overhead;
+        for (Container container : containers.values()) {
+            size += container.sizeInBytes();
+        }
+
+        return(size);
+    }
+
+    /**
+     *  Performs a unit test on the {@code CompressedBitSet} class
+     *  by checking it against a {@code HashSet} through every kind
+     *  of container.
+     *  @param args arguments to the unit test
+     */
+    public static void main(String[] args)
+    {
+        int                 errors;
+        int                 i;
+        long                base;
+        long                sum[];
+        Set<Long>           expected;
+        CompressedBitSet    set;
+        SplittableRandom    random;
+
+        errors = 0;
+        expected = new HashSet<Long>();
+        set = new CompressedBitSet();
+        random = new SplittableRandom(1);
+
+        /*
+         *  Scattered positions, a crowded block that becomes a
+         *  bitmap, and long stretches that become runs, far apart.
+         */
+        base = 5L << 40;
+        for (i = 0; (i < 200000); ++i) {
+            long    position;
+
+            switch (i % 3) {
+            case 0:
+                position = random.nextLong(1L << 50);
+                break;
+            case 1:
+                position = base + random.nextInt(1 << 14);
+                break;
+            default:
+                position = (base * 2) + (i / 3) + ((i / 3000) * 700);
+                break;
+            }
+            if (set.add(position) != expected.add(position)) {
+                System.out.println("**** ERROR:  add(" + position +
+                                   ") disagrees");
+                ++errors;
+            }
+        }
+        for (i = 0; (i < 3); ++i) {
+            Iterator<Long>  each;
+            int             j;
+
+            if (i == 1) {
+                set.optimize();
+            }
+
+            /*
+             *  Remove some, checking every container gives them up.
+             */
+            each = new ArrayList<Long>(expected).iterator();
+            for (j = 0; (j < 20000) && each.hasNext(); ++j) {
+                long    position;
+
+                position = each.next();
+                if (((position + i) % 5) != 0) {
+                    continue;
+                }
+                if (set.remove(position) != expected.remove(position)) {
+                    System.out.println("**** ERROR:  remove(" + position +
+                                       ") disagrees");
+                    ++errors;
+                }
+            }
+            if (set.remove(base - 1) == true) {
+                System.out.println("**** ERROR:  removed a position" +
+                                   " that isn't there");
+                ++errors;
+            }
+
+            for (long position : expected) {
+                if (set.contains(position) == false) {
+                    System.out.println("**** ERROR:  lost " + position);
+                    ++errors;
+                    break;
+                }
+            }
+            for (j = 0; (j < 100000); ++j) {
+                long    position;
+
+                position = base + random.nextInt(1 << 17);
+                if (set.contains(position) != expected.contains(position)) {
+                    System.out.println("**** ERROR:  contains(" +
+                                       position + ") disagrees");
+                    ++errors;
+                    break;
+                }
+            }
+            if (set.cardinality() != expected.size()) {
+                System.out.println("**** ERROR:  cardinality " +
+                                   set.cardinality() + " should be " +
+                                   expected.size());
+                ++errors;
+            }
+        }
+
+        sum = new long[2];
+        set.forEach((position) -> {
+                ++sum[0];
+                sum[1] += position;
+            });
+        for (long position : expected) {
+            sum[1] -= position;
+        }
+        if ((sum[0] != expected.size()) || (sum[1] != 0)) {
+            System.out.println("**** ERROR:  forEach() missed positions");
+            ++errors;
+        }
+
+        /*
+         *  A million positions in a row take a few runs, not a
+         *  bitmap for every block.
+         */
+        set = new CompressedBitSet();
+        for (i = 0; (i < 1000000); ++i) {
+            set.add(base + i);
+        }
+        set.optimize();
+        if ((set.sizeInBytes() > 2000) || (set.cardinality() != 1000000) ||
+            (set.contains(base + 999999) == false) ||
+            (set.contains(base + 1000000) == true)) {
+            System.out.println("**** ERROR:  a million in a row take " +
+                               set.sizeInBytes() + " bytes");
+            ++errors;
+        }
+
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,879 @@
+package minesweeper;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ *  {@code EndlessField} is a mine field that goes on forever in
+ *  every direction.  Each 64 by 64 chunk gets its bombs from a
+ *  stream seeded from the field's seed and the chunk's coordinates,
+ *  every cell being a bomb with the same probability, so a chunk
+ *  can be thrown away and made again exactly as it was.  A first
+ *  click that has to be kept clear moves the bombs in its way to
+ *  other cells of their own tiles.
+ *  <p>
+ *  Only a fixed number of chunks are kept in memory, the least
+ *  recently used one being thrown away to make room for a new one.
+ *  A chunk the player has exposed, flagged or marked cells in is
+ *  written to a spill file first.  Only which of its cells are
+ *  exposed, flagged or marked is written, since the bombs and the
+ *  counts come back from the seed, and it's read back when the
+ *  player returns to it.  Where each chunk is in the spill file is
+ *  kept in a hash table in the file too, with only the most
+ *  recently used entries in memory, so memory stays the same
+ *  however far the player goes.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+public class EndlessField extends ChunkedBoard implements Closeable {
+    /**
+     *  The fraction of cells that are bombs when none is given.
+     */
+    public static final double  defaultDensity  = 0.15;
+    /**
+     *  How many chunks are kept in memory when no number is given.
+     */
+    public static final int     defaultCacheSize    = 1024;
+
+    /*
+     *  Below about this density the cells with no adjacent bombs
+     *  join up into openings that go on forever, and exposing one
+     *  would never finish.
+     */
+    private static final double minDensity      = 0.12;
+
+    /*
+     *  Rows and columns are kept far enough inside the range of a
+     *  long that a chunk's coordinates fit in 32 bits each.
+     */
+    private static final long   maxCoordinate   = 1L << 37;
+
+    /*
+     *  A chunk in the spill file is its exposed, flagged and marked
+     *  bits, a word for each row of each.
+     */
+    private static final int    recordSize      = 3 * tileSize * 8;
+
+    /*
+     *  The spill file starts with an open addressed hash table
+     *  from the key of each spilled chunk to where its record is, a
+     *  slot being the key and the position, with a position of zero
+     *  for an empty slot.  The records follow.  When the table is
+     *  half full one twice the size is written at the end of the
+     *  file and the old one is left where it was, so the tables
+     *  never take more room than the last one again.
+     */
+    private static final int    slotSize        = 16;
+    private static int          firstSlots      = 1024;
+
+    private final double            density;
+    private final long              threshold;
+    private final int               cacheSize;
+    private final SplitMix          random;
+    private final Map<Long, Chunk>  chunks;
+
+    /*
+     *  Where the hash table is in the spill file, how many slots
+     *  it has and how many chunks it holds, and where the most
+     *  recently looked up chunks are, or zero for the ones that
+     *  haven't been spilled.
+     */
+    private long                    tableAt;
+    private long                    slots;
+    private int                     spilledCount;
+    private final Map<Long, Long>   positions;
+    private final File              spillFile;
+    private final boolean           temporary;
+    private final RandomAccessFile  spill;
+    private final byte              record[]    = new byte[recordSize];
+
+    /**
+     *  Construct an endless field with the default density and
+     *  cache size, spilling to a temporary file that's deleted when
+     *  the field is closed.
+     *  @param seed seed for laying out the bombs
+     *  @throws IOException if the spill file can't be created
+     */
+    public EndlessField(long seed) throws IOException
+    {
+        this(seed, defaultDensity, defaultCacheSize, null);
+    }
+
+    /**
+     *  Construct an endless field.
+     *  @param seed seed for laying out the bombs
+     *  @param density fraction of cells that are bombs, at least 0.12
+     *  @param cacheSize number of chunks to keep in memory, at
+     *  least 9
+     *  @param spillFile file to spill chunks to, which has to be
+     *  empty or not exist yet, or null for a temporary file that's
+     *  deleted when the field is closed
+     *  @throws IOException if the spill file can't be opened or
+     *  already holds something
+     */
+    public EndlessField(long seed, double density, int cacheSize,
+                        File spillFile) throws IOException
+    {
+        super(seed);
+
+        this.density = Math.max(minDensity, Math.min(1, density));
+        threshold = (long) (this.density * 0x1.0p53);
+
+        /*
+         *  Exposing a cell can need the chunk it's in and the
+         *  chunks around it all at once.
+         */
+        this.cacheSize = Math.max(9, cacheSize);
+        chunks = new LinkedHashMap<Long, Chunk>(64, 0.75f, true) {
+                protected boolean
+                removeEldestEntry(Map.Entry<Long, Chunk> eldest)
+                {
+                    if (size() <= EndlessField.this.cacheSize) {
+                        return(false);
+                    }
+
+                    spillChunk(eldest.getKey(), eldest.getValue());
+                    return(true);
+                }
+            };
+
+        positions = new LinkedHashMap<Long, Long>(64, 0.75f, true) {
+                protected boolean
+                removeEldestEntry(Map.Entry<Long, Long> eldest)
+                {
+                    return(size() > EndlessField.this.cacheSize);
+                }
+            };
+
+        temporary = (spillFile == null);
+        if (temporary == true) {
+            spillFile = File.createTempFile("minesweeper", ".spill");
+            spillFile.deleteOnExit();
+        } else if (spillFile.length() > 0) {
+            throw new IOException(spillFile + " isn't empty");
+        }
+        this.spillFile = spillFile;
+        spill = new RandomAccessFile(spillFile, "rw");
+        tableAt = 0;
+        slots = firstSlots;
+        clearSlots(tableAt, slots);
+        random = new SplitMix(seed);
+    }
+
+    /**
+     *  @return fraction of cells that are bombs
+     */
+    public double       getDensity()
+    {
+        return(density);
+    }
+
+    /**
+     *  Return the number of chunks that are in memory.
+     *  @return the number of chunks
+     */
+    public int  getChunkCount()
+    {
+        return(chunks.size());
+    }
+
+    /**
+     *  Return the number of chunks that have been written to the
+     *  spill file.
+     *  @return the number of chunks
+     */
+    public int  getSpilledCount()
+    {
+        return(spilledCount);
+    }
+
+    /**
+     *  An endless field is never cleared.
+     *  @return false
+     */
+    public boolean      isCleared()
+    {
+        return(false);
+    }
+
+    boolean     isOnField(long row, long column)
+    {
+        return((row >= -maxCoordinate) && (row < maxCoordinate) &&
+               (column >= -maxCoordinate) && (column < maxCoordinate));
+    }
+
+    /*
+     *  Each cell of a tile is a bomb with the same probability,
+     *  drawn from a stream seeded from the tile's coordinates.
+     */
+    boolean
+    tileBombs(long tileRow, long tileColumn, long bits[])
+    {
+        int     row;
+
+        random.reseed(SplitMix.mix(SplitMix.mix(getSeed(), tileRow),
+                                   tileColumn));
+        for (row = 0; (row < tileSize); ++row) {
+            int     column;
+            long    word;
+
+            word = 0;
+            for (column = 0; (column < tileSize); ++column) {
+                if ((random.nextLong() >>> 11) < threshold) {
+                    word |= 1L << column;
+                }
+            }
+            bits[row] = word;
+        }
+
+        return(true);
+    }
+
+    /*
+     *  There's no end to the field to choose evenly from, so each
+     *  bomb moves to a cell chosen evenly from the free cells of its
+     *  own tile, which keeps every tile's share of the bombs.  A
+     *  bomb in a tile with no free cells stays where it is.
+     */
+    long[]      moveBombs(long clear[], int cells)
+    {
+        long        moves[];
+        long        bits[];
+        int         moved;
+        int         i;
+        SplitMix    choose;
+
+        moves = new long[4 * cells];
+        bits = new long[tileSize];
+        choose = new SplitMix(SplitMix.mix(SplitMix.mix(getSeed(), clear[0]),
+                                           clear[1]));
+        moved = 0;
+        for (i = 0; (i < cells); ++i) {
+            long    tileRow;
+            long    tileColumn;
+            long    open;
+            int     free;
+            int     rank;
+            int     row;
+            int     j;
+
+            tileRow = clear[2 * i] >> tileShift;
+            tileColumn = clear[(2 * i) + 1] >> tileShift;
+            tileBombs(tileRow, tileColumn, bits);
+            if (((bits[(int) (clear[2 * i] & (tileSize - 1))] >>>
+                  clear[(2 * i) + 1]) & 1) == 0) {
+                continue;
+            }
+
+            /*
+             *  The cells kept clear and the ones bombs have already
+             *  moved to are taken too.
+             */
+            for (j = 0; (j < cells); ++j) {
+                take(clear[2 * j], clear[(2 * j) + 1], tileRow, tileColumn,
+                     bits);
+            }
+            for (j = 0; (j < moved); ++j) {
+                take(moves[(4 * j) + 2], moves[(4 * j) + 3], tileRow,
+                     tileColumn, bits);
+            }
+            free = 0;
+            for (row = 0; (row < tileSize); ++row) {
+                free += tileSize - Long.bitCount(bits[row]);
+            }
+            if (free == 0) {
+                continue;
+            }
+
+            rank = choose.nextInt(free);
+            for (row = 0; (rank >= (tileSize - Long.bitCount(bits[row])));
+                                                                ++row) {
+                rank -= tileSize - Long.bitCount(bits[row]);
+            }
+            for (open = ~bits[row]; (rank > 0); --rank) {
+                open &= open - 1;
+            }
+            moves[4 * moved] = clear[2 * i];
+            moves[(4 * moved) + 1] = clear[(2 * i) + 1];
+            moves[(4 * moved) + 2] = (tileRow << tileShift) + row;
+            moves[(4 * moved) + 3] = (tileColumn << tileShift) +
+                                     Long.numberOfTrailingZeros(open);
+            ++moved;
+        }
+
+        return(Arrays.copyOf(moves, 4 * moved));
+    }
+
+    /*
+     *  Set the bit of a cell in the bombs of a tile if the cell is
+     *  in that tile.
+     */
+    private static void
+    take(long row, long column, long tileRow, long tileColumn, long bits[])
+    {
+        if (((row >> tileShift) == tileRow) &&
+            ((column >> tileShift) == tileColumn)) {
+            bits[(int) (row & (tileSize - 1))] |= 1L << column;
+        }
+    }
+
+    /*
+     *  Look for the chunk in memory and then in the spill file,
+     *  making it again from the seed and putting back what was
+     *  spilled.
+     */
+    Chunk       findChunk(long key)
+    {
+        Chunk   found;
+
+        found = chunks.get(key);
+        if (found != null) {
+            return(found);
+        }
+
+        try {
+            LongBuffer  words;
+            long        position;
+            int         row;
+
+            position = findRecord(key);
+            if (position == 0) {
+                return(null);
+            }
+
+            found = layOutChunk(key >> 32, (int) key);
+            spill.seek(position);
+            spill.readFully(record);
+            words = ByteBuffer.wrap(record).asLongBuffer();
+            for (row = 0; (row < tileSize); ++row) {
+                long    exposed;
+                long    flagged;
+                long    marked;
+                int     column;
+
+                exposed = words.get(row);
+                flagged = words.get(tileSize + row);
+                marked = words.get((2 * tileSize) + row);
+                for (column = 0; (column < tileSize); ++column) {
+                    int     bits;
+
+                    bits = ((((exposed >>> column) & 1) != 0) ? EXPOSED : 0) |
+                           ((((flagged >>> column) & 1) != 0) ? FLAGGED : 0) |
+                           ((((marked >>> column) & 1) != 0) ? MARKED : 0);
+                    found.cells[(row << tileShift) | column] |= (byte) bits;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chunks.put(key, found);
+
+        return(found);
+    }
+
+    void        keepChunk(long key, Chunk chunk)
+    {
+        chunks.put(key, chunk);
+    }
+
+    /*
+     *  Write a chunk that's being thrown away to the spill file if
+     *  the player has done anything in it, or did before.  A chunk
+     *  goes back in the same place each time.
+     */
+    private void
+    spillChunk(long key, Chunk chunk)
+    {
+        long    position;
+        int     row;
+
+        try {
+            position = findRecord(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if ((position == 0) && (chunk.hasProgress() == false)) {
+            return;
+        }
+
+        for (row = 0; (row < tileSize); ++row) {
+            long    exposed;
+            long    flagged;
+            long    marked;
+            int     column;
+
+            exposed = 0;
+            flagged = 0;
+            marked = 0;
+            for (column = 0; (column < tileSize); ++column) {
+                int     cell;
+
+                cell = chunk.cells[(row << tileShift) | column];
+                exposed |= (long) ((cell & EXPOSED) != 0 ? 1 : 0) << column;
+                flagged |= (long) ((cell & FLAGGED) != 0 ? 1 : 0) << column;
+                marked |= (long) ((cell & MARKED) != 0 ? 1 : 0) << column;
+            }
+            ByteBuffer.wrap(record).putLong(row * 8, exposed)
+                                   .putLong((tileSize + row) * 8, flagged)
+                                   .putLong(((2 * tileSize) + row) * 8,
+                                            marked);
+        }
+
+        try {
+            if (position == 0) {
+                position = spill.length();
+                spill.seek(position);
+                spill.write(record);
+                addRecord(key, position);
+            } else {
+                spill.seek(position);
+                spill.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     *  Return where a chunk's record is in the spill file, or zero
+     *  if it's never been spilled.
+     */
+    private long
+    findRecord(long key) throws IOException
+    {
+        Long    cached;
+        long    slot;
+        long    position;
+
+        cached = positions.get(key);
+        if (cached != null) {
+            return(cached);
+        }
+
+        for (slot = SplitMix.mix(key, 0) & (slots - 1); ; ) {
+            spill.seek(tableAt + (slot * slotSize));
+            if (spill.readLong() == key) {
+                position = spill.readLong();
+                break;
+            }
+            position = spill.readLong();
+            if (position == 0) {
+                break;
+            }
+            slot = (slot + 1) & (slots - 1);
+        }
+        positions.put(key, position);
+
+        return(position);
+    }
+
+    /*
+     *  Add a newly spilled chunk to the hash table, moving to a
+     *  bigger table first if this one's half full.
+     */
+    private void
+    addRecord(long key, long position) throws IOException
+    {
+        if ((2 * (spilledCount + 1L)) > slots) {
+            growTable();
+        }
+        putSlot(key, position);
+        ++spilledCount;
+        positions.put(key, position);
+    }
+
+    /*
+     *  Put a key and position in the first empty slot of its run.
+     */
+    private void
+    putSlot(long key, long position) throws IOException
+    {
+        long    slot;
+
+        slot = SplitMix.mix(key, 0) & (slots - 1);
+        for (;;) {
+            spill.seek(tableAt + (slot * slotSize) + 8);
+            if (spill.readLong() == 0) {
+                break;
+            }
+            slot = (slot + 1) & (slots - 1);
+        }
+        spill.seek(tableAt + (slot * slotSize));
+        spill.writeLong(key);
+        spill.writeLong(position);
+    }
+
+    /*
+     *  Write an empty table twice the size at the end of the spill
+     *  file and move the chunks from the old one into it, reading
+     *  the old one a block at a time.
+     */
+    private void        growTable() throws IOException
+    {
+        long        oldAt;
+        long        oldSlots;
+        long        slot;
+        byte        block[];
+        ByteBuffer  slotsRead;
+
+        oldAt = tableAt;
+        oldSlots = slots;
+        tableAt = spill.length();
+        slots = 2 * oldSlots;
+        clearSlots(tableAt, slots);
+
+        block = new byte[256 * slotSize];
+        slotsRead = ByteBuffer.wrap(block);
+        for (slot = 0; (slot < oldSlots); ++slot) {
+            int     at;
+
+            at = (int) ((slot * slotSize) % block.length);
+            if (at == 0) {
+                spill.seek(oldAt + (slot * slotSize));
+                spill.readFully(block, 0,
+                                (int) Math.min(block.length,
+                                               (oldSlots - slot) * slotSize));
+            }
+            if (slotsRead.getLong(at + 8) != 0) {
+                putSlot(slotsRead.getLong(at), slotsRead.getLong(at + 8));
+            }
+        }
+    }
+
+    /*
+     *  Write empty slots to the spill file, which may be past its
+     *  end.
+     */
+    private void
+    clearSlots(long at, long count) throws IOException
+    {
+        byte    zeros[];
+        long    left;
+
+        zeros = new byte[256 * slotSize];
+        spill.seek(at);
+        for (left = count * slotSize; (left > 0); left -= zeros.length) {
+            spill.write(zeros, 0, (int) Math.min(zeros.length, left));
+        }
+    }
+
+    /**
+     *  Close the spill file, deleting it if it's temporary.
+     *  @throws IOException if the file can't be closed
+     */
+    public void close() throws IOException
+    {
+        spill.close();
+        if (temporary == true) {
+            spillFile.delete();
+        }
+    }
+
+    /**
+     *  @return {@code String} representation of object
+     */
+    public String toString()
+    {
+        return(getClass().getName() +
+               "[seed=" + getSeed() +
+               ",density=" + density +
+               ",cacheSize=" + cacheSize + "]");
+    }
+
+    /*
+     *  Play the same moves on a field that keeps everything in
+     *  memory and one that has to keep spilling, far from the
+     *  origin and across the edges of many chunks, and make sure
+     *  they end up the same.
+     */
+    private static int
+    spillTest(long givenSeed, long firstRow, long firstColumn)
+        throws IOException
+    {
+        int             errorCount;
+        int             step;
+        long            row;
+        long            column;
+        EndlessField    roomy;
+        EndlessField    cramped;
+
+        errorCount = 0;
+        roomy = new EndlessField(givenSeed, defaultDensity, 100000, null);
+        cramped = new EndlessField(givenSeed, defaultDensity, 9, null);
+        System.out.println("Testing " + cramped + " against " + roomy);
+
+        /*
+         *  Walk a long diagonal, exposing, flagging and marking as
+         *  we go, then come back and make sure nothing was lost.
+         */
+        for (step = 0; (step < 3000); ++step) {
+            row = firstRow + (step * 3L);
+            column = firstColumn + (step * 2L);
+            switch (step % 4) {
+            case 0:
+                roomy.flag(row, column);
+                cramped.flag(row, column);
+                break;
+            case 1:
+                roomy.mark(row, column);
+                cramped.mark(row, column);
+                break;
+            case 2:
+                if (roomy.expose(row, column) !=
+                            cramped.expose(row, column)) {
+                    System.out.println("**** ERROR:  Exposing " + row +
+                                       "x" + column + " ends a different" +
+                                       " game");
+                    ++errorCount;
+                }
+                break;
+            default:
+                roomy.mark(row, column);
+                roomy.clearMark(row, column);
+                cramped.mark(row, column);
+                cramped.clearMark(row, column);
+                break;
+            }
+        }
+
+        if ((cramped.getChunkCount() > 9) ||
+            (cramped.positions.size() > 9) ||
+            (cramped.getSpilledCount() == 0)) {
+            System.out.println("**** ERROR:  " + cramped.getChunkCount() +
+                               " chunks and " + cramped.positions.size() +
+                               " positions in memory and " +
+                               cramped.getSpilledCount() + " spilled");
+            ++errorCount;
+        }
+
+        for (step = 0; (step < 3000); ++step) {
+            int     i;
+
+            for (i = -2; (i <= 2); ++i) {
+                row = firstRow + (step * 3L) + i;
+                column = firstColumn + (step * 2L);
+                if (roomy.getState(row, column) !=
+                                    cramped.getState(row, column)) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column +
+                                       " differs after spilling");
+                    ++errorCount;
+                }
+            }
+        }
+        if ((roomy.getExposedCount() != cramped.getExposedCount()) ||
+            (roomy.getFlagCount() != cramped.getFlagCount()) ||
+            (roomy.getMarkCount() != cramped.getMarkCount())) {
+            System.out.println("**** ERROR:  counts differ after" +
+                               " spilling");
+            ++errorCount;
+        }
+
+        roomy.close();
+        cramped.close();
+        return(errorCount);
+    }
+
+    /*
+     *  Reveal a block of the field crossing chunk edges and make
+     *  sure each count matches the bombs around it.
+     */
+    private static int
+    countTest(long givenSeed, long firstRow, long firstColumn)
+        throws IOException
+    {
+        int             errorCount;
+        int             bombs;
+        long            row;
+        long            column;
+        EndlessField    fieldToTest;
+
+        errorCount = 0;
+        bombs = 0;
+        fieldToTest = new EndlessField(givenSeed, 0.2, 16, null);
+        System.out.println("Testing counts of " + fieldToTest);
+        fieldToTest.exposeAll();
+        for (row = firstRow; (row < firstRow + 200); ++row) {
+            for (column = firstColumn; (column < firstColumn + 200);
+                                                            ++column) {
+                int     state;
+                int     around;
+                long    i;
+
+                state = fieldToTest.getState(row, column);
+                if (state == Field.bombState) {
+                    ++bombs;
+                    continue;
+                }
+
+                around = 0;
+                for (i = 0; (i < 9); ++i) {
+                    if ((i != 4) &&
+                        (fieldToTest.getState(row + (i / 3) - 1,
+                                              column + (i % 3) - 1) ==
+                                                    Field.bombState)) {
+                        ++around;
+                    }
+                }
+                if (state != around) {
+                    System.out.println("**** ERROR: Position " + row +
+                                       "x" + column + " counts " + state +
+                                       " bombs but has " + around);
+                    ++errorCount;
+                }
+            }
+        }
+
+        /*
+         *  About a fifth of the 40000 cells should be bombs.
+         */
+        if (Math.abs(bombs - 8000) > 500) {
+            System.out.println("**** ERROR:  " + bombs + " bombs, expected" +
+                               " about 8000");
+            ++errorCount;
+        }
+
+        fieldToTest.close();
+        return(errorCount);
+    }
+
+    /*
+     *  Look around a cell, expose it as the first click of fields
+     *  that keep it clear, and make sure it opens an opening and
+     *  the chunks made before and after agree with the bombs that
+     *  moved, whether they stayed in memory or not.
+     */
+    private static int
+    firstClickTest(long givenSeed, long givenRow, long givenColumn)
+        throws IOException
+    {
+        int             errorCount;
+        int             oldFirstClick;
+        int             i;
+        long            row;
+        long            column;
+        EndlessField    roomy;
+        EndlessField    cramped;
+
+        errorCount = 0;
+        oldFirstClick = Field.getFirstClick();
+        Field.setFirstClick(Field.firstClickOpening);
+        roomy = new EndlessField(givenSeed, 0.3, 100000, null);
+        cramped = new EndlessField(givenSeed, 0.3, 9, null);
+        Field.setFirstClick(oldFirstClick);
+        System.out.println("Testing first click at " + givenRow + "x" +
+                           givenColumn + " of " + cramped);
+
+        for (i = -290; (i <= 290); i += 20) {
+            roomy.flag(givenRow + i, givenColumn - i);
+            cramped.flag(givenRow + i, givenColumn - i);
+        }
+        roomy.expose(givenRow, givenColumn);
+        cramped.expose(givenRow, givenColumn);
+        if ((roomy.getState(givenRow, givenColumn) != 0) ||
+            (cramped.getState(givenRow, givenColumn) != 0)) {
+            System.out.println("**** ERROR:  first click on " + givenRow +
+                               "x" + givenColumn + " didn't open");
+            ++errorCount;
+        }
+
+        roomy.exposeAll();
+        cramped.exposeAll();
+        for (row = givenRow - 100; (row < givenRow + 100); ++row) {
+            for (column = givenColumn - 100; (column < givenColumn + 100);
+                                                            ++column) {
+                int     state;
+                int     around;
+
+                state = roomy.getState(row, column);
+                if (state != cramped.getState(row, column)) {
+                    System.out.println("**** ERROR: Position " + row +
+                                       "x" + column + " differs after" +
+                                       " spilling");
+                    ++errorCount;
+                }
+                if (state == Field.bombState) {
+                    continue;
+                }
+
+                around = 0;
+                for (i = 0; (i < 9); ++i) {
+                    if ((i != 4) &&
+                        (roomy.getState(row + (i / 3) - 1,
+                                        column + (i % 3) - 1) ==
+                                                    Field.bombState)) {
+                        ++around;
+                    }
+                }
+                if (state != around) {
+                    System.out.println("**** ERROR: Position " + row +
+                                       "x" + column + " counts " + state +
+                                       " bombs but has " + around);
+                    ++errorCount;
+                }
+            }
+        }
+
+        roomy.close();
+        cramped.close();
+        return(errorCount);
+    }
+
+    /**
+     *  Performs a unit test on the {@code EndlessField} class.
+     *  @param args arguments to the unit test
+     *  @throws IOException if a spill file can't be used
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int     errors;
+        int     oldSlots;
+        File    file;
+
+        errors = 0;
+        errors += spillTest(1L, 0, 0);
+        errors += spillTest(2L, -5000000000L, 70000000000L);
+
+        /*
+         *  A small first table so the spill file has to move to
+         *  bigger ones a few times.
+         */
+        oldSlots = firstSlots;
+        firstSlots = 4;
+        errors += spillTest(8L, 1000, -1000);
+        firstSlots = oldSlots;
+
+        /*
+         *  A spill file that already holds something isn't wiped.
+         */
+        file = File.createTempFile("minesweeper", ".spill");
+        file.deleteOnExit();
+        Files.write(file.toPath(), new byte[100]);
+        try {
+            new EndlessField(9L, defaultDensity, 9, file).close();
+            System.out.println("**** ERROR:  spilled to a file that" +
+                               " wasn't empty");
+            ++errors;
+        } catch (IOException e) {
+        }
+        if (file.length() != 100) {
+            System.out.println("**** ERROR:  a spill file that wasn't" +
+                               " empty was changed");
+            ++errors;
+        }
+        file.delete();
+        errors += countTest(3L, -100, -100);
+        errors += countTest(4L, 123456789012L, -98765432101L);
+        errors += firstClickTest(5L, 63, -1);
+        errors += firstClickTest(6L, -1000000000L, 4000000000L);
+        errors += firstClickTest(7L, 0, 0);
+
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}
@@ -1,38 +1,240 @@
 package minesweeper;
 
+import java.lang.invoke.*;
+import java.nio.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  *  {@code Field} is class that holds all the cells of a game instance.
  *  @version 2021031700
  *  @author Trevor Watts
  */
-public class Field {
+public class Field implements FieldEngine {
     private final int   size;
-    private final int   bombCount;
+    private int         bombCount;
+    private long        seed;
     private int         hiddenCells;
     private String      status;
+    /*
+     *  Set once the whole field has been revealed at the end of a
+     *  game.  Every cell then reads as exposed without its exposed
+     *  bit having to be set.
+     */
+    private boolean     revealed;
     private static int  defaultSize             = 16;
     private static int  defaultBombCount        = -1;
+    private static int  parallelThreshold       = 1 << 18;
+    private static int  parallelFillThreshold   = 1 << 16;
+    private static int  labelThreshold          = 1 << 18;
+    private static volatile int firstClick      = 0;
+
+    /**
+     *  The bombs stay where they're laid out and the first cell
+     *  exposed can be a bomb.
+     */
+    public static final int     firstClickAnywhere  = 0;
+    /**
+     *  A bomb in the first cell exposed is moved elsewhere.
+     */
+    public static final int     firstClickSafe      = 1;
+    /**
+     *  Bombs in the first cell exposed or next to it are moved
+     *  elsewhere, so it opens an opening.
+     */
+    public static final int     firstClickOpening   = 2;
+
+    /*
+     *  Where the first cell exposed may be, taken from the default
+     *  when the field is laid out, and whether that first cell is
+     *  still to come.
+     */
+    private int         firstClickMode;
+    private boolean     firstClickPending;
+
+    /*
+     *  Each square of the mine field is packed into one byte of
+     *  this array, stored row by row.  The low four bits hold the
+     *  number of adjacent bombs and the high four bits hold
+     *  whether the square is a bomb, exposed, flagged or marked.
+     *  The field has a border of sentinel squares all the way
+     *  around, as wide as the farthest neighbor of a square, or
+     *  none when the topology wraps.  Sentinels are always exposed,
+     *  which stops a flood fill, and bombs are free to count
+     *  themselves into them, so the loops over a square's neighbors
+     *  never have to check whether they've walked off the field.
+     */
+    private final int   stride;
+    private final byte  cells[];
+    /*
+     *  Which squares are next to each other, and the offsets from
+     *  the index of a square to each of its neighbors.
+     */
+    private final Topology          topology;
+    private final Topology.Table    table;
+
+    /*
+     *  The cells of an opening waiting to have their neighbors
+     *  exposed.  It's kept between openings so it only grows.
+     */
+    private int         fillStack[]     = new int[64];
+
+    /*
+     *  The openings of the field, labeled when it's laid out so
+     *  exposing a cell with no adjacent bombs just exposes the
+     *  cells of its opening.  Null when the field is too big to
+     *  label, so its openings are flood filled instead, or after
+     *  a bomb has been placed by hand.
+     */
+    private Openings    openings;
+    /*
+     *  Where the openings are labeled, kept so labeling the field
+     *  again after a reset doesn't allocate.
+     */
+    private Openings    labels;
+
+    /*
+     *  Where an expose writes the rows and columns of the cells it
+     *  exposes, and how many it's written, or -1 once they don't
+     *  fit.  Null when nobody asked.
+     */
+    private int         changed[];
+    private int         changedCount;
+
+    /*
+     *  Count the bombs, the hidden cells and the flagged hidden
+     *  cells in any rectangle of the field.  Built the first time
+     *  a rectangle is counted and kept up to date as cells change
+     *  from then on.  A new game only marks them out of date, and
+     *  they're cleared and built again in place when they're next
+     *  needed.
+     */
+    private RectangleIndex  bombIndex;
+    private RectangleIndex  hiddenIndex;
+    private RectangleIndex  flagIndex;
+    private boolean         bombsIndexed;
+    private boolean         hiddenIndexed;
+
+    /*
+     *  Where the bombs go and how many land in each tile, kept
+     *  from game to game like the cells.
+     */
+    private TileLayout  layout;
+    private int         tileCounts[];
+
+    /*
+     *  Lets tiles laid out in parallel or their bits into words
+     *  of a plane they share.
+     */
+    private static final VarHandle  planeBits   =
+                    MethodHandles.arrayElementVarHandle(long[].class);
+
+    /*
+     *  Reads and writes eight cells at once, the first cell in the
+     *  lowest byte.
+     */
+    private static final VarHandle  eightCells  =
+                    MethodHandles.byteArrayViewVarHandle(long[].class,
+                                            ByteOrder.LITTLE_ENDIAN);
+
+    /*
+     *  Spreads the eight bits of a byte into the low bit of each
+     *  of the eight bytes of a long, bit 0 into the lowest byte.
+     */
+    private static final long   spreadBits[]    = new long[256];
+
+    static {
+        int     i;
+
+        for (i = 0; (i < spreadBits.length); ++i) {
+            int     bit;
+
+            for (bit = 0; (bit < 8); ++bit) {
+                spreadBits[i] |= (long) ((i >>> bit) & 1) << (bit * 8);
+            }
+        }
+    }
+    private static final int    ADJACENT_MASK   = 0x0f;
+    private static final int    BOMB            = 0x10;
+    private static final int    EXPOSED         = 0x20;
+    private static final int    FLAGGED         = 0x40;
+    private static final int    MARKED          = 0x80;
+
+    /**
+     *  This will be the value returned by {@code getState()} for
+     *  an exposed bomb.  An exposed empty cell returns its number
+     *  of adjacent bombs, 0 through 8, instead.
+     */
+    public static final int     bombState       = 9;
+    /**
+     *  This will be the value returned by {@code getState()} for
+     *  any hidden cell that's not "flagged" or "marked".
+     */
+    public static final int     hiddenState     = 10;
+    /**
+     *  This will be the value returned by {@code getState()} for
+     *  any hidden cell that's been "flagged".
+     */
+    public static final int     flaggedState    = 11;
+    /**
+     *  This will be the value returned by {@code getState()} for
+     *  any hidden cell that's been "marked".
+     */
+    public static final int     markedState     = 12;
+    /**
+     *  This will be the value returned by {@code getState()} for
+     *  coordinates that are off the field.
+     */
+    public static final int     invalidState    = -1;
+
+    /*
+     *  What getType() returns for an exposed empty square, indexed
+     *  by its number of adjacent bombs, for every kind of field.
+     */
+    static final String         adjacentType[]  =
+        {"0", "1", "2", "3", "4", "5", "6", "7", "8"};
 
     /*
-     *  This is the mine field.
+     *  The same bomb, exposed, flagged and marked bits are also
+     *  kept as bit planes, one bit per square, so questions about
+     *  the whole field are a few word wide operations and a bit
+     *  count.  The planes are indexed the same way as cells and
+     *  the bits of the sentinels are never set.
      */
-    private final Cell  field[][];
+    private final long  bombPlane[];
+    private final long  exposedPlane[];
+    private final long  flaggedPlane[];
+    private final long  markedPlane[];
 
     /**
      *  Construct a mine field of the given size and with the
-     *  given number of bombs.
+     *  given number of bombs laid out from the given seed.
+     *  The same size, bomb count and seed always lay out the
+     *  same field.
      *  @param size number of cells on a side
      *  @param bombCount number of bombs to randomly place
      *  in the field
+     *  @param seed seed for laying out the bombs
      */
-    public Field(int size, int bombCount)
+    public Field(int size, int bombCount, long seed)
     {
-        int     maxCells;
-        int     row;
-        int     column;
-        Random  ourRandom;
+        this(size, bombCount, seed, Topology.square());
+    }
+
+    /**
+     *  Construct a mine field of the given size and topology and
+     *  with the given number of bombs laid out from the given
+     *  seed.  The bombs are laid out the same whatever the
+     *  topology, only the counts of adjacent bombs differ.
+     *  @param size number of cells on a side
+     *  @param bombCount number of bombs to randomly place
+     *  in the field
+     *  @param seed seed for laying out the bombs
+     *  @param topology which cells are next to each other
+     */
+    public Field(int size, int bombCount, long seed, Topology topology)
+    {
+        int     i;
 
         if (size <= 0) {
             /*
@@ -42,19 +244,83 @@ public class Field {
         }
         this.size = size;
 
+        /*
+         *  Create the mine field.
+         */
+        this.topology = topology;
+        table = topology.table(size);
+        stride = table.stride;
+        cells = new byte[stride * stride];
+        bombPlane = new long[(cells.length + 63) >>> 6];
+        exposedPlane = new long[bombPlane.length];
+        flaggedPlane = new long[bombPlane.length];
+        markedPlane = new long[bombPlane.length];
+
+        /*
+         *  Expose the sentinels on the border.
+         */
+        for (i = 0; (i < stride); ++i) {
+            if ((i < table.border) || (i >= (table.border + size))) {
+                Arrays.fill(cells, i * stride, (i + 1) * stride,
+                            (byte) EXPOSED);
+            } else {
+                Arrays.fill(cells, i * stride, (i * stride) + table.border,
+                            (byte) EXPOSED);
+                Arrays.fill(cells, (i * stride) + table.border + size,
+                            (i + 1) * stride, (byte) EXPOSED);
+            }
+        }
+        layOut(seed, bombCount);
+    }
+
+    /**
+     *  Start a new game on the same field, laying out the given
+     *  number of bombs from the given seed.  The field comes out
+     *  the same as a new one of its size and topology would, but
+     *  its cells, planes and labels are reused, so a loop that
+     *  plays game after game doesn't allocate anything that grows
+     *  with the size of the field.
+     *  @param seed seed for laying out the bombs
+     *  @param bombCount number of bombs to randomly place
+     *  in the field
+     */
+    public void reset(long seed, int bombCount)
+    {
+        int     i;
+
+        /*
+         *  Clear the squares, leaving the sentinels exposed.
+         */
+        for (i = 0; (i < size); ++i) {
+            Arrays.fill(cells, index(i, 0), index(i, 0) + size, (byte) 0);
+        }
+        Arrays.fill(bombPlane, 0);
+        Arrays.fill(exposedPlane, 0);
+        Arrays.fill(flaggedPlane, 0);
+        Arrays.fill(markedPlane, 0);
+        layOut(seed, bombCount);
+    }
+
+    /*
+     *  Lay out the given number of bombs from the given seed on a
+     *  clear field.
+     */
+    private void layOut(long seed, int bombCount)
+    {
+        int     maxCells;
+
         /*
          *  Figure out how many bombs we're going to lay out in
          *  the field.
          */
         maxCells = size * size;
-        hiddenCells = maxCells;
-        ourRandom = new Random();
         if (bombCount < 0) {
             /*
              *  Given a negative number of bombs, choose a
              *  pseudo random number.
              */
-            bombCount = ourRandom.nextInt((maxCells / 5) + 1) + 1;
+            bombCount = new SplittableRandom(seed).nextInt(
+                                                (maxCells / 5) + 1) + 1;
         } else if (bombCount > maxCells) {
             /*
              *  Given more bombs than can fit, make the field
@@ -62,921 +328,3195 @@ public class Field {
              */
             bombCount = maxCells;
         }
+        this.seed = seed;
         this.bombCount = bombCount;
+        hiddenCells = maxCells;
+        status = null;
+        revealed = false;
+        openings = null;
+        bombsIndexed = false;
+        hiddenIndexed = false;
+        firstClickMode = firstClick;
+        firstClickPending = (firstClickMode != firstClickAnywhere);
 
         /*
-         *  Create the mine field.
-         */
-        field = new Cell[size][size];
-
-        /*
-         *  Lay out the bombs.
+         *  Lay out the bombs a tile at a time.  TileLayout gives
+         *  each tile its share of the bombs and where they go from
+         *  the seed and the tile's coordinates alone, so the field
+         *  comes out the same whether the tiles are laid out on one
+         *  thread or many.  The openings wait for the first click
+         *  when it can still move bombs, unless they're counted
+         *  sooner.
          */
-        for (; (bombCount > 0); --bombCount) {
-            int         i;
-            int         j;
-            Cell        whichCell;
+        if (layout == null) {
+            layout = new TileLayout(size, size, bombCount, seed);
+            tileCounts = new int[(int) (layout.getTileRows() *
+                                        layout.getTileColumns())];
+        } else {
+            layout.reset(bombCount, seed);
+        }
+        layOutBombs();
+        if ((firstClickPending == false) &&
+            ((size * size) <= labelThreshold)) {
+            openings = labelOpenings();
+        }
+    }
 
-            /*
-             *  Randomly place a bomb in any of the total number
-             *  of cells.
-             */
-            i = ourRandom.nextInt(maxCells);
-            row = 0;
-            column = 0;
-            /*
-             *  Given that position, find a reasonable place for
-             *  the bomb.  A reasonable place is a place that's
-             *  null or has an Empty cell.  If the place isn't
-             *  reasonable, increment our position and keep looking.
-             */
-            for (j = maxCells; (j > 0); --j, i = ++i % maxCells) {
-                /*
-                 *  Translate the location into coordinates.
-                 */
-                row = i / size;
-                column = i % size;
+    /*
+     *  Label the openings of the field as it's laid out now.
+     */
+    private Openings    labelOpenings()
+    {
+        if (labels == null) {
+            labels = new Openings(cells.length);
+        }
+        labels.label(cells, table, BOMB | ADJACENT_MASK);
 
-                /*
-                 *  Let's see what's at the coordinates.
-                 */
-                whichCell = field[row][column];
-                if ((whichCell == null) ||
-                    (whichCell instanceof Empty)) {
-                    /*
-                     *  Either nothing is there or an Empty cell is
-                     *  there.  In ether case, we'll use this spot.
-                     */
-                    break;
-                }
+        return(labels);
+    }
 
-                /*
-                 *  Must be a bomb already at this location, let's
-                 *  iterate until we find a good spot.
-                 */
-            }
+    /*
+     *  Put the bombs of every tile in the field and then count the
+     *  bombs adjacent to every cell.  Big fields do both on the
+     *  common fork join pool.
+     */
+    private void layOutBombs()
+    {
+        TileTask    task;
 
-            placeBomb(this, row, column);
+        layout.bombsInTiles(tileCounts);
+        task = new TileTask(layout, tileCounts, 0, tileCounts.length, false,
+                            (size * size) >= parallelThreshold);
+        if (task.parallel == true) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.compute();
+        }
+        task = new TileTask(layout, tileCounts, 0, tileCounts.length, true,
+                            task.parallel);
+        if (task.parallel == true) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.compute();
         }
+    }
+
+    /*
+     *  Move the bombs out of the clicked cell, and out of its
+     *  neighbors too when the first click has to open an opening,
+     *  as long as there's room for them elsewhere.  TileLayout
+     *  chooses where they go, the same way for every kind of field,
+     *  so a field and its twins still match after the same first
+     *  click.  The counts are already laid out, so only the
+     *  neighbors of the bombs that move are counted again, and the
+     *  bombs are moved in the rectangle counts if they're built.
+     */
+    private void moveBombsFrom(int clicked)
+    {
+        long    clear[];
+        long    moves[];
+        int     squares;
+        int     i;
+        int     c;
 
         /*
-         *  We've placed all the bombs and Empty cells in each
-         *  bomb's adjacent cells.  Now, fill the rest of the
-         *  cells with Emptys.
+         *  Keep clear of the clicked cell and maybe its neighbors.
          */
-        for (row = 0; (row < field.length); ++row) {
-            for (column = 0; (column < field[row].length); ++column) {
-                if (field[row][column] != null) {
-                    /*
-                     *  Something's already here.
-                     */
-                    continue;
+        clear = new long[2 * (table.offset.length + 1)];
+        squares = 0;
+        clear[squares++] = (clicked / stride) - table.border;
+        clear[squares++] = (clicked % stride) - table.border;
+        if (firstClickMode == firstClickOpening) {
+            c = table.classOf(clicked);
+            for (i = table.start[c]; (i < table.start[c + 1]); ++i) {
+                int     next;
+
+                next = clicked + table.offset[i];
+                if ((cells[next] & EXPOSED) == 0) {
+                    clear[squares++] = (next / stride) - table.border;
+                    clear[squares++] = (next % stride) - table.border;
                 }
+            }
+        }
 
-                field[row][column] = new Empty();
+        moves = layout.moveBombs(clear, squares / 2);
+        for (i = 0; (i < moves.length); i += 4) {
+            int     from;
+            int     to;
+
+            from = index((int) moves[i], (int) moves[i + 1]);
+            to = index((int) moves[i + 2], (int) moves[i + 3]);
+            cells[from] &= ~BOMB;
+            bombPlane[from >>> 6] &= ~(1L << from);
+            countNeighbors(from, -1);
+            cells[to] |= BOMB;
+            bombPlane[to >>> 6] |= 1L << to;
+            countNeighbors(to, 1);
+            if (bombsIndexed == true) {
+                bombIndex.add((int) moves[i], (int) moves[i + 1], -1);
+                bombIndex.add((int) moves[i + 2], (int) moves[i + 3], 1);
             }
         }
+        openings = null;
     }
 
     /*
-     *  Place a bomb at the given row and column in the given field.
+     *  Add to the count of each neighbor of the cell at the given
+     *  index.  The sentinels are left alone, since they were never
+     *  counted and taking one from them would borrow from their
+     *  state bits.
      */
-    private void placeBomb(Field instance, int row, int column)
+    private void countNeighbors(int index, int delta)
     {
         int     i;
+        int     c;
 
-        /*
-         *  Let's put the bomb.
-         */
-        instance.field[row][column] = new Bomb();
-
-        /*
-         *  We have to count this bomb in all the adjacent cells.
-         *  Visit the row before and after this bomb.
-         */
-        for (i = row - 1; (i <= row + 1); ++i) {
-            int         j;
+        c = table.classOf(index);
+        for (i = table.start[c]; (i < table.start[c + 1]); ++i) {
+            int     next;
 
-            if ((i < 0) || (i >= instance.size)) {
-                /*
-                 *  We're off the edge.
-                 */
-                continue;
+            next = index + table.offset[i];
+            if ((cells[next] & EXPOSED) == 0) {
+                cells[next] += delta;
             }
+        }
+    }
 
-            /*
-             *  Visit the column before and after this bomb.
-             */
-            for (j = column - 1; (j <= column + 1); ++j) {
-                Cell    whichCell;
+    /*
+     *  Count the bits of a plane from one index up to, but not
+     *  including, another.
+     */
+    private static int
+    countRange(long plane[], int from, int to)
+    {
+        int     count;
+        int     word;
 
-                if ((j < 0) || (j >= instance.size)) {
-                    /*
-                     *  We're off the edge.
-                     */
-                    continue;
-                }
+        if (from >= to) {
+            return(0);
+        }
 
-                /*
-                 *  Check this cell adjacent to the new bomb.
-                 */
-                whichCell = instance.field[i][j];
-                if (whichCell == null) {
-                    /*
-                     *  Nothing there.  Put an Empty cell there.
-                     */
-                    whichCell = new Empty();
-                    instance.field[i][j] = whichCell;
-                }
+        if ((from >>> 6) == ((to - 1) >>> 6)) {
+            return(Long.bitCount((plane[from >>> 6] >>> from) &
+                                 (-1L >>> (64 - (to - from)))));
+        }
 
-                /*
-                 *  Increment the number of bombs adjacent to
-                 *  this cell.
-                 */
-                whichCell.incrementAdjacentBombs();
-            }
+        count = Long.bitCount(plane[from >>> 6] >>> from);
+        for (word = (from >>> 6) + 1; (word < ((to - 1) >>> 6)); ++word) {
+            count += Long.bitCount(plane[word]);
         }
-    }
+        count += Long.bitCount(plane[(to - 1) >>> 6] &
+                               (-1L >>> (63 - ((to - 1) & 63))));
 
-    /**
-     *  Construct a mine field with the default size and
-     *  number of bombs.
-     */
-    public      Field()
-    {
-        this(defaultSize, defaultBombCount);
+        return(count);
     }
 
-    /**
-     *  Return the size of the mine field.
-     *  @return Size of mine field.
+    /*
+     *  Lays out or counts a range of tiles, splitting the range
+     *  across the fork join pool when running in parallel.  All
+     *  the tiles are laid out before any are counted, so a tile
+     *  can read the bombs in the one square wide halo around it
+     *  that belongs to its neighbors.
      */
-    public int  getSize()
-    {
-        return(size);
-    }
+    private class TileTask extends RecursiveAction {
+        private static final long   serialVersionUID    = 1L;
 
-    /**
-     *  Get the type of a specific cell.
-     *  @param row The row of the cell whose type to get.
-     *  @param column The column of the cell whose type to get.
-     *  @return The type of the given cell.
-     */
-    public String       getType(int row, int column)
-    {
         /*
-         *  Validate the given coordinates.
+         *  The most pieces the tiles are split into, whatever the
+         *  size of the field, so a big field doesn't allocate a
+         *  task and a tile of bits for every few tiles.
          */
-        if ((row < 0) || (row >= field.length)) {
-            return(null);
-        }
-        if ((column < 0) || (column >= field[row].length)) {
-            return(null);
+        private static final int    pieces  =
+                        8 * ForkJoinPool.getCommonPoolParallelism();
+
+        private final TileLayout    layout;
+        private final int           counts[];
+        private final int           from;
+        private final int           to;
+        private final boolean       counting;
+        private final boolean       parallel;
+
+        TileTask(TileLayout layout, int counts[], int from, int to,
+                 boolean counting, boolean parallel)
+        {
+            this.layout = layout;
+            this.counts = counts;
+            this.from = from;
+            this.to = to;
+            this.counting = counting;
+            this.parallel = parallel;
         }
 
-        return(field[row][column].getType());
+        protected void compute()
+        {
+            int         tile;
+            long        bits[];
+            SplitMix    random;
+
+            if ((parallel == true) &&
+                ((to - from) > Math.max(4, counts.length / pieces))) {
+                int     middle;
+
+                middle = (from + to) >>> 1;
+                invokeAll(new TileTask(layout, counts, from, middle,
+                                       counting, true),
+                          new TileTask(layout, counts, middle, to,
+                                       counting, true));
+                return;
+            }
+
+            bits = new long[TileLayout.tileSize];
+            random = new SplitMix(seed);
+            for (tile = from; (tile < to); ++tile) {
+                int     tileRow;
+                int     tileColumn;
+
+                tileRow = (int) (tile / layout.getTileColumns());
+                tileColumn = (int) (tile % layout.getTileColumns());
+                if (counting == true) {
+                    countTile(layout, tileRow, tileColumn);
+                } else {
+                    layout.layOutTile(tileRow, tileColumn, counts[tile],
+                                      bits, random);
+                    placeTile(layout, tileRow, tileColumn, bits);
+                }
+            }
+        }
     }
 
-	/**
-     *  @return default size of field
+    /*
+     *  Put the bombs of one tile into cells and the bomb plane.
+     *  Tiles can share words of the plane, so the bits are or'ed
+     *  in atomically.
      */
-	public static int getDefaultSize()
-	{
-		return defaultSize;
-	}
+    private void
+    placeTile(TileLayout layout, int tileRow, int tileColumn, long bits[])
+    {
+        int     firstRow;
+        int     firstColumn;
+        int     row;
 
-	/**
-	 *  @return default bomb count
-     */
-	public static int getDefaultBombCount()
-	{
-		return defaultBombCount;
-	}
+        firstRow = tileRow << TileLayout.tileShift;
+        firstColumn = tileColumn << TileLayout.tileShift;
+        for (row = 0; (row < layout.rowsInTile(tileRow)); ++row) {
+            int     first;
+            long    word;
 
-	/**
-	 *  @param newSize given size of field
-     */
-	public static void setDefaultSize(int newSize)
-	{
-		defaultSize = newSize;
-	}
+            word = bits[row];
+            if (word == 0) {
+                continue;
+            }
 
-	/**
-	 *  @param newBombCount given bomb count for field
-     */
-	public static void setDefaultBombCount(int newBombCount)
-	{
-		defaultBombCount = newBombCount;
-	}
+            first = index(firstRow + row, firstColumn);
+            planeBits.getAndBitwiseOr(bombPlane, first >>> 6,
+                                      word << first);
+            if (((first & 63) != 0) && ((word >>> -first) != 0)) {
+                planeBits.getAndBitwiseOr(bombPlane, (first >>> 6) + 1,
+                                          word >>> -first);
+            }
 
-    /**
-     *  Expose all {@code Cell}s in the {@code Field}.
-     *  Usually used when they win or step on a bomb.
-     */
-    public void exposeAll()
-    {
-        for (Cell row[] : field) {
-            for (Cell thisCell : row) {
-                thisCell.expose();
+            for (; (word != 0); word &= word - 1) {
+                cells[first + Long.numberOfTrailingZeros(word)] |= BOMB;
             }
         }
     }
 
     /*
-     *  When they expose a cell with no adjacent bombs, expose
-     *  all the adjacent empties.
-     *  Beware, this is recursive.
+     *  Count the bombs adjacent to each cell of one tile.  Each
+     *  row of the tile is one word of the bomb plane, so the rows
+     *  above, at and below it are shifted left and right to line
+     *  up the eight neighbors of every cell, and those eight words
+     *  are added with a carry save adder.  That leaves the count of
+     *  every cell in the row as four bit planes, with no branches
+     *  and no dependence on how many bombs there are.
      */
-    private void
-    exposeAdjacentEmpties(int row, int column)
+    private void countTile(TileLayout layout, int tileRow, int tileColumn)
     {
-        int     i;
-        int     j;
-        Cell    thisCell;
+        int     firstRow;
+        int     firstColumn;
+        int     width;
+        int     row;
 
-        /*
-         *  Validate the given coordinates.
-         */
-        if ((row < 0) || (row >= field.length)) {
-            return;
-        }
-        if ((column < 0) || (column >= field[row].length)) {
+        if (topology.isSquare() == false) {
+            countTileByTable(layout, tileRow, tileColumn);
             return;
         }
 
-        thisCell = field[row][column];
-        if (thisCell.getExposed() == true) {
+        firstRow = tileRow << TileLayout.tileShift;
+        firstColumn = tileColumn << TileLayout.tileShift;
+        width = layout.columnsInTile(tileColumn);
+        for (row = 0; (row < layout.rowsInTile(tileRow)); ++row) {
+            int     index;
+            int     column;
+            long    above;
+            long    aboveLeft;
+            long    aboveRight;
+            long    left;
+            long    right;
+            long    below;
+            long    belowLeft;
+            long    belowRight;
+            long    sum1;
+            long    carry1;
+            long    sum2;
+            long    carry2;
+            long    sum3;
+            long    carry3;
+            long    twos;
+            long    fours;
+            long    ones;
+            long    count1;
+            long    count2;
+            long    count4;
+            long    count8;
+
+            index = index(firstRow + row, firstColumn);
+
             /*
-             *  The cell's already exposed.
+             *  Line up each neighbor with the cell it's next to.
+             *  The sentinels on the edges have no bombs.
              */
-            return;
-        }
+            above = bombWindow(index - stride);
+            aboveLeft = (above << 1) | bombBit(index - stride - 1);
+            aboveRight = (above >>> 1) | (bombBit(index - stride + 64) << 63);
+            left = bombWindow(index);
+            right = (left >>> 1) | (bombBit(index + 64) << 63);
+            left = (left << 1) | bombBit(index - 1);
+            below = bombWindow(index + stride);
+            belowLeft = (below << 1) | bombBit(index + stride - 1);
+            belowRight = (below >>> 1) | (bombBit(index + stride + 64) << 63);
+            if ((aboveLeft | above | aboveRight | left | right |
+                 belowLeft | below | belowRight) == 0) {
+                /*
+                 *  No bombs near this row, and the cells start out
+                 *  with no count.
+                 */
+                continue;
+            }
 
-        thisCell.expose();
-        --hiddenCells;
-        if (thisCell.getAdjacentBombs() != 0) {
             /*
-             *  This cell has adjacent bombs.
+             *  Add the eight neighbor words, 64 cells at a time.
              */
-            return;
-        }
+            sum1 = above ^ aboveLeft ^ aboveRight;
+            carry1 = (above & aboveLeft) | (aboveRight & (above ^ aboveLeft));
+            sum2 = below ^ belowLeft ^ belowRight;
+            carry2 = (below & belowLeft) | (belowRight & (below ^ belowLeft));
+            sum3 = left ^ right;
+            carry3 = left & right;
+            count1 = sum1 ^ sum2 ^ sum3;
+            twos = (sum1 & sum2) | (sum3 & (sum1 ^ sum2));
+            fours = (carry1 & carry2) | (carry3 & (carry1 ^ carry2));
+            sum1 = carry1 ^ carry2 ^ carry3;
+            count2 = sum1 ^ twos;
+            carry1 = sum1 & twos;
+            count4 = fours ^ carry1;
+            count8 = fours & carry1;
 
-        /*
-         *  This cell was not exposed and doesn't have any bombs
-         *  adjacent to it.  So, recursively expose adjacent empties
-         *  around this cell.
-         */
-        for (i = row - 1; (i <= row + 1); ++i) {
-            for (j = column - 1; (j <= column + 1); ++j) {
-                exposeAdjacentEmpties(i, j);
+            /*
+             *  Store the count of each cell, eight cells at a time
+             *  while there are eight left in the tile.
+             */
+            for (column = 0; ((column + 8) <= width); column += 8) {
+                long    adjacent;
+
+                adjacent = spreadBits[(int) (count1 >>> column) & 0xff] |
+                           (spreadBits[(int) (count2 >>> column) & 0xff]
+                                                                << 1) |
+                           (spreadBits[(int) (count4 >>> column) & 0xff]
+                                                                << 2) |
+                           (spreadBits[(int) (count8 >>> column) & 0xff]
+                                                                << 3);
+                eightCells.set(cells, index + column,
+                               ((long) eightCells.get(cells, index + column) &
+                                ~(ADJACENT_MASK * 0x0101010101010101L)) |
+                               adjacent);
+            }
+            for (; (column < width); ++column) {
+                int     adjacent;
+
+                adjacent = (int) (((count1 >>> column) & 1) |
+                                  (((count2 >>> column) & 1) << 1) |
+                                  (((count4 >>> column) & 1) << 2) |
+                                  (((count8 >>> column) & 1) << 3));
+                cells[index + column] =
+                        (byte) ((cells[index + column] & ~ADJACENT_MASK) |
+                                adjacent);
             }
         }
     }
 
-    /**
-     *  Expose a specific cell.
-     *  @param row The row of the cell to expose.
-     *  @param column The column of the cell to expose.
-     *  @return Is the game finished.
+    /*
+     *  Count the bombs adjacent to each cell of one tile by adding
+     *  up the bomb bits of the neighbors the table gives, for the
+     *  topologies the carry save adder doesn't fit.  Each cell only
+     *  writes its own count, so tiles can be counted in parallel.
      */
-    public boolean      expose(int row, int column)
+    private void
+    countTileByTable(TileLayout layout, int tileRow, int tileColumn)
     {
-        Cell    thisCell;
+        int     firstRow;
+        int     firstColumn;
+        int     width;
+        int     row;
 
-        /*
-         *  Validate the given coordinates.
-         */
-        if ((row < 0) || (row >= field.length)) {
-            return(false);
-        }
-        if ((column < 0) || (column >= field[row].length)) {
-            return(false);
-        }
+        firstRow = tileRow << TileLayout.tileShift;
+        firstColumn = tileColumn << TileLayout.tileShift;
+        width = layout.columnsInTile(tileColumn);
+        for (row = 0; (row < layout.rowsInTile(tileRow)); ++row) {
+            int     index;
+            int     end;
 
-        thisCell = field[row][column];
-        if (thisCell.getAdjacentBombs() == 0) {
-            /*
-             *  This cell has no adjacent bombs.
-             */
-            exposeAdjacentEmpties(row, column);
-        } else if (thisCell.getExposed() == false) {
-            /*
-             *  This cell is not exposed, yet.
-             */
-            thisCell.expose();
-            --hiddenCells;
-        }
+            index = index(firstRow + row, firstColumn);
+            for (end = index + width; (index < end); ++index) {
+                int     c;
+                int     i;
+                int     adjacent;
 
-        if (thisCell.getType().charAt(0) == Bomb.myType.charAt(0)) {
-            /*
-             *  A bomb was exposed.
-             *  Game over.
-             */
-            status = "Boom!";
-            return(true);
+                c = table.classOf(index);
+                adjacent = 0;
+                for (i = table.start[c]; (i < table.start[c + 1]); ++i) {
+                    adjacent += (cells[index + table.offset[i]] & BOMB) >>> 4;
+                }
+                cells[index] = (byte) ((cells[index] & ~ADJACENT_MASK) |
+                                       adjacent);
+            }
         }
+    }
 
-        if (hiddenCells == bombCount) {
-            /*
-             *  All the empty cells have been exposed.
-             *  Game over.
-             */
-            status = "Winner!";
-            return(true);
+    /*
+     *  Return the 64 bits of the bomb plane starting at the given
+     *  index.  The index doesn't have to start a word.
+     */
+    private long        bombWindow(int index)
+    {
+        int     word;
+        long    bits;
+
+        word = index >>> 6;
+        bits = bombPlane[word] >>> index;
+        if (((index & 63) != 0) && ((word + 1) < bombPlane.length)) {
+            bits |= bombPlane[word + 1] << -index;
         }
 
-        return(false);
+        return(bits);
     }
 
-    /**
-     *  Flag a specific cell.
-     *  @param row The row of the cell to flag.
-     *  @param column The column of the cell to flag.
+    /*
+     *  Return the bit of the bomb plane at the given index, or 0
+     *  past the end of the plane.
      */
-    public void flag(int row, int column)
+    private long        bombBit(int index)
     {
-        /*
-         *  Validate the given coordinates.
-         */
-        if ((row < 0) || (row >= field.length)) {
-            return;
-        }
-        if ((column < 0) || (column >= field[row].length)) {
-            return;
+        if ((index >>> 6) >= bombPlane.length) {
+            return(0);
         }
 
-        field[row][column].flag();
+        return((bombPlane[index >>> 6] >>> index) & 1);
     }
 
-    /**
-     *  Mark a specific cell.
-     *  @param row The row of the cell to mark.
-     *  @param column The column of the cell to mark.
+    /*
+     *  Place a bomb at the given row and column in the given field.
      */
-    public void mark(int row, int column)
+    private void placeBomb(Field instance, int row, int column)
     {
+        int     index;
+        int     i;
+        int     c;
+
         /*
-         *  Validate the given coordinates.
+         *  Let's put the bomb.
          */
-        if ((row < 0) || (row >= field.length)) {
-            return;
-        }
-        if ((column < 0) || (column >= field[row].length)) {
-            return;
+        index = instance.index(row, column);
+        instance.cells[index] |= BOMB;
+        instance.bombPlane[index >>> 6] |= 1L << index;
+        instance.openings = null;
+        instance.bombsIndexed = false;
+
+        /*
+         *  We have to count this bomb in all the adjacent cells.
+         *  The sentinels mean we can't fall off the edge.
+         *  A cell never has more than 8 neighbors so this can't
+         *  carry into the state bits.
+         */
+        c = instance.table.classOf(index);
+        for (i = instance.table.start[c];
+             (i < instance.table.start[c + 1]); ++i) {
+            ++instance.cells[index + instance.table.offset[i]];
         }
+    }
 
-        field[row][column].mark();
+    /*
+     *  Translate a row and column on the field into the index of
+     *  its square in cells and the bit planes.
+     */
+    private int index(int row, int column)
+    {
+        return(table.index(row, column));
     }
 
     /**
-     *  Clear a specific cell's mark.
-     *  @param row The row of the cell to clear.
-     *  @param column The column of the cell to clear.
+     *  Construct a mine field of the given size and with the
+     *  given number of bombs laid out from a random seed.
+     *  @param size number of cells on a side
+     *  @param bombCount number of bombs to randomly place
+     *  in the field
      */
-    public void clearMark(int row, int column)
+    public Field(int size, int bombCount)
     {
-        /*
-         *  Validate the given coordinates.
-         */
-        if ((row < 0) || (row >= field.length)) {
-            return;
-        }
-        if ((column < 0) || (column >= field[row].length)) {
-            return;
-        }
+        this(size, bombCount, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     *  Construct a mine field with the default size and
+     *  number of bombs.
+     */
+    public      Field()
+    {
+        this(defaultSize, defaultBombCount);
+    }
 
-        field[row][column].clearMark();
+    /**
+     *  Return the seed the bombs were laid out from.
+     *  Giving it back to the constructor with the same size and
+     *  bomb count lays out the same field.
+     *  @return The seed of the mine field.
+     */
+    public long getSeed()
+    {
+        return(seed);
     }
 
     /**
-     *  Return the status of the game.
-     *  null unless the game's over.
-     *  @return The status of the game.
+     *  Return the size of the mine field.
+     *  @return Size of mine field.
      */
-    public String       getStatus()
+    public int  getSize()
     {
-        return(status);
+        return(size);
     }
 
     /**
-     *  @return {@code String} representation of object
+     *  Return which cells of the field are next to each other.
+     *  @return The topology of the mine field.
      */
-    public String toString()
+    public Topology     getTopology()
     {
-        return(getClass().getName() +
-               "[size=" + size +
-               ",bombCount=" + bombCount + "]");
+        return(topology);
     }
 
-    /*
-     *  Helper method to find information in toString() return value.
+    /**
+     *  Get the state of a specific cell without building a
+     *  {@code String}.
+     *  An exposed empty cell returns its number of adjacent bombs;
+     *  anything else returns {@code bombState}, {@code hiddenState},
+     *  {@code flaggedState} or {@code markedState}.
+     *  @param row The row of the cell whose state to get.
+     *  @param column The column of the cell whose state to get.
+     *  @return The state of the given cell or {@code invalidState}
+     *  when the coordinates are off the field.
      */
-    private static String[]     findVariableInToString(String toString,
-                                                       String value)
+    public int  getState(int row, int column)
     {
-        int     toStringLength;
-        int     valueLength;
-        int     foundAt;
-        int     occurances;
-        String  returnValue[];
+        int     cell;
 
-        occurances = 0;
-        returnValue = new String[8];
+        /*
+         *  Validate the given coordinates.
+         */
+        if ((row < 0) || (row >= size)) {
+            return(invalidState);
+        }
+        if ((column < 0) || (column >= size)) {
+            return(invalidState);
+        }
 
-        toStringLength = toString.length();
-        valueLength = value.length();
-        for (foundAt = 0;
-             (((foundAt = toString.indexOf(value, foundAt)) > 0) &&
-              (occurances < returnValue.length));
-             foundAt += valueLength) {
-            if ((foundAt + valueLength) >= toStringLength) {
-                /*
-                 *  Not going past the end of toString.
-                 */
-                break;
-            }
+        cell = cells[index(row, column)];
+        if ((revealed == true) || ((cell & EXPOSED) != 0)) {
+            return(((cell & BOMB) != 0) ?
+                            bombState : (cell & ADJACENT_MASK));
+        }
 
-            if (Character.isLetterOrDigit(toString.charAt(foundAt +
-                                                          valueLength))
-                                    == false) {
-                int     j;
+        if ((cell & FLAGGED) != 0) {
+            return(flaggedState);
+        }
+        if ((cell & MARKED) != 0) {
+            return(markedState);
+        }
 
-                /*
-                 *  The character following value isn't a letter or
-                 *  digit.  This is a candidate.
-                 */
-                for (j = foundAt - 1; (j >= 0); --j) {
-                    char    thisChar;
+        return(hiddenState);
+    }
 
-                    thisChar = toString.charAt(j);
-                    if (Character.isJavaIdentifierPart(thisChar) ==
-                            false) {
-                        for (++j; (j < foundAt); ++j) {
-                            thisChar = toString.charAt(j);
-                            if (Character.
-                                    isJavaIdentifierStart(thisChar) ==
-                                        true) {
-                                break;
-                            }
-                        }
-                        break;
-                    }
-                }
+	/**
+     *  @return default size of field
+     */
+	public static int getDefaultSize()
+	{
+		return defaultSize;
+	}
 
-                returnValue[occurances] =
-                                toString.substring(j, foundAt);
-                ++occurances;
-            }
-        }
+	/**
+	 *  @return default bomb count
+     */
+	public static int getDefaultBombCount()
+	{
+		return defaultBombCount;
+	}
 
-        return((occurances > 0) ? returnValue : null);
+	/**
+	 *  @param newSize given size of field
+     */
+	public static void setDefaultSize(int newSize)
+	{
+		defaultSize = newSize;
+	}
+
+	/**
+	 *  @param newBombCount given bomb count for field
+     */
+	public static void setDefaultBombCount(int newBombCount)
+	{
+		defaultBombCount = newBombCount;
+	}
+
+    /**
+     *  Return the number of cells at which fields start being laid
+     *  out in parallel.
+     *  @return the number of cells
+     */
+    public static int   getParallelThreshold()
+    {
+        return(parallelThreshold);
     }
 
-    /*
-     *  Test a given mine field.
+    /**
+     *  Set the number of cells at which fields start being laid
+     *  out in parallel.  The layout for a given seed is the same
+     *  either way.
+     *  @param newThreshold the number of cells
      */
-    private static int
-    testFieldLayout(int givenSize, int givenBombCount)
+    public static void  setParallelThreshold(int newThreshold)
     {
-        int     row;
-        int     column;
-        int     size;
-        int     bombCount;
-        int     errorCount;
-        char    bombType;
-        Field   fieldToTest;
-        String  toString;
-        String  variableName[];
-        char    charInField[][];
+        parallelThreshold = newThreshold;
+    }
 
+    /**
+     *  Return the number of cells an opening has to expose before
+     *  the rest of it is exposed in parallel.
+     *  @return the number of cells
+     */
+    public static int   getParallelFillThreshold()
+    {
+        return(parallelFillThreshold);
+    }
+
+    /**
+     *  Set the number of cells an opening has to expose before
+     *  the rest of it is exposed in parallel.  Smaller openings
+     *  are exposed on the calling thread.
+     *  @param newThreshold the number of cells
+     */
+    public static void  setParallelFillThreshold(int newThreshold)
+    {
+        parallelFillThreshold = newThreshold;
+    }
+
+    /**
+     *  Return the number of cells at or below which a field's
+     *  openings are labeled when it's laid out.
+     *  @return the number of cells
+     */
+    public static int   getLabelThreshold()
+    {
+        return(labelThreshold);
+    }
+
+    /**
+     *  Set the number of cells at or below which a field's
+     *  openings are labeled when it's laid out.  The openings of
+     *  bigger fields are flood filled as they're exposed, which
+     *  saves the memory for the labels.
+     *  @param newThreshold the number of cells
+     */
+    public static void  setLabelThreshold(int newThreshold)
+    {
+        labelThreshold = newThreshold;
+    }
+
+    /**
+     *  Return where the first cell exposed in new fields may be.
+     *  @return {@code firstClickAnywhere}, {@code firstClickSafe}
+     *  or {@code firstClickOpening}
+     */
+    public static int   getFirstClick()
+    {
+        return(firstClick);
+    }
+
+    /**
+     *  Set where the first cell exposed in new fields may be.
+     *  Unless it's {@code firstClickAnywhere}, a field still lays
+     *  out all its bombs when it's made, and the first cell exposed
+     *  then moves the few in its way elsewhere, up to nine of them.
+     *  Until then the counts of bombs, wrong flags and openings are
+     *  for the bombs as they're laid out.  A field takes the
+     *  setting when it's laid out, so changing it doesn't change
+     *  fields already made.
+     *  @param newFirstClick {@code firstClickAnywhere},
+     *  {@code firstClickSafe} or {@code firstClickOpening}
+     */
+    public static void  setFirstClick(int newFirstClick)
+    {
+        firstClick = newFirstClick;
+    }
+
+    /**
+     *  Expose all {@code Cell}s in the {@code Field}.
+     *  Usually used when they win or step on a bomb.
+     *  The cells aren't touched, the field just answers as if
+     *  they were all exposed from now on, so this takes the same
+     *  time however big the field is and calling it again does
+     *  nothing.
+     */
+    public void exposeAll()
+    {
+        firstClickPending = false;
+        revealed = true;
+    }
+
+    /*
+     *  Expose the cell at the given index and count it as no
+     *  longer hidden.
+     */
+    private void exposeCell(int index)
+    {
+        cells[index] |= EXPOSED;
+        exposedPlane[index >>> 6] |= 1L << index;
+        --hiddenCells;
+        if ((changed != null) && (changedCount >= 0)) {
+            if (((changedCount + 1) * 2) > changed.length) {
+                changedCount = -1;
+            } else {
+                changed[changedCount * 2] = (index / stride) - table.border;
+                changed[(changedCount * 2) + 1] =
+                                        (index % stride) - table.border;
+                ++changedCount;
+            }
+        }
+        if (hiddenIndexed == true) {
+            indexExposed(index);
+        }
+    }
+
+    /*
+     *  Take a newly exposed cell out of the rectangle counts of
+     *  hidden and flagged cells.
+     */
+    private void indexExposed(int index)
+    {
+        hiddenIndex.add((index / stride) - table.border,
+                        (index % stride) - table.border, -1);
+        if ((cells[index] & FLAGGED) != 0) {
+            flagIndex.add((index / stride) - table.border,
+                          (index % stride) - table.border, -1);
+        }
+    }
+
+    /*
+     *  Change the flagged and marked bits of a cell, keeping the
+     *  planes and the count of flags in rectangles up to date.
+     */
+    private void changeMarks(int index, int marks)
+    {
+        int     before;
+
+        before = cells[index] & (FLAGGED | EXPOSED);
+        cells[index] = (byte) ((cells[index] & ~(FLAGGED | MARKED)) | marks);
+        if ((marks & FLAGGED) != 0) {
+            flaggedPlane[index >>> 6] |= 1L << index;
+        } else {
+            flaggedPlane[index >>> 6] &= ~(1L << index);
+        }
+        if ((marks & MARKED) != 0) {
+            markedPlane[index >>> 6] |= 1L << index;
+        } else {
+            markedPlane[index >>> 6] &= ~(1L << index);
+        }
+
+        if ((hiddenIndexed == true) && ((before & EXPOSED) == 0) &&
+            (before != (marks & FLAGGED))) {
+            flagIndex.add((index / stride) - table.border,
+                          (index % stride) - table.border,
+                          (before == 0) ? 1 : -1);
+        }
+    }
+
+    /*
+     *  Expose every cell of the given opening that isn't exposed
+     *  yet.  A numbered cell can border more than one opening, so
+     *  it may already be exposed.
+     */
+    private void        exposeOpening(int opening)
+    {
+        int     i;
+        int     end;
+
+        end = openings.end(opening);
+        for (i = openings.start(opening); (i < end); ++i) {
+            int     index;
+
+            index = openings.cell(i);
+            if ((cells[index] & EXPOSED) == 0) {
+                exposeCell(index);
+            }
+        }
+    }
+
+    /*
+     *  When they expose a cell with no adjacent bombs, expose
+     *  all the adjacent empties.  Each cell is exposed when it's
+     *  first reached and only cells with no adjacent bombs go on
+     *  the stack, so every cell is visited once no matter how big
+     *  the opening is.
+     */
+    private void
+    exposeAdjacentEmpties(int index)
+    {
+        int     top;
+        int     filled;
+
+        if ((cells[index] & EXPOSED) != 0) {
+            /*
+             *  The cell's already exposed or it's a sentinel.
+             */
+            return;
+        }
+
+        /*
+         *  The labels may be gone because a bomb was placed by hand
+         *  since the field was labeled.
+         */
+        if ((isLabeled() == true) && (openings.openingOf(index) >= 0)) {
+            exposeOpening(openings.openingOf(index));
+            return;
+        }
+
+        exposeCell(index);
+        if ((cells[index] & ADJACENT_MASK) != 0) {
+            /*
+             *  This cell has adjacent bombs.
+             */
+            return;
+        }
+
+        /*
+         *  This cell doesn't have any bombs adjacent to it.  So,
+         *  expose the cells around it, and around each of those
+         *  that doesn't have any bombs adjacent to it, and so on.
+         *  Once the opening proves to be big, hand what's left of
+         *  it to the fork join pool.
+         */
+        top = 0;
+        filled = 1;
+        fillStack[top++] = index;
+        while (top > 0) {
+            int     i;
+            int     c;
+
+            if (filled >= parallelFillThreshold) {
+                FillTask    fill;
+
+                /*
+                 *  The workers don't say which cells they exposed.
+                 *  When there are rectangle counts they keep a list
+                 *  of them, and the counts are brought up to date
+                 *  from it once they're done.
+                 */
+                changedCount = -1;
+                fill = new FillTask(Arrays.copyOf(fillStack, top),
+                                    hiddenIndexed);
+                hiddenCells -= ForkJoinPool.commonPool().invoke(fill);
+                if (hiddenIndexed == true) {
+                    indexExposed(fill);
+                }
+                return;
+            }
+
+            index = fillStack[--top];
+            c = table.classOf(index);
+            for (i = table.start[c]; (i < table.start[c + 1]); ++i) {
+                int     next;
+
+                next = index + table.offset[i];
+                if ((cells[next] & EXPOSED) != 0) {
+                    /*
+                     *  Already exposed or a sentinel.
+                     */
+                    continue;
+                }
+
+                exposeCell(next);
+                ++filled;
+                if ((cells[next] & ADJACENT_MASK) != 0) {
+                    continue;
+                }
+
+                if (top == fillStack.length) {
+                    fillStack = Arrays.copyOf(fillStack, top * 2);
+                }
+                fillStack[top++] = next;
+            }
+        }
+    }
+
+    /*
+     *  Exposes part of an opening, starting from exposed cells with
+     *  no adjacent bombs, and returns how many cells it exposed.
+     *  Workers claim a cell by atomically setting its bit in the
+     *  exposed plane, so each cell is exposed by exactly one of
+     *  them.  When a worker's stack gets deep, half of it is forked
+     *  off for another worker to steal.
+     */
+    private class FillTask extends RecursiveTask<Integer> {
+        private static final long   serialVersionUID    = 1L;
+
+        private int     stack[];
+        private int     top;
+        /*
+         *  The cells this worker exposed, when they're wanted, and
+         *  the workers it forked off.
+         */
+        private int     exposedCells[];
+        private int     exposedCount;
+        private final List<FillTask>    forked  = new ArrayList<FillTask>();
+
+        FillTask(int stack[], boolean listing)
+        {
+            this.stack = stack;
+            this.top = stack.length;
+            if (listing == true) {
+                exposedCells = new int[64];
+            }
+        }
+
+        protected Integer compute()
+        {
+            int             exposed;
+
+            exposed = 0;
+            while (top > 0) {
+                int     index;
+                int     i;
+                int     c;
+
+                if (top >= 1024) {
+                    FillTask    half;
+
+                    half = new FillTask(Arrays.copyOf(stack, top / 2),
+                                        (exposedCells != null));
+                    System.arraycopy(stack, top / 2, stack, 0,
+                                     top - (top / 2));
+                    top -= top / 2;
+                    half.fork();
+                    forked.add(half);
+                }
+
+                index = stack[--top];
+                c = table.classOf(index);
+                for (i = table.start[c]; (i < table.start[c + 1]); ++i) {
+                    int     next;
+                    long    bit;
+
+                    next = index + table.offset[i];
+                    if ((cells[next] & EXPOSED) != 0) {
+                        /*
+                         *  Already exposed or a sentinel.
+                         */
+                        continue;
+                    }
+
+                    bit = 1L << next;
+                    if (((long) planeBits.getAndBitwiseOr(exposedPlane,
+                                                          next >>> 6, bit) &
+                                                                bit) != 0) {
+                        /*
+                         *  Another worker got here first.
+                         */
+                        continue;
+                    }
+
+                    cells[next] |= EXPOSED;
+                    ++exposed;
+                    if (exposedCells != null) {
+                        if (exposedCount == exposedCells.length) {
+                            exposedCells = Arrays.copyOf(exposedCells,
+                                                         exposedCount * 2);
+                        }
+                        exposedCells[exposedCount++] = next;
+                    }
+                    if ((cells[next] & ADJACENT_MASK) != 0) {
+                        continue;
+                    }
+
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = next;
+                }
+            }
+
+            for (FillTask half : forked) {
+                exposed += half.join();
+            }
+
+            return(exposed);
+        }
+    }
+
+    /*
+     *  Take the cells a parallel fill exposed out of the rectangle
+     *  counts, from the lists its workers kept.
+     */
+    private void        indexExposed(FillTask fill)
+    {
+        Deque<FillTask>     tasks;
+
+        tasks = new ArrayDeque<FillTask>();
+        tasks.push(fill);
+        while (tasks.isEmpty() == false) {
+            FillTask    task;
+            int         i;
+
+            task = tasks.pop();
+            for (i = 0; (i < task.exposedCount); ++i) {
+                indexExposed(task.exposedCells[i]);
+            }
+            for (FillTask half : task.forked) {
+                tasks.push(half);
+            }
+        }
+    }
+
+    /**
+     *  Expose a specific cell.
+     *  @param row The row of the cell to expose.
+     *  @param column The column of the cell to expose.
+     *  @return Is the game finished.
+     */
+    public boolean      expose(int row, int column)
+    {
+        int     index;
+
+        /*
+         *  Validate the given coordinates.
+         */
+        if ((row < 0) || (row >= size)) {
+            return(false);
+        }
+        if ((column < 0) || (column >= size)) {
+            return(false);
+        }
+
+        index = index(row, column);
+        if (firstClickPending == true) {
+            /*
+             *  This is the first click, so move the bombs out of
+             *  its way.
+             */
+            firstClickPending = false;
+            moveBombsFrom(index);
+            if ((size * size) <= labelThreshold) {
+                openings = labelOpenings();
+            }
+        }
+        if (revealed == true) {
+            /*
+             *  Everything's already exposed.
+             */
+        } else if ((cells[index] & (BOMB | ADJACENT_MASK)) == 0) {
+            /*
+             *  This cell has no adjacent bombs.
+             */
+            exposeAdjacentEmpties(index);
+        } else if ((cells[index] & EXPOSED) == 0) {
+            /*
+             *  This cell is not exposed, yet.
+             */
+            exposeCell(index);
+        }
+
+        if ((cells[index] & BOMB) != 0) {
+            /*
+             *  A bomb was exposed.
+             *  Game over.
+             */
+            status = "Boom!";
+            return(true);
+        }
+
+        if (hiddenCells == bombCount) {
+            /*
+             *  All the empty cells have been exposed.
+             *  Game over.
+             */
+            status = "Winner!";
+            return(true);
+        }
+
+        return(false);
+    }
+
+    /**
+     *  Expose a specific cell and write the row and column of
+     *  each cell it exposes into the given buffer.  An opening
+     *  exposed in parallel, or one with more cells than fit,
+     *  returns -1.
+     *  @param row The row of the cell to expose.
+     *  @param column The column of the cell to expose.
+     *  @param changed where to write the exposed cells, two
+     *  entries for each
+     *  @return the number of cells exposed, or -1
+     */
+    public int  expose(int row, int column, int changed[])
+    {
+        this.changed = changed;
+        changedCount = 0;
+        try {
+            expose(row, column);
+        } finally {
+            this.changed = null;
+        }
+
+        return(changedCount);
+    }
+
+    /**
+     *  Flag a specific cell.
+     *  @param row The row of the cell to flag.
+     *  @param column The column of the cell to flag.
+     */
+    public void flag(int row, int column)
+    {
+        /*
+         *  Validate the given coordinates.
+         */
+        if ((row < 0) || (row >= size)) {
+            return;
+        }
+        if ((column < 0) || (column >= size)) {
+            return;
+        }
+
+        changeMarks(index(row, column), FLAGGED);
+    }
+
+    /**
+     *  Mark a specific cell.
+     *  @param row The row of the cell to mark.
+     *  @param column The column of the cell to mark.
+     */
+    public void mark(int row, int column)
+    {
+        /*
+         *  Validate the given coordinates.
+         */
+        if ((row < 0) || (row >= size)) {
+            return;
+        }
+        if ((column < 0) || (column >= size)) {
+            return;
+        }
+
+        changeMarks(index(row, column), MARKED);
+    }
+
+    /**
+     *  Clear a specific cell's mark.
+     *  @param row The row of the cell to clear.
+     *  @param column The column of the cell to clear.
+     */
+    public void clearMark(int row, int column)
+    {
+        /*
+         *  Validate the given coordinates.
+         */
+        if ((row < 0) || (row >= size)) {
+            return;
+        }
+        if ((column < 0) || (column >= size)) {
+            return;
+        }
+
+        changeMarks(index(row, column), 0);
+    }
+
+    /**
+     *  Return the number of bombs in the field.
+     *  @return The number of bombs in the field.
+     */
+    public long getBombCount()
+    {
+        return(bombCount);
+    }
+
+    /**
+     *  Return the number of cells that are still hidden.
+     *  @return The number of hidden cells.
+     */
+    public long getHiddenCount()
+    {
+        if (revealed == true) {
+            return(0);
+        }
+
+        return((size * size) - countBits(exposedPlane, null));
+    }
+
+    /**
+     *  Return the number of hidden cells that have been flagged.
+     *  @return The number of flags placed.
+     */
+    public long getFlagCount()
+    {
+        if (revealed == true) {
+            return(0);
+        }
+
+        return(countBits(flaggedPlane, exposedPlane));
+    }
+
+    /**
+     *  Return the number of hidden cells that have been marked.
+     *  @return The number of marks placed.
+     */
+    public long getMarkCount()
+    {
+        if (revealed == true) {
+            return(0);
+        }
+
+        return(countBits(markedPlane, exposedPlane));
+    }
+
+    /**
+     *  Return the number of hidden cells that have been flagged
+     *  but aren't bombs.  Usually used when the game's over.
+     *  Before the first click it's for the bombs as they're laid
+     *  out, and the first click may still move some of them.
+     *  @return The number of wrongly flagged cells.
+     */
+    public long getWrongFlagCount()
+    {
+        long    count;
+        int     i;
+
+        count = 0;
+        for (i = 0; (i < flaggedPlane.length); ++i) {
+            count += Long.bitCount(flaggedPlane[i] &
+                                   ~(bombPlane[i] | exposedPlane[i]));
+        }
+
+        return(count);
+    }
+
+    /*
+     *  Count the hidden cells in a run of fewer than 64 cells of a
+     *  row, or just the ones whose bit is set in the given plane.
+     */
+    private int         countHidden(long plane[], int from, int length)
+    {
+        int     count;
+        int     to;
+
+        count = 0;
+        to = from + length;
+        while (from < to) {
+            int     bits;
+            long    hidden;
+
+            bits = Math.min(to, ((from >>> 6) + 1) << 6) - from;
+            hidden = ~exposedPlane[from >>> 6];
+            if (plane != null) {
+                hidden &= plane[from >>> 6];
+            }
+            count += Long.bitCount((hidden >>> from) & (-1L >>> (64 - bits)));
+            from += bits;
+        }
+
+        return(count);
+    }
+
+    /*
+     *  Build whichever rectangle counts aren't up to date from the
+     *  cells, reusing the indexes of an earlier game.
+     */
+    private void        indexRectangles()
+    {
+        int     row;
+        int     column;
+
+        if ((bombsIndexed == true) && (hiddenIndexed == true)) {
+            return;
+        }
+
+        if (bombsIndexed == false) {
+            if (bombIndex == null) {
+                bombIndex = new RectangleIndex(size,
+                        (runRow, runColumn, length) -> {
+                        int     from;
+
+                        from = index(runRow, runColumn);
+                        return(countRange(bombPlane, from, from + length));
+                    });
+            } else {
+                bombIndex.clear();
+            }
+            for (row = 0; (row < size); ++row) {
+                for (column = 0; (column < size); ++column) {
+                    if ((cells[index(row, column)] & BOMB) != 0) {
+                        bombIndex.put(row, column);
+                    }
+                }
+            }
+            bombIndex.build();
+            bombsIndexed = true;
+        }
+
+        if (hiddenIndexed == false) {
+            if (hiddenIndex == null) {
+                hiddenIndex = new RectangleIndex(size,
+                        (runRow, runColumn, length) ->
+                            countHidden(null, index(runRow, runColumn),
+                                        length));
+                flagIndex = new RectangleIndex(size,
+                        (runRow, runColumn, length) ->
+                            countHidden(flaggedPlane,
+                                        index(runRow, runColumn), length));
+            } else {
+                hiddenIndex.clear();
+                flagIndex.clear();
+            }
+            for (row = 0; (row < size); ++row) {
+                for (column = 0; (column < size); ++column) {
+                    int     cell;
+
+                    cell = cells[index(row, column)];
+                    if ((cell & EXPOSED) == 0) {
+                        hiddenIndex.put(row, column);
+                        if ((cell & FLAGGED) != 0) {
+                            flagIndex.put(row, column);
+                        }
+                    }
+                }
+            }
+            hiddenIndex.build();
+            flagIndex.build();
+            hiddenIndexed = true;
+        }
+    }
+
+    /**
+     *  Return the number of bombs in a rectangle of the field.
+     *  The parts of the rectangle off the field are ignored.
+     *  The first call builds an index that's kept up to date as
+     *  the game goes on, so later calls take time proportional to
+     *  the square of the log of the size of the field.  Before the
+     *  first click it counts the bombs as they're laid out, and
+     *  the first click may still move up to nine of them.
+     *  @param row The top row of the rectangle.
+     *  @param column The left column of the rectangle.
+     *  @param rows The number of rows in the rectangle.
+     *  @param columns The number of columns in the rectangle.
+     *  @return The number of bombs in the rectangle.
+     */
+    public int  getBombCount(int row, int column, int rows, int columns)
+    {
+        indexRectangles();
+        return(bombIndex.count(row, column, rows, columns));
+    }
+
+    /**
+     *  Return the number of cells still hidden in a rectangle of
+     *  the field, the same way as {@code getBombCount()} for a
+     *  rectangle.
+     *  @param row The top row of the rectangle.
+     *  @param column The left column of the rectangle.
+     *  @param rows The number of rows in the rectangle.
+     *  @param columns The number of columns in the rectangle.
+     *  @return The number of hidden cells in the rectangle.
+     */
+    public int  getHiddenCount(int row, int column, int rows, int columns)
+    {
+        if (revealed == true) {
+            return(0);
+        }
+
+        indexRectangles();
+        return(hiddenIndex.count(row, column, rows, columns));
+    }
+
+    /**
+     *  Return the number of hidden cells that have been flagged in
+     *  a rectangle of the field, the same way as
+     *  {@code getBombCount()} for a rectangle.
+     *  @param row The top row of the rectangle.
+     *  @param column The left column of the rectangle.
+     *  @param rows The number of rows in the rectangle.
+     *  @param columns The number of columns in the rectangle.
+     *  @return The number of flags placed in the rectangle.
+     */
+    public int  getFlagCount(int row, int column, int rows, int columns)
+    {
+        if (revealed == true) {
+            return(0);
+        }
+
+        indexRectangles();
+        return(flagIndex.count(row, column, rows, columns));
+    }
+
+    /**
+     *  Return the number of openings in the field, the groups of
+     *  connected cells with no adjacent bombs.  Before the first
+     *  click they're the openings of the bombs as they're laid out,
+     *  which the first click may still change by moving up to nine
+     *  bombs.  Counting them takes labels as big as the
+     *  field, so a field with more cells than the label threshold
+     *  doesn't count them.
+     *  @return The number of openings, or -1 when the field is too
+     *  big to label.
+     */
+    public int  getOpeningCount()
+    {
+        if (isLabeled() == false) {
+            return(-1);
+        }
+
+        return(openings.getCount());
+    }
+
+    /**
+     *  Return the number of cells exposed by exposing the largest
+     *  opening in the field, counting the numbered cells around it,
+     *  the same way as {@code getOpeningCount()}.
+     *  @return The number of cells in the largest opening, or -1
+     *  when the field is too big to label.
+     */
+    public int  getLargestOpening()
+    {
+        if (isLabeled() == false) {
+            return(-1);
+        }
+
+        return(openings.getLargest());
+    }
+
+    /*
+     *  Label the openings if they aren't and the field is within
+     *  the label threshold, and return whether they're labeled.
+     */
+    private boolean     isLabeled()
+    {
+        if ((openings == null) && ((size * size) <= labelThreshold)) {
+            openings = labelOpenings();
+        }
+
+        return(openings != null);
+    }
+
+    /**
+     *  Return whether every cell that isn't a bomb is exposed.
+     *  @return Whether all the empty cells are exposed.
+     */
+    public boolean      isCleared()
+    {
+        int     i;
+        int     count;
+
+        if (revealed == true) {
+            return(true);
+        }
+
+        count = 0;
+        for (i = 0; (i < bombPlane.length); ++i) {
+            count += Long.bitCount(exposedPlane[i] | bombPlane[i]);
+        }
+
+        return(count == (size * size));
+    }
+
+    /*
+     *  Count the bits set in a plane, leaving out any bits that
+     *  are also set in the excluded plane when one is given.
+     */
+    private static int
+    countBits(long plane[], long excluded[])
+    {
+        int     i;
+        int     count;
+
+        count = 0;
+        if (excluded == null) {
+            for (i = 0; (i < plane.length); ++i) {
+                count += Long.bitCount(plane[i]);
+            }
+        } else {
+            for (i = 0; (i < plane.length); ++i) {
+                count += Long.bitCount(plane[i] & ~excluded[i]);
+            }
+        }
+
+        return(count);
+    }
+
+    /**
+     *  Return the status of the game.
+     *  null unless the game's over.
+     *  @return The status of the game.
+     */
+    public String       getStatus()
+    {
+        return(status);
+    }
+
+    /**
+     *  @return {@code String} representation of object
+     */
+    public String toString()
+    {
+        return(getClass().getName() +
+               "[size=" + size +
+               ",bombCount=" + bombCount +
+               ",seed=" + seed + "]");
+    }
+
+    /*
+     *  Helper method to find information in toString() return value.
+     */
+    private static String[]     findVariableInToString(String toString,
+                                                       String value)
+    {
+        int     toStringLength;
+        int     valueLength;
+        int     foundAt;
+        int     occurances;
+        String  returnValue[];
+
+        occurances = 0;
+        returnValue = new String[8];
+
+        toStringLength = toString.length();
+        valueLength = value.length();
+        for (foundAt = 0;
+             (((foundAt = toString.indexOf(value, foundAt)) > 0) &&
+              (occurances < returnValue.length));
+             foundAt += valueLength) {
+            if ((foundAt + valueLength) >= toStringLength) {
+                /*
+                 *  Not going past the end of toString.
+                 */
+                break;
+            }
+
+            if (Character.isLetterOrDigit(toString.charAt(foundAt +
+                                                          valueLength))
+                                    == false) {
+                int     j;
+
+                /*
+                 *  The character following value isn't a letter or
+                 *  digit.  This is a candidate.
+                 */
+                for (j = foundAt - 1; (j >= 0); --j) {
+                    char    thisChar;
+
+                    thisChar = toString.charAt(j);
+                    if (Character.isJavaIdentifierPart(thisChar) ==
+                            false) {
+                        for (++j; (j < foundAt); ++j) {
+                            thisChar = toString.charAt(j);
+                            if (Character.
+                                    isJavaIdentifierStart(thisChar) ==
+                                        true) {
+                                break;
+                            }
+                        }
+                        break;
+                    }
+                }
+
+                returnValue[occurances] =
+                                toString.substring(j, foundAt);
+                ++occurances;
+            }
+        }
+
+        return((occurances > 0) ? returnValue : null);
+    }
+
+    /*
+     *  Test a given mine field.
+     */
+    private static int
+    testFieldLayout(int givenSize, int givenBombCount)
+    {
+        int     row;
+        int     column;
+        int     size;
+        int     bombCount;
+        int     errorCount;
+        Field   fieldToTest;
+        String  toString;
+        String  variableName[];
+        int     stateInField[][];
+
+        errorCount = 0;
+
+        /*
+         *  Instantiate the field to test and check its size.
+         */
+        fieldToTest = new Field(givenSize, givenBombCount);
+        toString = "" + fieldToTest;
+        System.out.println("Testing " + toString + " given size: " +
+                           givenSize + "; bomb count: " +
+                           givenBombCount);
+        size = fieldToTest.getSize();
+        if (givenSize <= 0) {
+            if (size != 1) {
+                System.out.println("**** ERROR:  size " + size +
+                                   " should be " + 1);
+                ++errorCount;
+            }
+        } else if (size != givenSize) {
+                System.out.println("**** ERROR:  size " + size +
+                                   " should be " + givenSize);
+                ++errorCount;
+        }
+
+        /*
+         *  Look for the size in the toString().
+         */
+        if ((variableName =
+                findVariableInToString(toString, "=" + size))
+                            == null) {
+            System.out.println("*** ERROR *** Didn't find" +
+                               " size (" + size +
+                               ") in toString() value");
+            ++errorCount;
+        } else {
+            int     j;
+
+            System.out.print("size may be stored in ");
+            for (j = 0; (j < variableName.length); ++j) {
+                if (variableName[j] == null) {
+                    break;
+                }
+                System.out.print(((j == 0) ? "" : " or ") +
+                                 variableName[j]);
+            }
+            System.out.println();
+        }
+
+        /*
+         *  Need to expose all the cells so we can check
+         *  their contents.
+         */
+        fieldToTest.exposeAll();
+
+        /*
+         *  Get all the states of the cells so we can look at
+         *  each as many times as necessary without extra calls
+         *  to getState().  Make sure getType() agrees with each.
+         */
+        stateInField = new int[size][size];
+        for (row = 0; (row < size); ++row) {
+            for (column = 0; (column < size); ++column) {
+                int     state;
+                String  type;
+
+                state = fieldToTest.getState(row, column);
+                stateInField[row][column] = state;
+                type = fieldToTest.getType(row, column);
+                if (type.equals((state == bombState) ?
+                                    Bomb.myType : "" + state) == false) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column +
+                                       " type " + type +
+                                       " doesn't match state " + state);
+                    ++errorCount;
+                }
+            }
+        }
+
+        /*
+         *  Examine each cell.
+         */
+        bombCount = 0;
+        for (row = 0; (row < size); ++row) {
+            for (column = 0; (column < size); ++column) {
+                int     i;
+                int     j;
+                int     cellContents;
+
+                cellContents = stateInField[row][column];
+                if (cellContents == bombState) {
+                    /*
+                     *  We have a bomb.  Make sure everything around
+                     *  is a digit.
+                     */
+                    ++bombCount;
+                    for (i = row - 1; (i <= row + 1); ++i) {
+                        if ((i < 0) || (i >= stateInField.length)) {
+                            continue;
+                        }
+
+                        for (j = column - 1; (j <= column + 1); ++j) {
+                            int         adjacentContents;
+
+                            if ((j < 0) ||
+                                (j >= stateInField[row].length)) {
+                                continue;
+                            }
+
+                            adjacentContents = stateInField[i][j];
+                            if ((adjacentContents < 0) ||
+                                (adjacentContents > bombState)) {
+                                System.out.println("**** ERROR: " +
+                                                   " Position " +
+                                                   i + "x" + j +
+                                                   " should be a count");
+                                ++errorCount;
+                            }
+                        }
+                    }
+
+                    continue;
+                }
+
+                if ((cellContents >= 0) && (cellContents < bombState)) {
+                    int         adjacentBombs;
+
+                    /*
+                     *  We have a count.  Count the bombs around us.
+                     */
+                    adjacentBombs = cellContents;
+                    for (i = row - 1; (i <= row + 1); ++i) {
+                        if ((i < 0) || (i >= stateInField.length)) {
+                            continue;
+                        }
+
+                        for (j = column - 1; (j <= column + 1); ++j) {
+                            if ((j < 0) ||
+                                (j >= stateInField[row].length)) {
+                                continue;
+                            }
+
+                            if (stateInField[i][j] == bombState) {
+                                --adjacentBombs;
+                            }
+                        }
+                    }
+                    if (adjacentBombs != 0) {
+                        System.out.println("**** ERROR: " +
+                                           " Position " +
+                                           row + "x" + column +
+                                           " should be " +
+                                           (cellContents -
+                                            adjacentBombs));
+                        ++errorCount;
+                    }
+
+                    continue;
+                }
+
+                System.out.println("**** ERROR: Don't know what's at " +
+                                   row + "x" + column + ": " +
+                                   fieldToTest.getType(row, column));
+                ++errorCount;
+            }
+        }
+
+        if (givenBombCount >= 0) {
+            int         maxSize;
+
+            maxSize = size * size;
+            if (givenBombCount > maxSize) {
+                if (bombCount != maxSize) {
+                    System.out.println("**** ERROR:  bomb count " +
+                                       bombCount + " should be " +
+                                       maxSize);
+                    ++errorCount;
+                }
+            } else if (givenBombCount >= 0) {
+                if (bombCount != givenBombCount) {
+                    System.out.println("**** ERROR:  bomb count " +
+                                       bombCount + " should be " +
+                                       givenBombCount);
+                    ++errorCount;
+                }
+            }
+        }
+
+        /*
+         *  Look for the bomb count in the toString().
+         */
+        if ((variableName =
+                findVariableInToString(toString, "=" + bombCount))
+                            == null) {
+            System.out.println("*** ERROR *** Didn't find" +
+                               " bombCount (" + bombCount +
+                               ") in toString() value");
+            ++errorCount;
+        } else {
+            int     j;
+
+            System.out.print("bombCount may be stored in ");
+            for (j = 0; (j < variableName.length); ++j) {
+                if (variableName[j] == null) {
+                    break;
+                }
+                System.out.print(((j == 0) ? "" : " or ") +
+                                 variableName[j]);
+            }
+            System.out.println();
+        }
+
+        return(errorCount);
+    }
+
+    /*
+     *  Given a Field and a pattern, see if the contents of the Cells
+     *  in the field match those of the pattern.
+     */
+    private static int
+    comparePattern(Field field, char pattern[][])
+    {
+        int     row;
+        int     column;
+        int     errorCount;
+
+        errorCount = 0;
+        for (row = 0; (row < pattern.length - 1); ++row) {
+            for (column = 0;
+                 (column < pattern[row].length - 1); ++column) {
+                int     found;
+                int     expected;
+
+                /*
+                 *  Translate the pattern into the state we expect.
+                 */
+                expected = pattern[row][column];
+                if (expected == Bomb.myType.charAt(0)) {
+                    expected = bombState;
+                } else if (expected == Cell.unmark.charAt(0)) {
+                    expected = hiddenState;
+                } else {
+                    expected -= '0';
+                }
+
+                found = field.getState(row, column);
+                if (found != expected) {
+                    /*
+                     *  Found a Cell that doesn't match the pattern.
+                     *  Record the error.
+                     */
+                    System.out.println("****  ERROR: Position " +
+                                       row + "x" + column +
+                                       ": " + found + " should be " +
+                                       pattern[row][column]);
+                    ++errorCount;
+                }
+            }
+        }
+
+        return(errorCount);
+    }
+
+    /*
+     *  Hand craft fields to test the exposure logic.
+     */
+    private static int
+    exposureTest()
+    {
+        int     whichTest;
+        int     errorCount;
+        char    bombType        = Bomb.myType.charAt(0);
+        char    unmarkType      = Cell.unmark.charAt(0);
+        /*
+         *  The row and column of the position to expose in the
+         *  corresponding pattern in fieldPattern.
+         */
+        int     positionToExpose[][]    =
+            {{1, 1},
+             {1, 1},
+             {1, 2},
+             {2, 1},
+             {2, 2},
+             {2, 2},
+             {1, 1},
+             {3, 3},
+             {0, 0},
+             {4, 4},
+             {0, 0},
+             {0, 0},
+            };
+        /*
+         *  Strategically place bombs to test the adjacent exposure
+         *  logic.  Each 2D array has a row and column position
+         *  to be exposed in the corresponding entry in positionToExpose.
+         */
+        char    fieldPattern[][][]      =
+            {{{bombType, bombType, bombType},
+              {bombType, '8', bombType},
+              {bombType, bombType, bombType}},
+             {{bombType, bombType, bombType, bombType},
+              {bombType, '5', unmarkType, bombType},
+              {bombType, unmarkType, unmarkType, bombType},
+              {bombType, bombType, bombType, bombType}},
+             {{bombType, bombType, bombType, bombType},
+              {bombType, unmarkType, '5', bombType},
+              {bombType, unmarkType, unmarkType, bombType},
+              {bombType, bombType, bombType, bombType}},
+             {{bombType, bombType, bombType, bombType},
+              {bombType, unmarkType, unmarkType, bombType},
+              {bombType, '5', unmarkType, bombType},
+              {bombType, bombType, bombType, bombType}},
+             {{bombType, bombType, bombType, bombType},
+              {bombType, unmarkType, unmarkType, bombType},
+              {bombType, unmarkType, '5', bombType},
+              {bombType, bombType, bombType, bombType}},
+             {{bombType, bombType, bombType, bombType, bombType},
+              {bombType, '5', '3', '5', bombType},
+              {bombType, '3', '0', '3', bombType},
+              {bombType, '5', '3', '5', bombType},
+              {bombType, bombType, bombType, bombType, bombType}},
+             {{bombType, bombType, bombType, bombType, bombType},
+              {bombType, '5', unmarkType, unmarkType, bombType},
+              {bombType, unmarkType, unmarkType, unmarkType, bombType},
+              {bombType, unmarkType, unmarkType, unmarkType, bombType},
+              {bombType, bombType, bombType, bombType, bombType}},
+             {{bombType, bombType, bombType, bombType, bombType},
+              {bombType, unmarkType, unmarkType, unmarkType, bombType},
+              {bombType, unmarkType, unmarkType, unmarkType, bombType},
+              {bombType, unmarkType, unmarkType, '5', bombType},
+              {bombType, bombType, bombType, bombType, bombType}},
+             {{'0', '0', '2', bombType, unmarkType},
+              {'0', '0', '3', bombType, unmarkType},
+              {'2', '3', '5', bombType, unmarkType},
+              {bombType, bombType, bombType, bombType, unmarkType},
+              {unmarkType, unmarkType, unmarkType,
+                                                unmarkType, unmarkType}},
+             {{unmarkType, unmarkType, unmarkType,
+                                                unmarkType, unmarkType},
+              {unmarkType, bombType, bombType, bombType, bombType},
+              {unmarkType, bombType, '5', '3', '2'},
+              {unmarkType, bombType, '3', '0', '0'},
+              {unmarkType, bombType, '2', '0', '0'}},
+             {{'b', '1'},
+              {'1', '1'}},
+             {{'0', '0'},
+              {'0', '0'}},
+            };
+
+        assert (positionToExpose.length == fieldPattern.length);
+
+        errorCount = 0;
+        for (whichTest = 0; (whichTest < fieldPattern.length);
+                                                        ++whichTest) {
+            int         testSize;
+            int         row;
+            int         column;
+            int         rowToExpose;
+            int         columnToExpose;
+            int         leftToExpose;
+            char        thisTest[][];
+            char        typeBeingExposed;
+            boolean     gameOver;
+            Field       exposureField;
+
+            /*
+             *  Collect information about this test.
+             */
+            thisTest = fieldPattern[whichTest];
+            testSize = thisTest.length;
+            rowToExpose = positionToExpose[whichTest][0];
+            columnToExpose = positionToExpose[whichTest][1];
+            typeBeingExposed = thisTest[rowToExpose][columnToExpose];
+            leftToExpose = testSize * testSize;
+
+            /*
+             *  Create a field with no bombs of the proper size.
+             */
+            exposureField = new Field(testSize, 0);
+
+            /*
+             *  The bombs in the pattern tell us where to place
+             *  a bomb in the field.
+             */
+            System.out.println("Exposing position " +
+                               positionToExpose[whichTest][0] +
+                               "x" +
+                               positionToExpose[whichTest][1] +
+                               " in the following pattern");
+            for (row = 0; (row < testSize); ++row) {
+                System.out.print("  ");
+                for (column = 0; (column < testSize); ++column) {
+                    System.out.print(thisTest[row][column]);
+                    if (Character.isDigit(thisTest[row][column]) ==
+                                                                true) {
+                        /*
+                         *  This should get exposed.
+                         */
+                        --leftToExpose;
+                    }
+                    if (thisTest[row][column] != bombType) {
+                        continue;
+                    }
+
+                    exposureField.placeBomb(exposureField, row, column);
+
+                    if ((row != rowToExpose) ||
+                        (column != columnToExpose)) {
+                        /*
+                         *  Since adjacent bombs should not be exposed,
+                         *  replace the bomb in the pattern with an
+                         *  unmark so the comparison will work.
+                         */
+                        thisTest[row][column] = unmarkType;
+                    } else {
+                        /*
+                         *  We're planning to expose this bomb.
+                         */
+                        --leftToExpose;
+                    }
+                }
+                System.out.println();
+            }
+
+            /*
+             *  Now that all the bombs are placed, expose the
+             *  cell for this test.
+             */
+            gameOver = exposureField.expose(rowToExpose, columnToExpose);
+            if (typeBeingExposed != bombType) {
+                if ((gameOver == true) && (leftToExpose > 0)) {
+                    System.out.println("**** ERROR:  Game shouldn't" +
+                                       " be over");
+                    ++errorCount;
+                }
+            } else {
+                if (gameOver != true) {
+                    System.out.println("**** ERROR:  Game should" +
+                                       " be over");
+                    ++errorCount;
+                }
+            }
+
+            /*
+             *  Make sure the correct cells were exposed.
+             */
+            errorCount += comparePattern(exposureField, thisTest);
+        }
+
+        return(errorCount);
+    }
+
+    /*
+     *  Flag, mark and expose cells at random and check that the
+     *  counts from the bit planes match what getState() reports.
+     */
+    private static int
+    statisticsTest(int givenSize, int givenBombCount)
+    {
+        int     i;
+        int     row;
+        int     column;
+        int     size;
+        int     errorCount;
+        int     expectedHidden;
+        int     expectedFlags;
+        int     expectedMarks;
+        int     expectedWrongFlags;
+        int     bombs;
+        boolean flagged[][];
+        Random  ourRandom;
+        Field   fieldToTest;
+
+        errorCount = 0;
+        ourRandom = new Random();
+        fieldToTest = new Field(givenSize, givenBombCount);
+        size = fieldToTest.getSize();
+        System.out.println("Testing statistics of " + fieldToTest);
+
+        if ((fieldToTest.getBombCount() < (size * size)) &&
+            (fieldToTest.isCleared() == true)) {
+            System.out.println("**** ERROR:  New field shouldn't" +
+                               " be cleared");
+            ++errorCount;
+        }
+
+        /*
+         *  Randomly flag, mark, clear and expose cells.
+         */
+        flagged = new boolean[size][size];
+        for (i = 0; (i < size * size); ++i) {
+            row = ourRandom.nextInt(size);
+            column = ourRandom.nextInt(size);
+            switch (ourRandom.nextInt(4)) {
+            case 0:
+                fieldToTest.flag(row, column);
+                break;
+            case 1:
+                fieldToTest.mark(row, column);
+                break;
+            case 2:
+                fieldToTest.clearMark(row, column);
+                break;
+            default:
+                if ((i & 7) == 0) {
+                    fieldToTest.expose(row, column);
+                }
+                break;
+            }
+        }
+
+        /*
+         *  Count what getState() shows, and remember which hidden
+         *  cells are flagged to tell the wrong flags at the end.
+         */
+        expectedHidden = 0;
+        expectedFlags = 0;
+        expectedMarks = 0;
+        for (row = 0; (row < size); ++row) {
+            for (column = 0; (column < size); ++column) {
+                flagged[row][column] = (fieldToTest.getState(row, column) ==
+                                                            flaggedState);
+                switch (fieldToTest.getState(row, column)) {
+                case flaggedState:
+                    ++expectedFlags;
+                    ++expectedHidden;
+                    break;
+                case markedState:
+                    ++expectedMarks;
+                    ++expectedHidden;
+                    break;
+                case hiddenState:
+                    ++expectedHidden;
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+        errorCount += checkCount("hidden", fieldToTest.getHiddenCount(),
+                                 expectedHidden);
+        errorCount += checkCount("flag", fieldToTest.getFlagCount(),
+                                 expectedFlags);
+        errorCount += checkCount("mark", fieldToTest.getMarkCount(),
+                                 expectedMarks);
+
+        /*
+         *  Expose everything and check the end of game counts.
+         */
+        fieldToTest.exposeAll();
+        bombs = 0;
+        expectedWrongFlags = 0;
+        for (row = 0; (row < size); ++row) {
+            for (column = 0; (column < size); ++column) {
+                if (fieldToTest.getState(row, column) == bombState) {
+                    ++bombs;
+                } else if (flagged[row][column] == true) {
+                    ++expectedWrongFlags;
+                }
+            }
+        }
+        errorCount += checkCount("hidden", fieldToTest.getHiddenCount(), 0);
+        errorCount += checkCount("bomb", fieldToTest.getBombCount(), bombs);
+        errorCount += checkCount("wrong flag",
+                                 fieldToTest.getWrongFlagCount(),
+                                 expectedWrongFlags);
+        if (fieldToTest.isCleared() == false) {
+            System.out.println("**** ERROR:  Exposed field should" +
+                               " be cleared");
+            ++errorCount;
+        }
+
+        return(errorCount);
+    }
+
+    /*
+     *  Lay out many small crowded fields and make sure bombs land
+     *  on every cell about equally often.
+     */
+    private static int
+    distributionTest(int givenSize, int givenBombCount, int trials)
+    {
+        int     i;
+        int     row;
+        int     column;
+        int     errorCount;
+        int     hits[][];
+        double  expected;
+        double  tolerance;
+
+        System.out.println("Testing distribution of " + givenBombCount +
+                           " bombs on " + givenSize + "x" + givenSize +
+                           " over " + trials + " fields");
+        hits = new int[givenSize][givenSize];
+        for (i = 0; (i < trials); ++i) {
+            Field   fieldToTest;
+
+            fieldToTest = new Field(givenSize, givenBombCount);
+            fieldToTest.exposeAll();
+            for (row = 0; (row < givenSize); ++row) {
+                for (column = 0; (column < givenSize); ++column) {
+                    if (fieldToTest.getState(row, column) == bombState) {
+                        ++hits[row][column];
+                    }
+                }
+            }
+        }
+
+        /*
+         *  Allow five standard deviations either way.
+         */
+        errorCount = 0;
+        expected = (double) trials * givenBombCount /
+                                        (givenSize * givenSize);
+        tolerance = 5 * Math.sqrt(expected *
+                        (1 - ((double) givenBombCount /
+                                        (givenSize * givenSize))));
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if (Math.abs(hits[row][column] - expected) > tolerance) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column + " had " +
+                                       hits[row][column] +
+                                       " bombs, expected about " +
+                                       (int) expected);
+                    ++errorCount;
+                }
+            }
+        }
+
+        return(errorCount);
+    }
+
+    /*
+     *  Make sure the same seed lays out the same field and a
+     *  different seed lays out a different one.
+     */
+    private static int
+    seedTest(int givenSize, int givenBombCount, long givenSeed)
+    {
+        int     row;
+        int     column;
+        int     errorCount;
+        int     differences;
+        Field   first;
+        Field   second;
+        Field   other;
+
+        errorCount = 0;
+        first = new Field(givenSize, givenBombCount, givenSeed);
+        second = new Field(givenSize, givenBombCount, givenSeed);
+        other = new Field(givenSize, givenBombCount, givenSeed + 1);
+        System.out.println("Testing seed of " + first);
+        if (first.getSeed() != givenSeed) {
+            System.out.println("**** ERROR:  seed " + first.getSeed() +
+                               " should be " + givenSeed);
+            ++errorCount;
+        }
+        errorCount += checkCount("bomb", second.getBombCount(),
+                                 first.getBombCount());
+
+        first.exposeAll();
+        second.exposeAll();
+        other.exposeAll();
+        differences = 0;
+        for (row = 0; (row < first.getSize()); ++row) {
+            for (column = 0; (column < first.getSize()); ++column) {
+                if (first.getState(row, column) !=
+                                    second.getState(row, column)) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column +
+                                       " differs with the same seed");
+                    ++errorCount;
+                }
+                if (first.getState(row, column) !=
+                                    other.getState(row, column)) {
+                    ++differences;
+                }
+            }
+        }
+        if (differences == 0) {
+            System.out.println("**** ERROR:  A different seed laid" +
+                               " out the same field");
+            ++errorCount;
+        }
+
+        return(errorCount);
+    }
+
+    /*
+     *  Make sure laying out a field in parallel gives the same
+     *  field as laying it out on one thread.
+     */
+    private static int
+    parallelTest(int givenSize, int givenBombCount, long givenSeed)
+    {
+        int     row;
+        int     column;
+        int     errorCount;
+        int     oldThreshold;
+        Field   serial;
+        Field   parallel;
+
+        errorCount = 0;
+        oldThreshold = getParallelThreshold();
+        setParallelThreshold(Integer.MAX_VALUE);
+        serial = new Field(givenSize, givenBombCount, givenSeed);
+        setParallelThreshold(1);
+        parallel = new Field(givenSize, givenBombCount, givenSeed);
+        setParallelThreshold(oldThreshold);
+        System.out.println("Testing parallel layout of " + parallel);
+
+        serial.exposeAll();
+        parallel.exposeAll();
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if (serial.getState(row, column) !=
+                                    parallel.getState(row, column)) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column +
+                                       " differs in parallel");
+                    ++errorCount;
+                }
+            }
+        }
+        errorCount += checkCount("bomb", countBits(parallel.bombPlane, null),
+                                 serial.getBombCount());
+
+        return(errorCount);
+    }
+
+    /*
+     *  Expose one cell of a field with no bombs, which should
+     *  expose the whole field as a single opening.
+     */
+    private static int
+    openingTest(int givenSize)
+    {
+        int     errorCount;
+        boolean gameOver;
+        Field   fieldToTest;
+
+        errorCount = 0;
+        fieldToTest = new Field(givenSize, 0);
+        System.out.println("Testing one opening across " + fieldToTest);
+        gameOver = fieldToTest.expose(givenSize / 3, givenSize / 2);
+        errorCount += checkCount("hidden", fieldToTest.hiddenCells, 0);
+        errorCount += checkCount("hidden", fieldToTest.getHiddenCount(), 0);
+        if ((gameOver == false) ||
+            ("Winner!".equals(fieldToTest.getStatus()) == false)) {
+            System.out.println("**** ERROR:  Exposing the opening" +
+                               " should win the game");
+            ++errorCount;
+        }
+
+        return(errorCount);
+    }
+
+    /*
+     *  Expose the same cells of two copies of a field, one filling
+     *  openings on one thread and the other in parallel, and make
+     *  sure they end up the same.
+     */
+    private static int
+    parallelFillTest(int givenSize, int givenBombCount, long givenSeed)
+    {
+        int     row;
+        int     column;
+        int     errorCount;
+        int     oldThreshold;
+        Field   serial;
+        Field   parallel;
+
+        /*
+         *  Leave the openings unlabeled so they're flood filled.
+         */
         errorCount = 0;
+        oldThreshold = getLabelThreshold();
+        setLabelThreshold(0);
+        serial = new Field(givenSize, givenBombCount, givenSeed);
+        parallel = new Field(givenSize, givenBombCount, givenSeed);
+        setLabelThreshold(oldThreshold);
+        System.out.println("Testing parallel fill of " + parallel);
 
         /*
-         *  Instantiate the field to test and check its size.
+         *  Expose every cell with no adjacent bombs, which opens
+         *  each opening from its first cell.
          */
-        fieldToTest = new Field(givenSize, givenBombCount);
-        toString = "" + fieldToTest;
-        System.out.println("Testing " + toString + " given size: " +
-                           givenSize + "; bomb count: " +
-                           givenBombCount);
-        size = fieldToTest.getSize();
-        if (givenSize <= 0) {
-            if (size != 1) {
-                System.out.println("**** ERROR:  size " + size +
-                                   " should be " + 1);
-                ++errorCount;
+        oldThreshold = getParallelFillThreshold();
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                int     cell;
+
+                cell = serial.cells[serial.index(row, column)];
+                if ((cell & (BOMB | ADJACENT_MASK)) != 0) {
+                    continue;
+                }
+
+                setParallelFillThreshold(Integer.MAX_VALUE);
+                serial.expose(row, column);
+                setParallelFillThreshold(1);
+                parallel.expose(row, column);
+            }
+        }
+        setParallelFillThreshold(oldThreshold);
+
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if (serial.getState(row, column) !=
+                                    parallel.getState(row, column)) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column +
+                                       " differs when filled in parallel");
+                    ++errorCount;
+                }
             }
-        } else if (size != givenSize) {
-                System.out.println("**** ERROR:  size " + size +
-                                   " should be " + givenSize);
-                ++errorCount;
         }
+        errorCount += checkCount("hidden", parallel.hiddenCells,
+                                 serial.hiddenCells);
+        errorCount += checkCount("hidden", parallel.getHiddenCount(),
+                                 serial.hiddenCells);
+
+        return(errorCount);
+    }
+
+    /*
+     *  Expose the same cells of two copies of a field, one with its
+     *  openings labeled and the other flood filling them, and make
+     *  sure they end up the same and the labels count the openings
+     *  the flood fill finds.
+     */
+    private static int
+    labeledOpeningTest(int givenSize, int givenBombCount, long givenSeed)
+    {
+        int     row;
+        int     column;
+        int     errorCount;
+        int     oldThreshold;
+        int     openingCount;
+        int     largest;
+        Field   labeled;
+        Field   flooded;
+        Field   alone;
+
+        errorCount = 0;
+        labeled = new Field(givenSize, givenBombCount, givenSeed);
+        oldThreshold = getLabelThreshold();
+        setLabelThreshold(0);
+        flooded = new Field(givenSize, givenBombCount, givenSeed);
+        setLabelThreshold(oldThreshold);
+        System.out.println("Testing labeled openings of " + labeled);
 
         /*
-         *  Look for the size in the toString().
+         *  Each cell with no adjacent bombs that the flood fill
+         *  hasn't reached yet starts a new opening.
          */
-        if ((variableName =
-                findVariableInToString(toString, "=" + size))
-                            == null) {
-            System.out.println("*** ERROR *** Didn't find" +
-                               " size (" + size +
-                               ") in toString() value");
-            ++errorCount;
-        } else {
-            int     j;
+        openingCount = 0;
+        largest = 0;
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                int     index;
+
+                index = flooded.index(row, column);
+                if (((flooded.cells[index] & (BOMB | ADJACENT_MASK)) != 0) ||
+                    ((flooded.cells[index] & EXPOSED) != 0)) {
+                    continue;
+                }
 
-            System.out.print("size may be stored in ");
-            for (j = 0; (j < variableName.length); ++j) {
-                if (variableName[j] == null) {
-                    break;
+                flooded.expose(row, column);
+                labeled.expose(row, column);
+                ++openingCount;
+
+                /*
+                 *  The numbered cells an opening shares with one
+                 *  exposed earlier count toward both, so measure
+                 *  each opening on a fresh copy of the field.
+                 */
+                setLabelThreshold(0);
+                alone = new Field(givenSize, givenBombCount, givenSeed);
+                setLabelThreshold(oldThreshold);
+                alone.expose(row, column);
+                largest = Math.max(largest, (givenSize * givenSize) -
+                                                alone.hiddenCells);
+            }
+        }
+
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if (flooded.getState(row, column) !=
+                                    labeled.getState(row, column)) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column +
+                                       " differs when labeled");
+                    ++errorCount;
                 }
-                System.out.print(((j == 0) ? "" : " or ") +
-                                 variableName[j]);
             }
-            System.out.println();
         }
+        errorCount += checkCount("hidden", labeled.hiddenCells,
+                                 flooded.hiddenCells);
+        errorCount += checkCount("hidden", labeled.getHiddenCount(),
+                                 flooded.hiddenCells);
+        errorCount += checkCount("opening", labeled.getOpeningCount(),
+                                 openingCount);
+        errorCount += checkCount("opening", flooded.getOpeningCount(),
+                                 openingCount);
+        errorCount += checkCount("largest opening",
+                                 labeled.getLargestOpening(), largest);
 
         /*
-         *  Need to expose all the cells so we can check
-         *  their contents.
+         *  A field over the threshold won't label its openings to
+         *  count them.
          */
-        fieldToTest.exposeAll();
+        setLabelThreshold(0);
+        alone = new Field(givenSize, givenBombCount, givenSeed);
+        errorCount += checkCount("unlabeled opening",
+                                 alone.getOpeningCount(), -1);
+        errorCount += checkCount("unlabeled largest opening",
+                                 alone.getLargestOpening(), -1);
+        setLabelThreshold(oldThreshold);
+        if (alone.labels != null) {
+            System.out.println("**** ERROR:  counting openings labeled" +
+                               " a field over the threshold");
+            ++errorCount;
+        }
 
-        /*
-         *  Get all the types of the cells so we can look at
-         *  each as many times as necessary without extra calls
-         *  to getType().
-         */
-        charInField = new char[size][size];
-        for (row = 0; (row < size); ++row) {
-            for (column = 0; (column < size); ++column) {
-                charInField[row][column] =
-                        fieldToTest.getType(row, column).charAt(0);
+        return(errorCount);
+    }
+
+    /*
+     *  Reveal one copy of a field and expose every cell of another
+     *  one at a time, and make sure they read the same.
+     */
+    private static int
+    revealTest(int givenSize, int givenBombCount, long givenSeed)
+    {
+        int     row;
+        int     column;
+        int     errorCount;
+        int     hidden;
+        Field   revealed;
+        Field   exposed;
+
+        errorCount = 0;
+        revealed = new Field(givenSize, givenBombCount, givenSeed);
+        exposed = new Field(givenSize, givenBombCount, givenSeed);
+        System.out.println("Testing reveal of " + revealed);
+        revealed.flag(0, 0);
+        revealed.exposeAll();
+        revealed.exposeAll();
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                exposed.expose(row, column);
             }
         }
 
         /*
-         *  Examine each cell.
+         *  Exposing a cell of a revealed field changes nothing.
          */
-        bombCount = 0;
-        bombType = Bomb.myType.charAt(0);
-        for (row = 0; (row < size); ++row) {
-            for (column = 0; (column < size); ++column) {
-                int     i;
-                int     j;
-                char    cellContents;
+        hidden = revealed.hiddenCells;
+        revealed.expose(givenSize / 2, givenSize / 2);
+        errorCount += checkCount("hidden", revealed.hiddenCells, hidden);
+
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if ((revealed.getState(row, column) !=
+                                    exposed.getState(row, column)) ||
+                    (revealed.getType(row, column).equals(
+                            exposed.getType(row, column)) == false)) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column +
+                                       " differs when revealed");
+                    ++errorCount;
+                }
+            }
+        }
+        errorCount += checkCount("hidden", revealed.getHiddenCount(), 0);
+        errorCount += checkCount("flag", revealed.getFlagCount(), 0);
+        errorCount += checkCount("wrong flag",
+                                 revealed.getWrongFlagCount(),
+                                 (revealed.getState(0, 0) == bombState) ?
+                                                                    0 : 1);
+        if (revealed.isCleared() == false) {
+            System.out.println("**** ERROR:  Revealed field should" +
+                               " be cleared");
+            ++errorCount;
+        }
 
-                cellContents = charInField[row][column];
-                if (cellContents == bombType) {
-                    /*
-                     *  We have a bomb.  Make sure everything around
-                     *  is a digit.
-                     */
-                    ++bombCount;
-                    for (i = row - 1; (i <= row + 1); ++i) {
-                        if ((i < 0) || (i >= charInField.length)) {
-                            continue;
-                        }
+        return(errorCount);
+    }
 
-                        for (j = column - 1; (j <= column + 1); ++j) {
-                            char        adjacentContents;
+    /*
+     *  Play a game on a field while counting rectangles of it, and
+     *  make sure the counts match the cells.
+     */
+    private static int
+    rectangleTest(int givenSize, int givenBombCount, long givenSeed)
+    {
+        int                 i;
+        int                 errorCount;
+        int                 oldLabelThreshold;
+        int                 oldFillThreshold;
+        Field               field;
+        SplittableRandom    random;
 
-                            if ((j < 0) ||
-                                (j >= charInField[row].length)) {
-                                continue;
-                            }
+        errorCount = 0;
+        field = new Field(givenSize, givenBombCount, givenSeed);
+        random = new SplittableRandom(givenSeed);
+        System.out.println("Testing rectangle counts of " + field);
+        errorCount += checkCount("hidden",
+                                 field.getHiddenCount(0, 0, givenSize,
+                                                      givenSize),
+                                 field.getHiddenCount());
+        for (i = 0; (i < 400); ++i) {
+            int     row;
+            int     column;
+            int     rows;
+            int     columns;
+            int     bombs;
+            int     hidden;
+            int     flags;
+            int     r;
+
+            row = random.nextInt(givenSize);
+            column = random.nextInt(givenSize);
+            switch (random.nextInt(4)) {
+            case 0:
+                if ((field.getState(row, column) == hiddenState) &&
+                    ((field.cells[field.index(row, column)] & BOMB) == 0)) {
+                    field.expose(row, column);
+                }
+                break;
+            case 1:
+                field.flag(row, column);
+                break;
+            case 2:
+                field.mark(row, column);
+                break;
+            default:
+                field.clearMark(row, column);
+                break;
+            }
 
-                            adjacentContents = charInField[i][j];
-                            if ((adjacentContents != bombType) &&
-                                (Character.isDigit(adjacentContents) ==
-                                                            false)) {
-                                System.out.println("**** ERROR: " +
-                                                   " Position " +
-                                                   i + "x" + j +
-                                                   " should be a count");
-                                ++errorCount;
-                            }
-                        }
-                    }
+            row = random.nextInt(givenSize + 2) - 1;
+            column = random.nextInt(givenSize + 2) - 1;
+            rows = random.nextInt(givenSize + 1);
+            columns = random.nextInt(givenSize + 1);
+            bombs = 0;
+            hidden = 0;
+            flags = 0;
+            for (r = Math.max(0, row);
+                 (r < Math.min(givenSize, row + rows)); ++r) {
+                int     c;
+
+                for (c = Math.max(0, column);
+                     (c < Math.min(givenSize, column + columns)); ++c) {
+                    int     cell;
+
+                    cell = field.cells[field.index(r, c)];
+                    bombs += ((cell & BOMB) != 0) ? 1 : 0;
+                    hidden += ((cell & EXPOSED) == 0) ? 1 : 0;
+                    flags += ((cell & (EXPOSED | FLAGGED)) == FLAGGED) ?
+                                                                    1 : 0;
+                }
+            }
+            errorCount += checkCount("rectangle bomb",
+                                     field.getBombCount(row, column, rows,
+                                                        columns), bombs);
+            errorCount += checkCount("rectangle hidden",
+                                     field.getHiddenCount(row, column, rows,
+                                                          columns), hidden);
+            errorCount += checkCount("rectangle flag",
+                                     field.getFlagCount(row, column, rows,
+                                                        columns), flags);
+        }
 
-                    continue;
+        /*
+         *  An opening exposed in parallel keeps the counts up to
+         *  date.  Start on a new field, with its counts built, so
+         *  the openings aren't already exposed, and drop the labels
+         *  so they're flood filled.
+         */
+        oldLabelThreshold = getLabelThreshold();
+        oldFillThreshold = getParallelFillThreshold();
+        setLabelThreshold(0);
+        setParallelFillThreshold(1);
+        field = new Field(givenSize, givenBombCount, givenSeed + 1);
+        field.flag(givenSize / 2, givenSize / 3);
+        field.getFlagCount(0, 0, 1, 1);
+        for (i = 0; (i < givenSize); ++i) {
+            if ((field.cells[field.index(i, i)] & (BOMB | ADJACENT_MASK)) ==
+                                                                        0) {
+                field.expose(i, i);
+            }
+        }
+        setParallelFillThreshold(oldFillThreshold);
+        setLabelThreshold(oldLabelThreshold);
+        if (field.hiddenIndexed == false) {
+            System.out.println("**** ERROR:  a parallel fill dropped" +
+                               " the rectangle counts");
+            ++errorCount;
+        }
+        for (i = 0; (i < 50); ++i) {
+            int     row;
+            int     column;
+            int     hidden;
+            int     r;
+
+            row = random.nextInt(givenSize);
+            column = random.nextInt(givenSize);
+            hidden = 0;
+            for (r = row; (r < Math.min(givenSize, row + 70)); ++r) {
+                int     c;
+
+                for (c = column; (c < Math.min(givenSize, column + 90));
+                                                                    ++c) {
+                    hidden += ((field.cells[field.index(r, c)] &
+                                EXPOSED) == 0) ? 1 : 0;
                 }
+            }
+            errorCount += checkCount("parallel rectangle hidden",
+                                     field.getHiddenCount(row, column, 70,
+                                                          90), hidden);
+        }
+        errorCount += checkCount("hidden",
+                                 field.getHiddenCount(0, 0, givenSize,
+                                                      givenSize),
+                                 field.getHiddenCount());
+        errorCount += checkCount("flag",
+                                 field.getFlagCount(-5, -5, givenSize + 9,
+                                                    givenSize + 9),
+                                 field.getFlagCount());
+        field.exposeAll();
+        errorCount += checkCount("revealed hidden",
+                                 field.getHiddenCount(0, 0, givenSize,
+                                                      givenSize), 0);
 
-                if (Character.isDigit(cellContents) == true) {
-                    int         adjacentBombs;
+        return(errorCount);
+    }
 
-                    /*
-                     *  We have a count.  Count the bombs around us.
-                     */
-                    adjacentBombs = cellContents - '0';
-                    for (i = row - 1; (i <= row + 1); ++i) {
-                        if ((i < 0) || (i >= charInField.length)) {
-                            continue;
-                        }
+    /*
+     *  Lay out a field with another topology and make sure it has
+     *  the bombs of the square field from the same seed, counts
+     *  the bombs among the given moves from each cell, and exposes
+     *  the same openings whether they're labeled or flood filled.
+     */
+    private static int
+    topologyTest(Topology topology, int moves[][], int givenSize,
+                 int givenBombCount, long givenSeed)
+    {
+        int     row;
+        int     column;
+        int     errorCount;
+        int     oldThreshold;
+        Field   square;
+        Field   labeled;
+        Field   flooded;
 
-                        for (j = column - 1; (j <= column + 1); ++j) {
-                            if ((j < 0) ||
-                                (j >= charInField[row].length)) {
-                                continue;
-                            }
+        errorCount = 0;
+        square = new Field(givenSize, givenBombCount, givenSeed);
+        labeled = new Field(givenSize, givenBombCount, givenSeed, topology);
+        oldThreshold = getLabelThreshold();
+        setLabelThreshold(0);
+        flooded = new Field(givenSize, givenBombCount, givenSeed, topology);
+        setLabelThreshold(oldThreshold);
+        System.out.println("Testing " + topology + " of " + labeled);
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                Set<Integer>    seen;
+                int             adjacent;
+                int             cell;
 
-                            if (charInField[i][j] == bombType) {
-                                --adjacentBombs;
-                            }
-                        }
+                /*
+                 *  Count each neighbor once, and not the cell
+                 *  itself, however small a wrapped field is.
+                 */
+                seen = new HashSet<Integer>();
+                adjacent = 0;
+                for (int move[] : moves) {
+                    int     nextRow;
+                    int     nextColumn;
+
+                    nextRow = row + move[0];
+                    nextColumn = column + move[1];
+                    if (topology.isWrapped() == true) {
+                        nextRow = Math.floorMod(nextRow, givenSize);
+                        nextColumn = Math.floorMod(nextColumn, givenSize);
                     }
-                    if (adjacentBombs != 0) {
-                        System.out.println("**** ERROR: " +
-                                           " Position " +
-                                           row + "x" + column +
-                                           " should be " +
-                                           (cellContents -
-                                            adjacentBombs));
-                        ++errorCount;
+                    if ((nextRow < 0) || (nextRow >= givenSize) ||
+                        (nextColumn < 0) || (nextColumn >= givenSize) ||
+                        ((nextRow == row) && (nextColumn == column)) ||
+                        (seen.add((nextRow * givenSize) + nextColumn) ==
+                                                                false)) {
+                        continue;
+                    }
+                    if ((square.cells[square.index(nextRow, nextColumn)] &
+                                                            BOMB) != 0) {
+                        ++adjacent;
                     }
-
-                    continue;
                 }
 
-                System.out.println("**** ERROR: Don't know what's at " +
-                                   row + "x" + column + ": " +
-                                   fieldToTest.getType(row, column));
-                ++errorCount;
+                cell = labeled.cells[labeled.index(row, column)];
+                if (((cell & BOMB) !=
+                     (square.cells[square.index(row, column)] & BOMB)) ||
+                    ((cell & ADJACENT_MASK) != adjacent)) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column + " has " +
+                                       (cell & ADJACENT_MASK) +
+                                       " adjacent bombs, should be " +
+                                       adjacent);
+                    ++errorCount;
+                }
             }
         }
 
-        if (givenBombCount >= 0) {
-            int         maxSize;
-
-            maxSize = size * size;
-            if (givenBombCount > maxSize) {
-                if (bombCount != maxSize) {
-                    System.out.println("**** ERROR:  bomb count " +
-                                       bombCount + " should be " +
-                                       maxSize);
-                    ++errorCount;
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if ((labeled.cells[labeled.index(row, column)] &
+                                            (BOMB | ADJACENT_MASK)) == 0) {
+                    labeled.expose(row, column);
+                    flooded.expose(row, column);
                 }
-            } else if (givenBombCount >= 0) {
-                if (bombCount != givenBombCount) {
-                    System.out.println("**** ERROR:  bomb count " +
-                                       bombCount + " should be " +
-                                       givenBombCount);
+                if (labeled.getState(row, column) !=
+                                    flooded.getState(row, column)) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column +
+                                       " differs when flood filled");
                     ++errorCount;
                 }
             }
         }
+        errorCount += checkCount("hidden", labeled.getHiddenCount(),
+                                 flooded.getHiddenCount());
 
-        /*
-         *  Look for the bomb count in the toString().
-         */
-        if ((variableName =
-                findVariableInToString(toString, "=" + bombCount))
-                            == null) {
-            System.out.println("*** ERROR *** Didn't find" +
-                               " bombCount (" + bombCount +
-                               ") in toString() value");
-            ++errorCount;
-        } else {
-            int     j;
+        return(errorCount);
+    }
 
-            System.out.print("bombCount may be stored in ");
-            for (j = 0; (j < variableName.length); ++j) {
-                if (variableName[j] == null) {
-                    break;
+    /*
+     *  Play on a field, reset it to new seeds and make sure each
+     *  time it reads the same as a new field from that seed, and
+     *  that resetting doesn't allocate anything near the size of
+     *  the field.
+     */
+    private static int
+    resetTest(int givenSize, int givenBombCount, Topology topology)
+    {
+        int         errorCount;
+        int         game;
+        long        allocated;
+        Field       reused;
+        Object      threads;
+
+        errorCount = 0;
+        reused = new Field(givenSize, givenBombCount, 0L, topology);
+        System.out.println("Testing reset of " + reused);
+        for (game = 1; (game <= 6); ++game) {
+            int     row;
+            int     column;
+            Field   fresh;
+
+            for (row = 0; (row < givenSize); row += 3) {
+                reused.flag(row, row / 2);
+                reused.mark(row / 2, row);
+                reused.expose(row, (row * 7) % givenSize);
+            }
+            if (game == 3) {
+                reused.exposeAll();
+            }
+
+            reused.reset(game, (game == 5) ? -1 : givenBombCount);
+            fresh = new Field(givenSize, (game == 5) ? -1 : givenBombCount,
+                              game, topology);
+            for (row = -1; (row <= givenSize); ++row) {
+                for (column = -1; (column <= givenSize); ++column) {
+                    if (reused.getState(row, column) !=
+                                        fresh.getState(row, column)) {
+                        System.out.println("**** ERROR: Position " +
+                                           row + "x" + column +
+                                           " differs after reset " + game);
+                        ++errorCount;
+                    }
                 }
-                System.out.print(((j == 0) ? "" : " or ") +
-                                 variableName[j]);
             }
-            System.out.println();
+            errorCount += checkCount("bomb", reused.getBombCount(),
+                                     fresh.getBombCount());
+            errorCount += checkCount("hidden", reused.getHiddenCount(),
+                                     fresh.getHiddenCount());
+            errorCount += checkCount("flag", reused.getFlagCount(), 0);
+            errorCount += checkCount("opening", reused.getOpeningCount(),
+                                     fresh.getOpeningCount());
+            if ((reused.getSeed() != game) || (reused.getStatus() != null)) {
+                System.out.println("**** ERROR:  reset " + game +
+                                   " left the old game behind");
+                ++errorCount;
+            }
+        }
+
+        /*
+         *  Where the JVM can say how much each thread has allocated,
+         *  make sure a game allocates the same few tasks however big
+         *  the field is, on this thread and the pool's.
+         */
+        threads = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean     counter;
+
+            counter = (com.sun.management.ThreadMXBean) threads;
+            reused.getBombCount(0, 0, givenSize, givenSize);
+            allocated = allocatedBytes(counter);
+            for (game = 0; (game < 20); ++game) {
+                reused.reset(game, givenBombCount);
+                reused.expose(givenSize / 2, givenSize / 2);
+                reused.getBombCount(0, 0, givenSize / 2, givenSize);
+                reused.getFlagCount(givenSize / 3, 0, givenSize, givenSize);
+            }
+            allocated = allocatedBytes(counter) - allocated;
+            if ((allocated / 20) > 16384) {
+                System.out.println("**** ERROR:  reset allocated " +
+                                   (allocated / 20) + " bytes a game");
+                ++errorCount;
+            }
         }
 
         return(errorCount);
     }
 
     /*
-     *  Given a Field and a pattern, see if the contents of the Cells
-     *  in the field match those of the pattern.
+     *  Add up what every live thread has allocated.
      */
-    private static int
-    comparePattern(Field field, char pattern[][])
+    private static long
+    allocatedBytes(com.sun.management.ThreadMXBean counter)
     {
-        int     row;
-        int     column;
-        int     errorCount;
-
-        errorCount = 0;
-        for (row = 0; (row < pattern.length - 1); ++row) {
-            for (column = 0;
-                 (column < pattern[row].length - 1); ++column) {
-                char    found;
+        long    total;
 
-                found = field.getType(row, column).charAt(0);
-                if (found != pattern[row][column]) {
-                    /*
-                     *  Found a Cell that doesn't match the pattern.
-                     *  Record the error.
-                     */
-                    System.out.println("****  ERROR: Position " +
-                                       row + "x" + column +
-                                       ": " + found + " should be " +
-                                       pattern[row][column]);
-                    ++errorCount;
-                }
-            }
+        total = 0;
+        for (long bytes :
+                counter.getThreadAllocatedBytes(counter.getAllThreadIds())) {
+            total += Math.max(0, bytes);
         }
 
-        return(errorCount);
+        return(total);
     }
 
     /*
-     *  Hand craft fields to test the exposure logic.
+     *  Expose the first cell of fields that wait for it, and make
+     *  sure the bombs keep clear of it, are counted right, and are
+     *  laid out evenly over the rest of the field.
      */
     private static int
-    exposureTest()
+    firstClickTest(int givenSize, int givenBombCount, int mode,
+                   int trials)
     {
-        int     whichTest;
-        int     errorCount;
-        char    bombType        = Bomb.myType.charAt(0);
-        char    unmarkType      = Cell.unmark.charAt(0);
-        /*
-         *  The row and column of the position to expose in the
-         *  corresponding pattern in fieldPattern.
-         */
-        int     positionToExpose[][]    =
-            {{1, 1},
-             {1, 1},
-             {1, 2},
-             {2, 1},
-             {2, 2},
-             {2, 2},
-             {1, 1},
-             {3, 3},
-             {0, 0},
-             {4, 4},
-             {0, 0},
-             {0, 0},
-            };
-        /*
-         *  Strategically place bombs to test the adjacent exposure
-         *  logic.  Each 2D array has a row and column position
-         *  to be exposed in the corresponding entry in positionToExpose.
-         */
-        char    fieldPattern[][][]      =
-            {{{bombType, bombType, bombType},
-              {bombType, '8', bombType},
-              {bombType, bombType, bombType}},
-             {{bombType, bombType, bombType, bombType},
-              {bombType, '5', unmarkType, bombType},
-              {bombType, unmarkType, unmarkType, bombType},
-              {bombType, bombType, bombType, bombType}},
-             {{bombType, bombType, bombType, bombType},
-              {bombType, unmarkType, '5', bombType},
-              {bombType, unmarkType, unmarkType, bombType},
-              {bombType, bombType, bombType, bombType}},
-             {{bombType, bombType, bombType, bombType},
-              {bombType, unmarkType, unmarkType, bombType},
-              {bombType, '5', unmarkType, bombType},
-              {bombType, bombType, bombType, bombType}},
-             {{bombType, bombType, bombType, bombType},
-              {bombType, unmarkType, unmarkType, bombType},
-              {bombType, unmarkType, '5', bombType},
-              {bombType, bombType, bombType, bombType}},
-             {{bombType, bombType, bombType, bombType, bombType},
-              {bombType, '5', '3', '5', bombType},
-              {bombType, '3', '0', '3', bombType},
-              {bombType, '5', '3', '5', bombType},
-              {bombType, bombType, bombType, bombType, bombType}},
-             {{bombType, bombType, bombType, bombType, bombType},
-              {bombType, '5', unmarkType, unmarkType, bombType},
-              {bombType, unmarkType, unmarkType, unmarkType, bombType},
-              {bombType, unmarkType, unmarkType, unmarkType, bombType},
-              {bombType, bombType, bombType, bombType, bombType}},
-             {{bombType, bombType, bombType, bombType, bombType},
-              {bombType, unmarkType, unmarkType, unmarkType, bombType},
-              {bombType, unmarkType, unmarkType, unmarkType, bombType},
-              {bombType, unmarkType, unmarkType, '5', bombType},
-              {bombType, bombType, bombType, bombType, bombType}},
-             {{'0', '0', '2', bombType, unmarkType},
-              {'0', '0', '3', bombType, unmarkType},
-              {'2', '3', '5', bombType, unmarkType},
-              {bombType, bombType, bombType, bombType, unmarkType},
-              {unmarkType, unmarkType, unmarkType,
-                                                unmarkType, unmarkType}},
-             {{unmarkType, unmarkType, unmarkType,
-                                                unmarkType, unmarkType},
-              {unmarkType, bombType, bombType, bombType, bombType},
-              {unmarkType, bombType, '5', '3', '2'},
-              {unmarkType, bombType, '3', '0', '0'},
-              {unmarkType, bombType, '2', '0', '0'}},
-             {{'b', '1'},
-              {'1', '1'}},
-             {{'0', '0'},
-              {'0', '0'}},
-            };
-
-        assert (positionToExpose.length == fieldPattern.length);
+        int                 i;
+        int                 row;
+        int                 column;
+        int                 errorCount;
+        int                 oldFirstClick;
+        int                 clear;
+        int                 hits[][];
+        double              expected;
+        double              tolerance;
+        SplittableRandom    random;
 
         errorCount = 0;
-        for (whichTest = 0; (whichTest < fieldPattern.length);
-                                                        ++whichTest) {
-            int         testSize;
-            int         row;
-            int         column;
-            int         rowToExpose;
-            int         columnToExpose;
-            int         leftToExpose;
-            char        thisTest[][];
-            char        typeBeingExposed;
-            boolean     gameOver;
-            Field       exposureField;
+        oldFirstClick = getFirstClick();
+        setFirstClick(mode);
+        System.out.println("Testing first click " + mode + " with " +
+                           givenBombCount + " bombs on " + givenSize +
+                           "x" + givenSize + " over " + trials +
+                           " fields");
+        random = new SplittableRandom(givenSize * 31L + mode);
+        hits = new int[givenSize][givenSize];
+        for (i = 0; (i < trials); ++i) {
+            int     bombs;
+            Field   clicked;
+            Field   again;
+            Field   plain;
+
+            clicked = new Field(givenSize, givenBombCount, i);
+            if ((clicked.firstClickPending == false) ||
+                (clicked.getHiddenCount() != (givenSize * givenSize))) {
+                System.out.println("**** ERROR:  field didn't wait for" +
+                                   " the first click");
+                ++errorCount;
+            }
 
             /*
-             *  Collect information about this test.
+             *  Before then it answers from the bombs as they're
+             *  laid out, the same as a field that doesn't wait.
              */
-            thisTest = fieldPattern[whichTest];
-            testSize = thisTest.length;
-            rowToExpose = positionToExpose[whichTest][0];
-            columnToExpose = positionToExpose[whichTest][1];
-            typeBeingExposed = thisTest[rowToExpose][columnToExpose];
-            leftToExpose = testSize * testSize;
+            setFirstClick(firstClickAnywhere);
+            plain = new Field(givenSize, givenBombCount, i);
+            setFirstClick(mode);
+            clicked.flag(0, 0);
+            plain.flag(0, 0);
+            if ((clicked.getWrongFlagCount() != plain.getWrongFlagCount()) ||
+                (clicked.getBombCount(0, 0, givenSize, givenSize / 2) !=
+                        plain.getBombCount(0, 0, givenSize, givenSize / 2)) ||
+                (clicked.getOpeningCount() != plain.getOpeningCount()) ||
+                (clicked.getLargestOpening() != plain.getLargestOpening())) {
+                System.out.println("**** ERROR:  field answered for other" +
+                                   " bombs before the first click");
+                ++errorCount;
+            }
+            clicked.mark(0, 0);
+            clicked.clearMark(0, 0);
 
             /*
-             *  Create a field with no bombs of the proper size.
+             *  Click the middle for the distribution, anywhere to
+             *  check the counts.
              */
-            exposureField = new Field(testSize, 0);
+            if (trials > 100) {
+                row = givenSize / 2;
+                column = givenSize / 2;
+            } else {
+                row = random.nextInt(givenSize);
+                column = random.nextInt(givenSize);
+            }
+            /*
+             *  The field keeps the mode it was laid out with.
+             */
+            setFirstClick(firstClickAnywhere);
+            clicked.expose(row, column);
+            setFirstClick(mode);
+            again = new Field(givenSize, givenBombCount, i);
+            again.expose(row, column);
+            if (Arrays.equals(clicked.cells, again.cells) == false) {
+                System.out.println("**** ERROR:  the same seed and click" +
+                                   " laid out different fields");
+                ++errorCount;
+            }
 
             /*
-             *  The bombs in the pattern tell us where to place
-             *  a bomb in the field.
+             *  The counts taken before the click follow the bombs
+             *  it moved.
              */
-            System.out.println("Exposing position " +
-                               positionToExpose[whichTest][0] +
-                               "x" +
-                               positionToExpose[whichTest][1] +
-                               " in the following pattern");
-            for (row = 0; (row < testSize); ++row) {
-                System.out.print("  ");
-                for (column = 0; (column < testSize); ++column) {
-                    System.out.print(thisTest[row][column]);
-                    if (Character.isDigit(thisTest[row][column]) ==
-                                                                true) {
-                        /*
-                         *  This should get exposed.
-                         */
-                        --leftToExpose;
-                    }
-                    if (thisTest[row][column] != bombType) {
-                        continue;
-                    }
+            if ((clicked.getBombCount(row - 1, column - 1, 3, 3) !=
+                        again.getBombCount(row - 1, column - 1, 3, 3)) ||
+                (clicked.getBombCount(0, 0, givenSize, givenSize / 2) !=
+                        again.getBombCount(0, 0, givenSize, givenSize / 2)) ||
+                (clicked.getOpeningCount() != again.getOpeningCount()) ||
+                (clicked.getLargestOpening() != again.getLargestOpening())) {
+                System.out.println("**** ERROR:  counts missed the bombs" +
+                                   " the first click moved");
+                ++errorCount;
+            }
 
-                    exposureField.placeBomb(exposureField, row, column);
+            clear = givenSize * givenSize - (int) clicked.getBombCount();
+            if (((clicked.cells[clicked.index(row, column)] & BOMB) != 0) &&
+                (clear > 0)) {
+                System.out.println("**** ERROR:  first click on " + row +
+                                   "x" + column + " hit a bomb");
+                ++errorCount;
+            }
+            if ((mode == firstClickOpening) &&
+                (clear >= 9) &&
+                (clicked.getState(row, column) != 0)) {
+                System.out.println("**** ERROR:  first click on " + row +
+                                   "x" + column + " didn't open");
+                ++errorCount;
+            }
 
-                    if ((row != rowToExpose) ||
-                        (column != columnToExpose)) {
-                        /*
-                         *  Since adjacent bombs should not be exposed,
-                         *  replace the bomb in the pattern with an
-                         *  unmark so the comparison will work.
-                         */
-                        thisTest[row][column] = unmarkType;
-                    } else {
-                        /*
-                         *  We're planning to expose this bomb.
-                         */
-                        --leftToExpose;
+            bombs = 0;
+            for (row = 0; (row < givenSize); ++row) {
+                for (column = 0; (column < givenSize); ++column) {
+                    int     index;
+                    int     adjacent;
+                    int     c;
+                    int     n;
+
+                    index = clicked.index(row, column);
+                    adjacent = 0;
+                    c = clicked.table.classOf(index);
+                    for (n = clicked.table.start[c];
+                         (n < clicked.table.start[c + 1]); ++n) {
+                        if ((clicked.cells[index + clicked.table.offset[n]] &
+                                                            BOMB) != 0) {
+                            ++adjacent;
+                        }
+                    }
+                    if ((clicked.cells[index] & ADJACENT_MASK) != adjacent) {
+                        System.out.println("**** ERROR: Position " +
+                                           row + "x" + column +
+                                           " miscounted");
+                        ++errorCount;
+                    }
+                    if ((clicked.cells[index] & BOMB) != 0) {
+                        ++bombs;
+                        ++hits[row][column];
                     }
                 }
-                System.out.println();
             }
+            errorCount += checkCount("bomb", bombs, clicked.getBombCount());
+            errorCount += checkCount("bomb plane",
+                                     countBits(clicked.bombPlane, null),
+                                     clicked.getBombCount());
+        }
+        setFirstClick(oldFirstClick);
 
-            /*
-             *  Now that all the bombs are placed, expose the
-             *  cell for this test.
-             */
-            gameOver = exposureField.expose(rowToExpose, columnToExpose);
-            if (typeBeingExposed != bombType) {
-                if ((gameOver == true) && (leftToExpose > 0)) {
-                    System.out.println("**** ERROR:  Game shouldn't" +
-                                       " be over");
-                    ++errorCount;
-                }
-            } else {
-                if (gameOver != true) {
-                    System.out.println("**** ERROR:  Game should" +
-                                       " be over");
+        /*
+         *  With the middle clicked every time, the cells clear of
+         *  it should get the bombs evenly.  Allow five standard
+         *  deviations either way.
+         */
+        if (trials <= 100) {
+            return(errorCount);
+        }
+        clear = (mode == firstClickOpening) ? 9 : 1;
+        expected = (double) trials * givenBombCount /
+                                    ((givenSize * givenSize) - clear);
+        tolerance = 5 * Math.sqrt(expected *
+                        (1 - ((double) givenBombCount /
+                              ((givenSize * givenSize) - clear))));
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if ((Math.abs(row - (givenSize / 2)) <= 1) &&
+                    (Math.abs(column - (givenSize / 2)) <= 1) &&
+                    ((clear == 9) ||
+                     ((row == givenSize / 2) && (column == givenSize / 2)))) {
+                    errorCount += checkCount("clicked bomb",
+                                             hits[row][column], 0);
+                } else if (Math.abs(hits[row][column] - expected) >
+                                                            tolerance) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column + " had " +
+                                       hits[row][column] +
+                                       " bombs, expected about " +
+                                       (int) expected);
                     ++errorCount;
                 }
             }
-
-            /*
-             *  Make sure the correct cells were exposed.
-             */
-            errorCount += comparePattern(exposureField, thisTest);
         }
 
         return(errorCount);
     }
 
+    /*
+     *  Report a count that doesn't match what we expected.
+     */
+    private static int
+    checkCount(String what, long count, long expected)
+    {
+        if (count == expected) {
+            return(0);
+        }
+
+        System.out.println("**** ERROR:  " + what + " count " + count +
+                           " should be " + expected);
+        return(1);
+    }
+
     /**
      *  Performs a unit test on the {@code Field} class
      *  by instantiating several different fields
@@ -988,6 +3528,9 @@ public class Field {
         int     errors;
         int     fakeSize;
         int     fakeBombCount;
+        int     oldThreshold;
+        int     squareMoves[][];
+        int     hexMoves[][];
 
         /*
          *  Test combinations of sizes and bomb counts.
@@ -1006,6 +3549,117 @@ public class Field {
          */
         errors += exposureTest();
 
+        /*
+         *  Make sure the bit plane statistics agree with the
+         *  cells, including sizes that don't fill a whole word.
+         */
+        for (fakeSize = 1; (fakeSize < 140); fakeSize += 23) {
+            errors += statisticsTest(fakeSize, -1);
+        }
+
+        /*
+         *  Make sure sparse and crowded layouts are unbiased.
+         */
+        errors += distributionTest(5, 3, 20000);
+        errors += distributionTest(5, 22, 20000);
+
+        /*
+         *  Make sure fields can be reproduced from their seed.
+         */
+        errors += seedTest(30, 150, 20211031L);
+        errors += seedTest(30, -1, -7L);
+
+        /*
+         *  An opening as big as the field mustn't need a deeper
+         *  stack than a small one.
+         */
+        errors += openingTest(4096);
+        oldThreshold = getParallelFillThreshold();
+        setParallelFillThreshold(1000);
+        errors += openingTest(2000);
+        setParallelFillThreshold(oldThreshold);
+        errors += parallelFillTest(700, 20000, 3L);
+        errors += parallelFillTest(300, 2000, 4L);
+
+        /*
+         *  Exposing a labeled opening should expose exactly what
+         *  flood filling it does.
+         */
+        errors += labeledOpeningTest(1, 0, 5L);
+        errors += labeledOpeningTest(40, 200, 6L);
+        errors += labeledOpeningTest(150, 3000, 7L);
+        errors += labeledOpeningTest(333, 0, 8L);
+
+        /*
+         *  Revealing the field at the end of a game should read
+         *  the same as exposing every cell.
+         */
+        errors += revealTest(1, 1, 9L);
+        errors += revealTest(90, 1500, 10L);
+
+        /*
+         *  Rectangle counts should follow the game as it's played.
+         */
+        errors += rectangleTest(1, 0, 13L);
+        errors += rectangleTest(60, 300, 14L);
+        errors += rectangleTest(333, 4000, 15L);
+
+        /*
+         *  Other topologies count and expose their own neighbors.
+         */
+        squareMoves = new int[][] {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1},
+                                   {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+        hexMoves = new int[][] {{-1, 0}, {-1, 1}, {0, -1}, {0, 1},
+                                {1, -1}, {1, 0}};
+        errors += topologyTest(Topology.square().wrapped(), squareMoves,
+                               1, 0, 16L);
+        errors += topologyTest(Topology.square().wrapped(), squareMoves,
+                               2, 1, 17L);
+        errors += topologyTest(Topology.square().wrapped(), squareMoves,
+                               70, 400, 18L);
+        errors += topologyTest(Topology.hex(), hexMoves, 90, 700, 19L);
+        errors += topologyTest(Topology.hex().wrapped(), hexMoves,
+                               65, 300, 20L);
+        oldThreshold = getParallelThreshold();
+        setParallelThreshold(1);
+        errors += topologyTest(Topology.hex(), hexMoves, 200, 3000, 23L);
+        setParallelThreshold(oldThreshold);
+
+        /*
+         *  A field reset to a new seed should be the same as a new
+         *  field from that seed.
+         */
+        errors += resetTest(1, 0, Topology.square());
+        errors += resetTest(100, 1500, Topology.square());
+        errors += resetTest(300, 9000, Topology.square());
+        errors += resetTest(1000, 150000, Topology.square());
+        errors += resetTest(64, 400, Topology.hex().wrapped());
+
+        /*
+         *  A first click that's kept safe should be safe however
+         *  crowded the field is.
+         */
+        errors += firstClickTest(1, 1, firstClickSafe, 5);
+        errors += firstClickTest(3, 8, firstClickOpening, 20);
+        errors += firstClickTest(70, 4000, firstClickSafe, 20);
+        errors += firstClickTest(70, 4000, firstClickOpening, 20);
+        errors += firstClickTest(200, 39990, firstClickOpening, 5);
+        errors += firstClickTest(130, 16899, firstClickSafe, 5);
+        errors += firstClickTest(5, 10, firstClickOpening, 20000);
+        errors += firstClickTest(5, 20, firstClickSafe, 20000);
+
+        /*
+         *  Lay out fields that span many tiles in parallel and
+         *  make sure they're the same and laid out correctly.
+         */
+        errors += parallelTest(300, 13000, 11L);
+        errors += parallelTest(517, 80000, 12L);
+        oldThreshold = getParallelThreshold();
+        setParallelThreshold(1);
+        errors += testFieldLayout(200, 9000);
+        errors += testFieldLayout(130, 16000);
+        setParallelThreshold(oldThreshold);
+
         if (errors > 0) {
             /*
              *  We found a problem during unit test.
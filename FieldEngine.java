@@ -0,0 +1,555 @@
+package minesweeper;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ *  {@code FieldEngine} is what the game needs from a square mine
+ *  field, whichever way the field keeps its cells.  Rows and
+ *  columns are {@code int}s and counts are {@code long}s, since a
+ *  big enough field has more cells than an {@code int} can count.
+ *  <p>
+ *  {@code create()} picks a field to suit its size, bomb count
+ *  and a memory budget.  Small and medium fields are a
+ *  {@code Field}, which keeps a byte for every cell.  Fields too
+ *  big for that with few bombs are a {@code SparseField}, which
+ *  keeps only the bombs and what's been played.  Anything else is
+ *  a {@code ChunkedField}, which lays out the field a chunk at a
+ *  time as it's looked at.  Every one of them lays out the same
+ *  bombs for the same size, bomb count and seed, and moves the
+ *  same ones out of the way of the same first click.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+public interface FieldEngine {
+    /**
+     *  The biggest field a {@code Field} can hold, since the field
+     *  and its border have to fit in an array.
+     */
+    int     maxFieldSize    = 46338;
+
+    /**
+     *  About how many bytes a {@code SparseField} takes for each
+     *  bomb, counting the runs of exposed cells between the bombs
+     *  once the field has been played.
+     */
+    int     sparseBombBytes = 8;
+
+    /**
+     *  Return the size of the mine field.
+     *  @return number of cells on a side
+     */
+    int     getSize();
+
+    /**
+     *  Return the seed the bombs were laid out from.
+     *  @return The seed of the mine field.
+     */
+    long    getSeed();
+
+    /**
+     *  Get the type of a specific cell, worked out from its state.
+     *  @param row The row of the cell whose type to get.
+     *  @param column The column of the cell whose type to get.
+     *  @return The type of the given cell, or null when the
+     *  coordinates are off the field.
+     */
+    default String  getType(int row, int column)
+    {
+        return(typeOf(getState(row, column)));
+    }
+
+    /**
+     *  Return the type a cell in the given state has: its number
+     *  of adjacent bombs when it's an exposed empty cell, what a
+     *  {@code Bomb} is when it's an exposed bomb, or how it's
+     *  marked when it's hidden.
+     *  @param state the state of the cell, as {@code getState()}
+     *  returns it
+     *  @return the type of the cell, or null when the state is
+     *  {@code Field.invalidState}
+     */
+    static String   typeOf(int state)
+    {
+        switch (state) {
+        case Field.invalidState:
+            return(null);
+        case Field.bombState:
+            return(Bomb.myType);
+        case Field.hiddenState:
+            return(Cell.unmark);
+        case Field.flaggedState:
+            return(Cell.flag);
+        case Field.markedState:
+            return(Cell.mark);
+        default:
+            return(Field.adjacentType[state]);
+        }
+    }
+
+    /**
+     *  Get the state of a specific cell, the number of adjacent
+     *  bombs of an exposed empty cell or one of the states
+     *  {@code Field} defines.
+     *  @param row The row of the cell whose state to get.
+     *  @param column The column of the cell whose state to get.
+     *  @return The state of the given cell.
+     */
+    int     getState(int row, int column);
+
+    /**
+     *  Expose a specific cell.
+     *  @param row The row of the cell to expose.
+     *  @param column The column of the cell to expose.
+     *  @return Is the game finished.
+     */
+    boolean expose(int row, int column);
+
+    /**
+     *  Flag a specific cell.
+     *  @param row The row of the cell to flag.
+     *  @param column The column of the cell to flag.
+     */
+    void    flag(int row, int column);
+
+    /**
+     *  Mark a specific cell.
+     *  @param row The row of the cell to mark.
+     *  @param column The column of the cell to mark.
+     */
+    void    mark(int row, int column);
+
+    /**
+     *  Clear a specific cell's mark.
+     *  @param row The row of the cell to clear.
+     *  @param column The column of the cell to clear.
+     */
+    void    clearMark(int row, int column);
+
+    /**
+     *  Expose a specific cell and report the cells whose state
+     *  changed, so a caller can redraw or send just those.  The
+     *  row and column of each are written in turn into the given
+     *  buffer.  When they don't all fit, or the field can't tell
+     *  which cells changed, -1 is returned and the caller should
+     *  look at the whole field again.  Whether the game is over is
+     *  {@code getStatus()} not being null.
+     *  <p>
+     *  Unless the field knows better, an expose that hides more
+     *  than one cell can't be told apart and returns -1.
+     *  @param row The row of the cell to expose.
+     *  @param column The column of the cell to expose.
+     *  @param changed where to write the changed cells, two
+     *  entries for each
+     *  @return the number of cells that changed, or -1
+     */
+    default int expose(int row, int column, int changed[])
+    {
+        long    hidden;
+
+        hidden = getHiddenCount();
+        expose(row, column);
+        hidden -= getHiddenCount();
+        if (hidden == 0) {
+            return(0);
+        }
+        if ((hidden > 1) || (changed.length < 2)) {
+            return(-1);
+        }
+        changed[0] = row;
+        changed[1] = column;
+
+        return(1);
+    }
+
+    /**
+     *  Flag a specific cell and report whether its state changed,
+     *  the same way as {@code expose(int, int, int[])}.
+     *  @param row The row of the cell to flag.
+     *  @param column The column of the cell to flag.
+     *  @param changed where to write the changed cell
+     *  @return the number of cells that changed, or -1
+     */
+    default int flag(int row, int column, int changed[])
+    {
+        int     before;
+
+        before = getState(row, column);
+        flag(row, column);
+
+        return(changedCell(row, column, before, changed));
+    }
+
+    /**
+     *  Mark a specific cell and report whether its state changed,
+     *  the same way as {@code expose(int, int, int[])}.
+     *  @param row The row of the cell to mark.
+     *  @param column The column of the cell to mark.
+     *  @param changed where to write the changed cell
+     *  @return the number of cells that changed, or -1
+     */
+    default int mark(int row, int column, int changed[])
+    {
+        int     before;
+
+        before = getState(row, column);
+        mark(row, column);
+
+        return(changedCell(row, column, before, changed));
+    }
+
+    /**
+     *  Clear a specific cell's mark and report whether its state
+     *  changed, the same way as {@code expose(int, int, int[])}.
+     *  @param row The row of the cell to clear.
+     *  @param column The column of the cell to clear.
+     *  @param changed where to write the changed cell
+     *  @return the number of cells that changed, or -1
+     */
+    default int clearMark(int row, int column, int changed[])
+    {
+        int     before;
+
+        before = getState(row, column);
+        clearMark(row, column);
+
+        return(changedCell(row, column, before, changed));
+    }
+
+    /*
+     *  Write a cell into the buffer if its state is no longer the
+     *  given one.
+     */
+    private int changedCell(int row, int column, int before,
+                            int changed[])
+    {
+        if (getState(row, column) == before) {
+            return(0);
+        }
+        if (changed.length < 2) {
+            return(-1);
+        }
+        changed[0] = row;
+        changed[1] = column;
+
+        return(1);
+    }
+
+    /**
+     *  Expose every cell of the field.
+     *  Usually used when they win or step on a bomb.
+     */
+    void    exposeAll();
+
+    /**
+     *  Return the number of bombs in the field.
+     *  @return The number of bombs in the field.
+     */
+    long    getBombCount();
+
+    /**
+     *  Return the number of cells that are still hidden.
+     *  @return The number of hidden cells.
+     */
+    long    getHiddenCount();
+
+    /**
+     *  Return the number of hidden cells that have been flagged.
+     *  @return The number of flags placed.
+     */
+    long    getFlagCount();
+
+    /**
+     *  Return the number of hidden cells that have been marked.
+     *  @return The number of marks placed.
+     */
+    long    getMarkCount();
+
+    /**
+     *  Return the number of hidden cells that have been flagged
+     *  but aren't bombs.
+     *  @return The number of wrongly flagged cells.
+     */
+    long    getWrongFlagCount();
+
+    /**
+     *  Return whether every cell that isn't a bomb is exposed.
+     *  @return Whether all the empty cells are exposed.
+     */
+    boolean isCleared();
+
+    /**
+     *  Return the status of the game.
+     *  null unless the game's over.
+     *  @return The status of the game.
+     */
+    String  getStatus();
+
+    /**
+     *  Create a mine field that fits the given memory budget.
+     *  @param size number of cells on a side
+     *  @param bombCount number of bombs to randomly place in the
+     *  field, or a negative number to choose one from the seed
+     *  @param seed seed for laying out the bombs
+     *  @param budget about how many bytes the field may take
+     *  @return the new mine field
+     */
+    static FieldEngine
+    create(int size, long bombCount, long seed, long budget)
+    {
+        long    cells;
+
+        size = Math.max(1, size);
+        cells = size * (long) size;
+        if (bombCount < 0) {
+            /*
+             *  Choose the bomb count here so every kind of field
+             *  gets the same one from the same seed.
+             */
+            bombCount = new SplittableRandom(seed).nextLong(
+                                                    (cells / 5) + 1) + 1;
+        }
+        bombCount = Math.min(bombCount, cells);
+
+        /*
+         *  A Field takes a byte for each cell and its border, half
+         *  as much again for its four bit planes, and three eighths
+         *  more once it's asked to count rectangles.
+         */
+        if ((size <= maxFieldSize) &&
+            ((((size + 2L) * (size + 2L) * 15) / 8) <= budget)) {
+            return(new Field(size, (int) bombCount, seed));
+        }
+        if ((bombCount * sparseBombBytes) <= budget) {
+            return(new SparseField(size, bombCount, seed));
+        }
+
+        return(new ChunkedField(size, size, bombCount, seed));
+    }
+
+    /**
+     *  Create a mine field of the default size and bomb count from
+     *  a random seed, allowing it half of the memory the Java
+     *  virtual machine may use.
+     *  @return the new mine field
+     */
+    static FieldEngine  create()
+    {
+        return(create(Field.getDefaultSize(), Field.getDefaultBombCount(),
+                      ThreadLocalRandom.current().nextLong(),
+                      Runtime.getRuntime().maxMemory() / 2));
+    }
+
+    /*
+     *  Play a field with the overloads that report what changed
+     *  and make sure they report exactly the cells whose state
+     *  changed, or -1.  A twin of the field shows where its bombs
+     *  are so they can be stepped around until the end.
+     */
+    private static int  changedTest(FieldEngine field, FieldEngine twin,
+                                    int changed[], boolean exact)
+    {
+        int     errorCount;
+        int     size;
+        int     states[][];
+        int     i;
+
+        errorCount = 0;
+        size = field.getSize();
+        System.out.println("Testing changes reported by " + field);
+        states = new int[size][size];
+        twin.exposeAll();
+        for (i = 0; (i < 1200); ++i) {
+            int     row;
+            int     column;
+            int     count;
+            int     found;
+            int     r;
+
+            for (row = 0; (row < size); ++row) {
+                for (column = 0; (column < size); ++column) {
+                    states[row][column] = field.getState(row, column);
+                }
+            }
+            row = (i * 37) % size;
+            column = (i * 101) % (size + 1);
+            switch (i % 5) {
+            case 0:
+                count = field.flag(row, column, changed);
+                break;
+            case 1:
+                count = field.mark(row, column, changed);
+                break;
+            case 2:
+                count = field.clearMark(row, column, changed);
+                break;
+            default:
+                if ((twin.getState(row, column) == Field.bombState) &&
+                    (i < 1000)) {
+                    count = field.flag(row, column, changed);
+                } else {
+                    count = field.expose(row, column, changed);
+                }
+                break;
+            }
+            if (count < 0) {
+                if (exact == true) {
+                    System.out.println("**** ERROR:  " + row + "x" +
+                                       column + " didn't say what changed");
+                    ++errorCount;
+                }
+                continue;
+            }
+
+            /*
+             *  Every cell reported must have changed, and no other.
+             */
+            found = 0;
+            for (r = 0; (r < count); ++r) {
+                int     changedRow;
+                int     changedColumn;
+
+                changedRow = changed[r * 2];
+                changedColumn = changed[(r * 2) + 1];
+                if (states[changedRow][changedColumn] ==
+                                field.getState(changedRow, changedColumn)) {
+                    System.out.println("**** ERROR:  " + changedRow + "x" +
+                                       changedColumn +
+                                       " reported but didn't change");
+                    ++errorCount;
+                }
+                states[changedRow][changedColumn] = Field.invalidState;
+            }
+            for (r = 0; (r < size); ++r) {
+                int     c;
+
+                for (c = 0; (c < size); ++c) {
+                    if ((states[r][c] != Field.invalidState) &&
+                        (states[r][c] != field.getState(r, c))) {
+                        ++found;
+                    }
+                }
+            }
+            if (found > 0) {
+                System.out.println("**** ERROR:  " + found +
+                                   " changes weren't reported at " +
+                                   row + "x" + column);
+                ++errorCount;
+            }
+            if (field.getStatus() != null) {
+                break;
+            }
+        }
+
+        return(errorCount);
+    }
+
+    /**
+     *  Performs a unit test on {@code create()} by making sure it
+     *  picks each kind of field for the right budget and that they
+     *  all play the same.
+     *  @param args arguments to the unit test
+     */
+    static void main(String[] args)
+    {
+        int             errors;
+        int             i;
+        int             oldThreshold;
+        FieldEngine     engines[];
+        String          kinds[];
+
+        errors = 0;
+        engines = new FieldEngine[] {
+            create(120, -1, 7L, Long.MAX_VALUE),
+            create(120, -1, 7L, 20000),
+            create(120, -1, 7L, 0),
+            create(maxFieldSize + 1, 1000, 7L, Long.MAX_VALUE)
+        };
+        kinds = new String[] {"Field", "SparseField", "ChunkedField",
+                              "SparseField"};
+        for (i = 0; (i < engines.length); ++i) {
+            if (engines[i].getClass().getSimpleName().equals(kinds[i]) ==
+                                                                false) {
+                System.out.println("**** ERROR:  " + engines[i] +
+                                   " should be a " + kinds[i]);
+                ++errors;
+            }
+        }
+
+        for (i = 0; (i < 3000); ++i) {
+            int     row;
+            int     column;
+            int     e;
+            boolean hidden;
+
+            row = (i * 37) % 120;
+            column = (i * 101) % 121;
+            hidden = (engines[0].getState(row, column) == Field.hiddenState);
+            for (e = 0; (e < 3); ++e) {
+                switch (i % 4) {
+                case 0:
+                    engines[e].flag(row, column);
+                    break;
+                case 1:
+                    engines[e].mark(row, column);
+                    break;
+                case 2:
+                    engines[e].clearMark(row, column);
+                    break;
+                default:
+                    if (hidden == true) {
+                        engines[e].expose(row, column);
+                    }
+                    break;
+                }
+                if (engines[e].getState(row, column) !=
+                                    engines[0].getState(row, column)) {
+                    System.out.println("**** ERROR:  " + engines[e] +
+                                       " differs at " + row + "x" +
+                                       column);
+                    ++errors;
+                }
+            }
+        }
+        for (i = 1; (i < 3); ++i) {
+            if ((engines[i].getBombCount() != engines[0].getBombCount()) ||
+                (engines[i].getHiddenCount() !=
+                                        engines[0].getHiddenCount()) ||
+                (engines[i].getFlagCount() != engines[0].getFlagCount()) ||
+                (engines[i].getMarkCount() != engines[0].getMarkCount()) ||
+                (engines[i].getWrongFlagCount() !=
+                                        engines[0].getWrongFlagCount())) {
+                System.out.println("**** ERROR:  " + engines[i] +
+                                   " counts differ from " + engines[0]);
+                ++errors;
+            }
+        }
+
+        /*
+         *  Field and SparseField say exactly which cells an expose
+         *  changed, whether the opening was labeled or flood
+         *  filled, and the rest fall back on -1 for an opening.
+         *  Too small a buffer always falls back.
+         */
+        for (i = 0; (i < 5); ++i) {
+            long    budget;
+
+            budget = (i == 2) ? 2000 : ((i == 3) ? 0 : Long.MAX_VALUE);
+            oldThreshold = Field.getLabelThreshold();
+            if (i == 1) {
+                Field.setLabelThreshold(0);
+            }
+            errors += changedTest(create(60, 150, 8L + i, budget),
+                                  create(60, 150, 8L + i, budget),
+                                  new int[(i == 4) ? 6 : (2 * 3600)],
+                                  (i < 3));
+            Field.setLabelThreshold(oldThreshold);
+        }
+
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}
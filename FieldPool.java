@@ -0,0 +1,364 @@
+package minesweeper;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ *  {@code FieldPool} lays out mine fields ahead of time on a
+ *  background thread, so starting a new game just takes one that's
+ *  already built.  The fields have the default size and bomb count
+ *  {@code Field} has when they're built, and when the defaults
+ *  change the fields built for the old ones are thrown away.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+final class FieldPool {
+    private final int                   capacity;
+    private final long                  budget;
+    private final ExecutorService       builder;
+    /*
+     *  The fields built or being built for the current defaults,
+     *  oldest first.  Everything below is guarded by the pool.
+     */
+    private final Deque<Future<FieldEngine>>    fields  =
+                                    new ArrayDeque<Future<FieldEngine>>();
+    private int                         size;
+    private int                         bombCount;
+    private int                         firstClick;
+    /*
+     *  Bumped whenever the defaults change, so fields that were
+     *  queued for the old ones are never built.
+     */
+    private long                        generation;
+    /*
+     *  How many fields have been built, and how many of them
+     *  weren't built by the pool's thread, for the unit test.
+     */
+    private int                         built;
+    private int                         builtByCaller;
+
+    /**
+     *  Construct a pool that keeps up to the given number of fields
+     *  ready and start building them.
+     *  @param capacity how many fields to keep ready
+     */
+    FieldPool(int capacity)
+    {
+        this.capacity = capacity;
+
+        /*
+         *  The fields in the pool and the one being played share
+         *  half of the memory the virtual machine may use.
+         */
+        budget = Runtime.getRuntime().maxMemory() / (2 * (capacity + 1));
+        builder = Executors.newSingleThreadExecutor((task) -> {
+                Thread      thread;
+
+                thread = new Thread(task, "FieldPool");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return(thread);
+            });
+        synchronized (this) {
+            size = Field.getDefaultSize();
+            bombCount = Field.getDefaultBombCount();
+            firstClick = Field.getFirstClick();
+            fill();
+        }
+    }
+
+    /**
+     *  Take a field with the current default size and bomb count
+     *  and start building another to replace it.  If none is ready
+     *  this waits for the one being built, without holding up the
+     *  pool, and only builds one itself when the pool can't.
+     *  @return the field
+     */
+    FieldEngine     take()
+    {
+        int                     forSize;
+        int                     forBombCount;
+        FieldEngine             field;
+        Future<FieldEngine>     next;
+
+        synchronized (this) {
+            defaultsChanged();
+            next = fields.poll();
+            forSize = size;
+            forBombCount = bombCount;
+            fill();
+        }
+        if (next == null) {
+            return(build(forSize, forBombCount));
+        }
+
+        try {
+            field = next.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return(build(forSize, forBombCount));
+        } catch (ExecutionException | CancellationException exception) {
+            return(build(forSize, forBombCount));
+        }
+        if (field == null) {
+            /*
+             *  The defaults changed while we waited, so the field
+             *  was never built.  Take one for the new defaults.
+             */
+            return(take());
+        }
+
+        return(field);
+    }
+
+    /**
+     *  Throw away the fields that are ready if the default size,
+     *  bomb count or first click has changed since they were built,
+     *  and start building fields for the new defaults.
+     */
+    synchronized void   defaultsChanged()
+    {
+        if ((size == Field.getDefaultSize()) &&
+            (bombCount == Field.getDefaultBombCount()) &&
+            (firstClick == Field.getFirstClick())) {
+            return;
+        }
+
+        size = Field.getDefaultSize();
+        bombCount = Field.getDefaultBombCount();
+        firstClick = Field.getFirstClick();
+        ++generation;
+        fields.clear();
+        fill();
+    }
+
+    /**
+     *  Return how many fields are ready to be taken.
+     *  @return the number of fields
+     */
+    synchronized int    getReadyCount()
+    {
+        int     count;
+
+        count = 0;
+        for (Future<FieldEngine> field : fields) {
+            if ((field.isDone() == true) &&
+                (field.isCancelled() == false)) {
+                ++count;
+            }
+        }
+
+        return(count);
+    }
+
+    /**
+     *  Stop building fields.  Fields that were never started are
+     *  given up on, so nobody waits for them.
+     */
+    void        shutdown()
+    {
+        builder.shutdownNow();
+        synchronized (this) {
+            for (Future<FieldEngine> field : fields) {
+                field.cancel(false);
+            }
+        }
+    }
+
+    /*
+     *  Build a field of the given size and bomb count from a new
+     *  seed.
+     */
+    private FieldEngine build(int size, int bombCount)
+    {
+        synchronized (this) {
+            ++built;
+            if (Thread.currentThread().getName().equals("FieldPool") ==
+                                                                false) {
+                ++builtByCaller;
+            }
+        }
+        return(FieldEngine.create(size, bombCount,
+                                  ThreadLocalRandom.current().nextLong(),
+                                  budget));
+    }
+
+    /*
+     *  Start building fields until there are enough ready or on
+     *  their way.  Called with the pool locked.  A field queued for
+     *  defaults that have since changed isn't built, and comes back
+     *  as null.
+     */
+    private void        fill()
+    {
+        while (fields.size() < capacity) {
+            long    forGeneration;
+            int     forSize;
+            int     forBombCount;
+
+            forGeneration = generation;
+            forSize = size;
+            forBombCount = bombCount;
+            try {
+                fields.add(builder.submit(() -> {
+                        synchronized (this) {
+                            if (forGeneration != generation) {
+                                return(null);
+                            }
+                        }
+
+                        return(build(forSize, forBombCount));
+                    }));
+            } catch (RejectedExecutionException exception) {
+                /*
+                 *  The pool's been shut down.
+                 */
+                return;
+            }
+        }
+    }
+
+    /*
+     *  Wait up to a few seconds for the pool to have the given
+     *  number of fields ready.
+     */
+    private boolean     waitFor(int count) throws InterruptedException
+    {
+        int     tries;
+
+        for (tries = 0; (tries < 500); ++tries) {
+            if (getReadyCount() >= count) {
+                return(true);
+            }
+            Thread.sleep(10);
+        }
+
+        return(false);
+    }
+
+    /**
+     *  Performs a unit test on the {@code FieldPool} class by taking
+     *  fields from it while changing the defaults.
+     *  @param args arguments to the unit test
+     *  @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws InterruptedException
+    {
+        int             errors;
+        int             oldSize;
+        int             oldBombCount;
+        int             i;
+        FieldPool       pool;
+        FieldEngine     field;
+
+        errors = 0;
+        oldSize = Field.getDefaultSize();
+        oldBombCount = Field.getDefaultBombCount();
+        Field.setDefaultSize(40);
+        Field.setDefaultBombCount(200);
+        pool = new FieldPool(2);
+
+        if (pool.waitFor(2) == false) {
+            System.out.println("**** ERROR:  the pool never filled");
+            ++errors;
+        }
+        field = pool.take();
+        if ((field.getSize() != 40) || (field.getBombCount() != 200) ||
+            (pool.getReadyCount() != 1)) {
+            System.out.println("**** ERROR:  took " + field + " with " +
+                               pool.getReadyCount() + " left");
+            ++errors;
+        }
+        if (pool.waitFor(2) == false) {
+            System.out.println("**** ERROR:  the pool never refilled");
+            ++errors;
+        }
+        if (field.getSeed() == pool.take().getSeed()) {
+            System.out.println("**** ERROR:  two fields share a seed");
+            ++errors;
+        }
+
+        /*
+         *  Fields built for the old defaults are thrown away.
+         */
+        Field.setDefaultSize(25);
+        Field.setDefaultBombCount(-1);
+        field = pool.take();
+        if (field.getSize() != 25) {
+            System.out.println("**** ERROR:  took " + field +
+                               " after the defaults changed");
+            ++errors;
+        }
+        if (pool.waitFor(2) == false) {
+            System.out.println("**** ERROR:  the pool never refilled" +
+                               " for the new defaults");
+            ++errors;
+        }
+        field = pool.take();
+        if (field.getSize() != 25) {
+            System.out.println("**** ERROR:  the pool built " + field +
+                               " for the old defaults");
+            ++errors;
+        }
+
+        /*
+         *  So are fields built for another first click, and the new
+         *  ones keep the first click clear of bombs.
+         */
+        Field.setDefaultBombCount(500);
+        pool.defaultsChanged();
+        if (pool.waitFor(2) == false) {
+            System.out.println("**** ERROR:  the pool never refilled" +
+                               " for 500 bombs");
+            ++errors;
+        }
+        Field.setFirstClick(Field.firstClickSafe);
+        for (i = 0; (i < 5); ++i) {
+            field = pool.take();
+            field.expose(12, 12);
+            if (field.getState(12, 12) == Field.bombState) {
+                System.out.println("**** ERROR:  the pool built " +
+                                   field + " for the old first click");
+                ++errors;
+            }
+        }
+        Field.setFirstClick(Field.firstClickAnywhere);
+        pool.shutdown();
+
+        /*
+         *  Taking a field before any is ready waits for the one on
+         *  its way instead of building another, and a field queued
+         *  for the old defaults is never built.
+         */
+        Field.setDefaultSize(1500);
+        Field.setDefaultBombCount(300000);
+        pool = new FieldPool(1);
+        field = pool.take();
+        if ((pool.waitFor(1) == false) || (pool.built != 2) ||
+            (pool.builtByCaller != 0)) {
+            System.out.println("**** ERROR:  taking the first field" +
+                               " built " + pool.built + " fields, " +
+                               pool.builtByCaller + " itself");
+            ++errors;
+        }
+        pool.shutdown();
+        pool = new FieldPool(2);
+        Field.setDefaultSize(30);
+        pool.defaultsChanged();
+        if ((pool.waitFor(2) == false) || (pool.built > 3) ||
+            (pool.take().getSize() != 30)) {
+            System.out.println("**** ERROR:  built " + pool.built +
+                               " fields after the defaults changed");
+            ++errors;
+        }
+        pool.shutdown();
+
+        Field.setDefaultSize(oldSize);
+        Field.setDefaultBombCount(oldBombCount);
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}
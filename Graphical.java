@@ -20,6 +20,10 @@ public class Graphical {
 	 */
     public static void main(String arg[])
     {
+        /*
+         *  Never lose on the first click.
+         */
+        Field.setFirstClick(Field.firstClickOpening);
         EventQueue.invokeLater(() -> {
                 FieldFrame      frame;
 
@@ -35,7 +39,7 @@ public class Graphical {
 /**
  *  {@code FieldFrame} is the class that contains the {@code JFrame}
  *  of the field.
- *  @version 2021031800
+ *  @version 2026101700
  *  @author Trevor Watts
  */
 class FieldFrame extends JFrame {
@@ -43,6 +47,7 @@ class FieldFrame extends JFrame {
     private JButton     	startStopButton;
     private SettingsDialog	settingsDialog;
     private JButton			newGame;
+    private FieldComponent      fieldComponent;
 
 	/**
 	 *  Constructs the frame to layout the game
@@ -81,14 +86,15 @@ class FieldFrame extends JFrame {
         newGame = new JButton("New Game");
 
         /*
-         *  Add the JComponent that displays our field.
+         *  Add the JComponent that displays our field, in a scroll
+         *  pane for fields too big for the screen.
          */
         constraints = new GridBagConstraints();
         constraints.gridx = 0;
         constraints.gridy = 1;
-        panel.add(new FieldComponent(this, elapsedSecondsLabel,
-                                     startStopButton, newGame),
-                  constraints);
+        fieldComponent = new FieldComponent(this, elapsedSecondsLabel,
+                                            startStopButton, newGame);
+        panel.add(new JScrollPane(fieldComponent), constraints);
 
         /*
          *	Add button panel to the bottom of panel
@@ -129,6 +135,7 @@ class FieldFrame extends JFrame {
 				}
 
 				settingsDialog.setVisible(true);
+				fieldComponent.settingsChanged();
 			});
 		menuBar.add(settings);
 
@@ -143,12 +150,44 @@ class FieldFrame extends JFrame {
 
 /**
  *  {@code FieldComponent} is the class that contains the
- *  {@code JComponent} of the field.
- *  @version 2021032100
+ *  {@code JComponent} of the field.  It paints the whole field
+ *  itself, a square of {@code cellSize} pixels for each cell, and
+ *  one mouse listener works out which cell was clicked, so a big
+ *  field costs no more components than a small one.  Only the
+ *  cells inside the clip are painted, so inside a scroll pane a
+ *  big field paints no more than what's showing.
+ *  <p>
+ *  Moves mark the cells they changed dirty, and the dirty cells
+ *  are repainted at most once a frame, so a flag costs the same to
+ *  show whatever the size of the field.  Painting only reads the
+ *  field.
+ *  @version 2026101700
  *  @author Trevor Watts
  */
-class FieldComponent extends JComponent {
-    private Field       field;
+class FieldComponent extends JComponent implements Scrollable {
+    /*
+     *  How many pixels on a side each cell takes, and at most how
+     *  many cells on a side to show before scrolling.
+     */
+    private static final int    cellSize        = 26;
+    private static final int    visibleCells    = 30;
+    /*
+     *  How long to gather dirty cells before painting them, about
+     *  a frame.
+     */
+    private static final int    frameMillis     = 16;
+
+    private static final Color  hiddenColor     = new Color(0xc0c0c0);
+    private static final Color  exposedColor    = new Color(0xe8e8e8);
+    private static final Color  gridColor       = new Color(0x909090);
+    private static final Color  explodedColor   = Color.RED;
+
+    private FieldEngine field;
+    /*
+     *  Fields laid out ahead of time so a new game doesn't wait
+     *  for one.
+     */
+    private FieldPool   fieldPool;
     private Font        monospaceFont;
     private java.util.Timer     tickTimer;
     private JButton     startStopButton;
@@ -156,8 +195,33 @@ class FieldComponent extends JComponent {
     private boolean     gameOver;
     private int         elapsedSeconds;
     private JLabel      elapsedSecondsLabel;
-    private JButton		newGame;
-	private JButton     buttonField[][];
+    private JButton     newGame;
+    /*
+     *  The bomb they stepped on, or -1 when they haven't.
+     */
+    private int         explodedRow;
+    private int         explodedColumn;
+    /*
+     *  Where a move writes the cells it changed.
+     */
+    private final int   changed[]       = new int[2 * 1024];
+    /*
+     *  The rows and columns bounding the cells that have changed
+     *  since they were last painted, empty when the top is below
+     *  the bottom, and what paints them a frame after the first.
+     */
+    private int         dirtyTop;
+    private int         dirtyLeft;
+    private int         dirtyBottom;
+    private int         dirtyRight;
+    private javax.swing.Timer   frameTimer;
+
+    /*
+     *  What a cell displays for each value getState() returns.
+     */
+    private static final String displayText[]   =
+        {" ", "1", "2", "3", "4", "5", "6", "7", "8",
+         Bomb.myType.substring(0, 1), " ", Cell.flag, Cell.mark};
 
     /*
      *  This class is so our timer has something to do.
@@ -177,71 +241,107 @@ class FieldComponent extends JComponent {
         }
     }
 
+    /**
+     *  Let the component know the default size or bomb count may
+     *  have changed, so it can start laying out fields for them.
+     */
+    void settingsChanged()
+    {
+        fieldPool.defaultsChanged();
+    }
+
     /*
-     *	creates a new instance of the game
+     *  Creates a new instance of the game.
      */
     private void newGame(FieldFrame ourFrame)
     {
-		int     size;
-		int     row;
+        int     oldSize;
 
-		/*
-		 *  Assume the game is not over
-		 *  and reinitialize variables back to default.
-		 */
-		paused = true;
-		startStopButton.setText("Start");
-		gameOver = false;
-		elapsedSeconds = 0;
-		elapsedSecondsLabel.setText("0 seconds");
+        /*
+         *  Assume the game is not over
+         *  and reinitialize variables back to default.
+         */
+        paused = true;
+        startStopButton.setText("Start");
+        gameOver = false;
+        elapsedSeconds = 0;
+        elapsedSecondsLabel.setText("0 seconds");
+        explodedRow = -1;
+        explodedColumn = -1;
 
-		/*
-		 *  Create a field.
-		 */
-		field = new Field();
-		removeAll();
-		/*
-		 *  Figure out how big the field is, layout the grid for
-		 *  buttons and allocate the array that holds the buttons.
-		 */
-		size = field.getSize();
-		setLayout(new GridLayout(size, size));
-		buttonField = new JButton[size][size];
-		/*
-		 *  Instantiate a button for each cell.
-		 */
-		for (row = 0; (row < size); ++row) {
-			int         column;
-
-			for (column = 0; (column < size); ++column) {
-				char    displayChar;
-
-				/*
-				 *  Figure out what should be displayed for
-				 *  this cell.
-				 */
-				displayChar = field.getType(row, column).charAt(0);
-				if ((displayChar == '0') ||
-					(displayChar == Cell.unmark.charAt(0))) {
-					/*
-					 *  Make cells with no adjacent bombs and
-					 *  unmarked cells blank.
-					 */
-					displayChar = ' ';
-				}
-				/*
-				 *  Instantiate and configure this button.
-				 */
-				buttonField[row][column] =
-								new JButton("" + displayChar);
-				buttonField[row][column].
-					   addMouseListener(new MouseHandler(row, column));
-				buttonField[row][column].setFont(monospaceFont);
-				add(buttonField[row][column]);
-			}
+        /*
+         *  Take a field.  Only a field of another size needs the
+         *  frame laid out again.
+         */
+        oldSize = (field == null) ? -1 : field.getSize();
+        field = fieldPool.take();
+        if (field.getSize() != oldSize) {
+            revalidate();
+            ourFrame.pack();
+        }
+        allDirty();
+    }
+
+    /*
+     *  Mark a cell as needing to be painted again and make sure a
+     *  frame is coming to paint it.
+     */
+    private void        dirty(int row, int column)
+    {
+        dirtyTop = Math.min(dirtyTop, row);
+        dirtyLeft = Math.min(dirtyLeft, column);
+        dirtyBottom = Math.max(dirtyBottom, row);
+        dirtyRight = Math.max(dirtyRight, column);
+        if (frameTimer.isRunning() == false) {
+            frameTimer.start();
         }
-		ourFrame.pack();
-	}
+    }
+
+    /*
+     *  Mark the whole field as needing to be painted again.
+     */
+    private void        allDirty()
+    {
+        dirty(0, 0);
+        dirty(field.getSize() - 1, field.getSize() - 1);
+    }
+
+    /*
+     *  Mark the cells a move reported changing as dirty, or the
+     *  whole field when it couldn't say.
+     */
+    private void        dirty(int count)
+    {
+        int     i;
+
+        if (count < 0) {
+            allDirty();
+            return;
+        }
+        for (i = 0; (i < count); ++i) {
+            dirty(changed[i * 2], changed[(i * 2) + 1]);
+        }
+    }
+
+    /*
+     *  The frame is up, so ask Swing to paint the cells that have
+     *  changed since the last one.  Swing paints only the part of
+     *  them that's showing.
+     */
+    private void        paintDirty()
+    {
+        if (dirtyTop > dirtyBottom) {
+            return;
+        }
+
+        repaint(dirtyLeft * cellSize, dirtyTop * cellSize,
+                (dirtyRight - dirtyLeft + 1) * cellSize,
+                (dirtyBottom - dirtyTop + 1) * cellSize);
+        dirtyTop = Integer.MAX_VALUE;
+        dirtyLeft = Integer.MAX_VALUE;
+        dirtyBottom = -1;
+        dirtyRight = -1;
+    }
 
     /*
      *  Start ticking.
@@ -337,78 +437,74 @@ class FieldComponent extends JComponent {
     }
 
     /*
-     *  This is the class that manages a button.
+     *  This is the class that turns clicks on the field into
+     *  moves on the cell under the mouse.
      */
     private class MouseHandler extends MouseAdapter
     {
-        private int     row;
-        private int     column;
-        private int     whichMark;
-
-        public MouseHandler(int row, int column)
-        {
-            /*
-             *  Remember what button we're associated with.
-             */
-            this.row = row;
-            this.column = column;
-        }
-
         /*
          *  What to do when the mouse buttons are clicked.
          */
         public void mouseClicked(MouseEvent event)
         {
+            int     row;
+            int     column;
+            int     state;
+
             if (gameOver == true) {
                 return;
             }
 
-            if (event.getButton() == MouseEvent.BUTTON1) {
-                String  status;
+            row = event.getY() / cellSize;
+            column = event.getX() / cellSize;
+            if ((event.getX() < 0) || (event.getY() < 0) ||
+                (row >= field.getSize()) || (column >= field.getSize())) {
+                return;
+            }
 
+            state = field.getState(row, column);
+            if (event.getButton() == MouseEvent.BUTTON1) {
                 /*
-                 *  Left button pressed.  Expose the associated
-                 *  cell.  The method tells us if the game is
-                 *  over.
+                 *  Left button pressed.  Expose the cell.  The
+                 *  game's over once the field has a status.
                  */
-                gameOver = gameOver || field.expose(row, column);
-                if ((status = field.getStatus()) != null) {
-                    if (status.startsWith("Boom") == true) {
-                        /*
-                         *  The player exposed a bomb.
-                         */
-                        buttonField[row][column].
-                                        setBackground(Color.RED);
-                    }
+                dirty(field.expose(row, column, changed));
+                if (field.getState(row, column) == Field.bombState) {
+                    /*
+                     *  The player exposed a bomb.
+                     */
+                    explodedRow = row;
+                    explodedColumn = column;
                 }
-            } else if (whichMark == 0) {
+                if (field.getStatus() != null) {
+                    /*
+                     *  When the game is over expose everything.
+                     */
+                    gameOver = true;
+                    field.exposeAll();
+                    allDirty();
+                }
+            } else if (state == Field.hiddenState) {
                 /*
                  *  Right button pressed.
                  *  The cell has no mark so flag it.
                  */
-                field.flag(row, column);
-                whichMark = 1;
-            } else if (whichMark == 1) {
+                dirty(field.flag(row, column, changed));
+            } else if (state == Field.flaggedState) {
                 /*
                  *  Right button pressed.
                  *  The cell is flagged so mark it.
                  */
-                field.mark(row, column);
-                whichMark = 2;
-            } else if (whichMark == 2) {
+                dirty(field.mark(row, column, changed));
+            } else if (state == Field.markedState) {
                 /*
                  *  Right button pressed.
                  *  The cell is marked so clear all marks.
                  */
-                field.clearMark(row, column);
-                whichMark = 0;
+                dirty(field.clearMark(row, column, changed));
             }
 
             startTicks();
-            /*
-             *  Tell Swing we changed something.
-             */
-            repaint();
         }
     }
 
@@ -426,26 +522,41 @@ class FieldComponent extends JComponent {
                           JButton startStopButton,
                           JButton newGame)
     {
-        int     size;
-        int     row;
-
         /*
          *  Some things to remember.
          */
         this.elapsedSecondsLabel = elapsedSecondsLabel;
         this.startStopButton = startStopButton;
         this.newGame = newGame;
+        startStopButton.setFocusPainted(false);
+        newGame.setFocusPainted(false);
 
         /*
          *  Assume the game is not over.
          */
         paused = true;
         gameOver = false;
+        explodedRow = -1;
+        explodedColumn = -1;
 
         /*
-         *  Create a font we'll use for our field.
+         *  Gather the cells that change for a frame before
+         *  painting them.
+         */
+        dirtyTop = Integer.MAX_VALUE;
+        dirtyLeft = Integer.MAX_VALUE;
+        dirtyBottom = -1;
+        dirtyRight = -1;
+        frameTimer = new javax.swing.Timer(frameMillis,
+                                           event -> paintDirty());
+        frameTimer.setRepeats(false);
+
+        /*
+         *  Create a font we'll use for our field.  Every cell is
+         *  painted over, so there's nothing underneath to show.
          */
         monospaceFont = new Font("Monospaced", Font.BOLD, 18);
+        setOpaque(true);
 
         /*
          *  Get a timer to keep track of elapsed time.
@@ -465,128 +576,184 @@ class FieldComponent extends JComponent {
         newGame.addActionListener(event -> newGame(ourFrame));
 
         /*
-         *  Listen for window events.
+         *  Listen for window events, and for clicks anywhere on
+         *  the field.
          */
         ourFrame.addWindowListener(new FrameActive());
+        addMouseListener(new MouseHandler());
 
         /*
          *  Create a field.
          */
-        field = new Field();
-        /*
-         *  Figure out how big the field is, layout the grid for
-         *  buttons and allocate the array that holds the buttons.
-         */
-        size = field.getSize();
-        setLayout(new GridLayout(size, size));
-        buttonField = new JButton[size][size];
-        /*
-         *  Instantiate a button for each cell.
-         */
-        for (row = 0; (row < size); ++row) {
-            int         column;
+        fieldPool = new FieldPool(2);
+        newGame(ourFrame);
+    }
 
-            for (column = 0; (column < size); ++column) {
-                char    displayChar;
+    /**
+     *  The field is as big as its cells.
+     *  @return the size of the whole field in pixels
+     */
+    public Dimension    getPreferredSize()
+    {
+        return(new Dimension(field.getSize() * cellSize,
+                             field.getSize() * cellSize));
+    }
 
-                /*
-                 *  Figure out what should be displayed for
-                 *  this cell.
-                 */
-                displayChar = field.getType(row, column).charAt(0);
-                if ((displayChar == '0') ||
-                    (displayChar == Cell.unmark.charAt(0))) {
-                    /*
-                     *  Make cells with no adjacent bombs and
-                     *  unmarked cells blank.
-                     */
-                    displayChar = ' ';
-                }
-                /*
-                 *  Instantiate and configure this button.
-                 */
-                buttonField[row][column] =
-                                new JButton("" + displayChar);
-                buttonField[row][column].
-                       addMouseListener(new MouseHandler(row, column));
-                buttonField[row][column].setFont(monospaceFont);
-                add(buttonField[row][column]);
+    /**
+     *  Show up to {@code visibleCells} cells on a side and scroll
+     *  to the rest.
+     *  @return the size of the view onto the field
+     */
+    public Dimension    getPreferredScrollableViewportSize()
+    {
+        int     side;
+
+        side = Math.min(field.getSize(), visibleCells) * cellSize;
+
+        return(new Dimension(side, side));
+    }
+
+    /**
+     *  Scroll a cell at a time.
+     *  @param visibleRect the part of the field showing
+     *  @param orientation which way to scroll
+     *  @param direction less than zero to scroll up or left
+     *  @return the number of pixels to scroll
+     */
+    public int  getScrollableUnitIncrement(Rectangle visibleRect,
+                                           int orientation, int direction)
+    {
+        return(cellSize);
+    }
+
+    /**
+     *  Scroll a view at a time, less a cell so there's something
+     *  to follow.
+     *  @param visibleRect the part of the field showing
+     *  @param orientation which way to scroll
+     *  @param direction less than zero to scroll up or left
+     *  @return the number of pixels to scroll
+     */
+    public int  getScrollableBlockIncrement(Rectangle visibleRect,
+                                            int orientation, int direction)
+    {
+        int     extent;
+
+        extent = (orientation == SwingConstants.VERTICAL) ?
+                        visibleRect.height : visibleRect.width;
+
+        return(Math.max(cellSize, extent - cellSize));
+    }
+
+    /**
+     *  The field keeps its own width however wide the view is.
+     *  @return false
+     */
+    public boolean      getScrollableTracksViewportWidth()
+    {
+        return(false);
+    }
+
+    /**
+     *  The field keeps its own height however tall the view is.
+     *  @return false
+     */
+    public boolean      getScrollableTracksViewportHeight()
+    {
+        return(false);
+    }
+
+    /*
+     *  Paint one cell: raised while it's hidden, flat once it's
+     *  exposed, with what getState() says it holds in the middle.
+     */
+    private void        paintCell(Graphics graphics, FontMetrics metrics,
+                                  int row, int column)
+    {
+        int     state;
+        int     x;
+        int     y;
+        String  text;
+
+        state = field.getState(row, column);
+        x = column * cellSize;
+        y = row * cellSize;
+        if (state > Field.bombState) {
+            graphics.setColor(hiddenColor);
+            graphics.fill3DRect(x, y, cellSize, cellSize, true);
+        } else {
+            if ((row == explodedRow) && (column == explodedColumn)) {
+                graphics.setColor(explodedColor);
+            } else {
+                graphics.setColor(exposedColor);
             }
+            graphics.fillRect(x, y, cellSize, cellSize);
+            graphics.setColor(gridColor);
+            graphics.drawRect(x, y, cellSize - 1, cellSize - 1);
+        }
+
+        text = displayText[state];
+        if (text.equals(" ") == false) {
+            graphics.setColor(Color.BLACK);
+            graphics.drawString(text,
+                                x + ((cellSize -
+                                      metrics.stringWidth(text)) / 2),
+                                y + ((cellSize - metrics.getHeight()) / 2) +
+                                        metrics.getAscent());
         }
-        newGame(ourFrame);
     }
 
     /**
-     *  Provide Swing a way to redraw our playing field.
+     *  Provide Swing a way to redraw our playing field.  Only the
+     *  cells the clip touches are painted, and nothing is changed.
      */
     public void paintComponent(Graphics graphics)
     {
-        int     size;
-        int     row;
-        Font    originalFont;
+        int             size;
+        int             row;
+        int             firstRow;
+        int             lastRow;
+        int             firstColumn;
+        int             lastColumn;
+        Rectangle       clip;
+        Font            originalFont;
+        Color           originalColor;
+        FontMetrics     metrics;
 
         /*
-         *  Remember the font we were given and install the font
-         *  we want for the game.
+         *  Work out which cells the clip touches.
          */
-        originalFont = graphics.getFont();
-        graphics.setFont(monospaceFont);
-
-        if (gameOver == true) {
-            /*
-             *  When the game is over expose everything.
-             */
-            field.exposeAll();
+        size = field.getSize();
+        clip = graphics.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, size * cellSize, size * cellSize);
         }
+        firstRow = Math.max(0, clip.y / cellSize);
+        lastRow = Math.min(size - 1, (clip.y + clip.height - 1) / cellSize);
+        firstColumn = Math.max(0, clip.x / cellSize);
+        lastColumn = Math.min(size - 1,
+                              (clip.x + clip.width - 1) / cellSize);
 
         /*
-         *  Figure out what should be displayed for
-         *  this cell.
+         *  Remember the font and color we were given and install
+         *  the font we want for the game.
          */
-        size = field.getSize();
-        for (row = 0; (row < size); ++row) {
-            int         column;
-
-            for (column = 0; (column < size); ++column) {
-                char    displayChar;
-
-                if (gameOver == true) {
-                    /*
-                     *  When the game's over disable the button.
-                     */
-                    buttonField[row][column].setEnabled(false);
-                }
+        originalFont = graphics.getFont();
+        originalColor = graphics.getColor();
+        graphics.setFont(monospaceFont);
+        metrics = graphics.getFontMetrics();
+        for (row = firstRow; (row <= lastRow); ++row) {
+            int     column;
 
-                displayChar = field.getType(row, column).charAt(0);
-                if (displayChar == Cell.unmark.charAt(0)) {
-                    /*
-                     *  Change unmarks to blanks.
-                     */
-                    displayChar = ' ';
-                } else if (Character.isDigit(displayChar) == true) {
-                    /*
-                     *  If we're displaying a digit, the cell
-                     *  must be exposed so disable the button.
-                     */
-                    buttonField[row][column].setEnabled(false);
-                    if (displayChar == '0') {
-                        /*
-                         *  Change cells with no adjacent bombs
-                         *  to blank.
-                         */
-                        displayChar = ' ';
-                    }
-                }
-                buttonField[row][column].setText("" + displayChar);
-                buttonField[row][column].setFocusPainted(false);
-                startStopButton.setFocusPainted(false);
-                newGame.setFocusPainted(false);
+            for (column = firstColumn; (column <= lastColumn); ++column) {
+                paintCell(graphics, metrics, row, column);
             }
         }
 
         /*
-         *  Restore the original font.
+         *  Restore the original font and color.
          */
         graphics.setFont(originalFont);
+        graphics.setColor(originalColor);
     }
 }
@@ -0,0 +1,1024 @@
+package minesweeper;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ *  {@code MappedField} is a mine field kept in a memory mapped file
+ *  rather than on the Java heap.  The cells are packed a byte each,
+ *  the same way {@code Field} packs them, after a small header
+ *  holding the size, bomb count, seed and the progress of the game.
+ *  Huge fields stay out of the garbage collector's way, the
+ *  operating system can page out the parts nobody's looking at, and
+ *  a field can be opened again after the program that created it
+ *  has stopped, even if it crashed, without laying it out again.
+ *  <p>
+ *  It's laid out exactly like a {@code Field} of the same size,
+ *  bomb count and seed, moves the same bombs out of the way of a
+ *  first click, and reads and plays the same way.  Counts
+ *  are {@code long}s since a field can have more cells than an
+ *  {@code int} can count.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+public class MappedField implements FieldEngine, Closeable {
+    private static final int    ADJACENT_MASK   = 0x0f;
+    private static final int    BOMB            = 0x10;
+    private static final int    EXPOSED         = 0x20;
+    private static final int    FLAGGED         = 0x40;
+    private static final int    MARKED          = 0x80;
+
+    /*
+     *  The header, a long each, ahead of the cells.
+     */
+    private static final long   magic           = 0x4d494e4553574550L;
+    private static final int    magicAt         = 0;
+    private static final int    sizeAt          = 8;
+    private static final int    bombCountAt     = 16;
+    private static final int    seedAt          = 24;
+    private static final int    hiddenAt        = 32;
+    private static final int    flaggedAt       = 40;
+    private static final int    markedAt        = 48;
+    private static final int    statusAt        = 56;
+    private static final int    headerSize      = 64;
+
+    /*
+     *  What's stored at statusAt.  Until the first click the bits
+     *  at firstClickShift hold where it may be, taken from the
+     *  default when the field was created, and they're cleared once
+     *  it's moved the bombs in its way.
+     */
+    private static final long   playing         = 0;
+    private static final long   lost            = 1;
+    private static final long   won             = 2;
+    private static final long   revealedBit     = 4;
+    private static final int    firstClickShift = 3;
+    private static final long   firstClickBits  = 3L << firstClickShift;
+
+    /*
+     *  The file is mapped in segments of this many bytes, since one
+     *  mapping can't be bigger than 2 GB.
+     */
+    private static int          segmentShift    = 30;
+
+    private final int               size;
+    private final long              bombCount;
+    private final long              seed;
+    private final FileChannel       channel;
+    private final MappedByteBuffer  segments[];
+    private final int               shift;
+    private final long              mask;
+
+    /*
+     *  The cells of an opening waiting to have their neighbors
+     *  exposed.
+     */
+    private long                    fillStack[]     = new long[64];
+
+    /*
+     *  Map a file that already holds a field, or has just been
+     *  sized to hold one, and read or write its header.
+     */
+    private MappedField(FileChannel channel, int size, long bombCount,
+                        long seed, boolean created) throws IOException
+    {
+        long    length;
+        int     i;
+
+        this.channel = channel;
+        shift = segmentShift;
+        mask = (1L << shift) - 1;
+        length = headerSize + (size * (long) size);
+        segments = new MappedByteBuffer[(int) ((length + mask) >>> shift)];
+        for (i = 0; (i < segments.length); ++i) {
+            long    start;
+
+            start = (long) i << shift;
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                                      start,
+                                      Math.min(1L << shift, length - start));
+        }
+
+        this.size = size;
+        this.bombCount = bombCount;
+        this.seed = seed;
+        if (created == true) {
+            putLong(sizeAt, size);
+            putLong(bombCountAt, bombCount);
+            putLong(seedAt, seed);
+            putLong(hiddenAt, size * (long) size);
+            putLong(flaggedAt, 0);
+            putLong(markedAt, 0);
+            putLong(statusAt, playing |
+                              ((long) Field.getFirstClick() <<
+                                                    firstClickShift));
+        }
+    }
+
+    /**
+     *  Create a field of the given size in the given file, laid out
+     *  from the given seed.  Anything already in the file is lost.
+     *  @param file where to keep the field
+     *  @param size number of cells on a side
+     *  @param bombCount number of bombs to randomly place in the
+     *  field, or a negative number to choose one from the seed
+     *  @param seed seed for laying out the bombs
+     *  @return the field
+     *  @throws IOException if the file can't be created or mapped
+     */
+    public static MappedField
+    create(File file, int size, long bombCount, long seed)
+        throws IOException
+    {
+        long            maxCells;
+        FileChannel     channel;
+        MappedField     created;
+
+        /*
+         *  Gotta have at least one cell.
+         */
+        size = Math.max(1, size);
+        maxCells = size * (long) size;
+        if (bombCount < 0) {
+            /*
+             *  Given a negative number of bombs, choose a
+             *  pseudo random number.
+             */
+            bombCount = new SplittableRandom(seed).nextLong(
+                                                (maxCells / 5) + 1) + 1;
+        } else if (bombCount > maxCells) {
+            bombCount = maxCells;
+        }
+
+        channel = FileChannel.open(file.toPath(),
+                                   StandardOpenOption.CREATE,
+                                   StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+        created = new MappedField(channel, size, bombCount, seed, true);
+        created.layOutBombs(new TileLayout(size, size, bombCount, seed));
+
+        /*
+         *  The file only says it holds a field once the field is
+         *  all there, in case we don't get that far.
+         */
+        created.putLong(magicAt, magic);
+        return(created);
+    }
+
+    /**
+     *  Open a field kept in the given file, just as it was left.
+     *  @param file where the field is kept
+     *  @return the field
+     *  @throws IOException if the file can't be mapped or doesn't
+     *  hold a field
+     */
+    public static MappedField
+    open(File file) throws IOException
+    {
+        long        size;
+        ByteBuffer  header;
+        FileChannel channel;
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+        header = ByteBuffer.allocate(headerSize);
+        while (header.hasRemaining() &&
+               (channel.read(header, header.position()) > 0)) {
+        }
+        size = header.getLong(sizeAt);
+        if ((header.hasRemaining() == true) ||
+            (header.getLong(magicAt) != magic) ||
+            (size <= 0) || (size > Integer.MAX_VALUE) ||
+            (channel.size() != headerSize + (size * size))) {
+            channel.close();
+            throw new IOException(file + " doesn't hold a mine field");
+        }
+
+        return(new MappedField(channel, (int) size,
+                               header.getLong(bombCountAt),
+                               header.getLong(seedAt), false));
+    }
+
+    /*
+     *  Read and write the longs of the header, which is all in the
+     *  first segment.
+     */
+    private long        getLong(int at)
+    {
+        return(segments[0].getLong(at));
+    }
+
+    private void        putLong(int at, long value)
+    {
+        segments[0].putLong(at, value);
+    }
+
+    /*
+     *  Read and write the cell at the given index.
+     */
+    private int         getCell(long index)
+    {
+        index += headerSize;
+        return(segments[(int) (index >>> shift)].get((int) (index & mask)));
+    }
+
+    private void        putCell(long index, int cell)
+    {
+        index += headerSize;
+        segments[(int) (index >>> shift)].put((int) (index & mask),
+                                              (byte) cell);
+    }
+
+    /*
+     *  Write a run of cells starting at the given index, which may
+     *  cross from one segment into the next.
+     */
+    private void        putCells(long index, byte from[])
+    {
+        int     done;
+
+        index += headerSize;
+        for (done = 0; (done < from.length); ) {
+            int     at;
+            int     length;
+
+            at = (int) (index & mask);
+            length = (int) Math.min(from.length - done, (mask + 1) - at);
+            segments[(int) (index >>> shift)].put(at, from, done, length);
+            done += length;
+            index += length;
+        }
+    }
+
+    /*
+     *  Lay out the bombs a row of tiles at a time and count them a
+     *  row of cells at a time, keeping only the bombs of the rows
+     *  around the one being counted, so the cells are written once
+     *  and in order however big the field is.
+     */
+    private void        layOutBombs(TileLayout layout)
+    {
+        int         tileColumns;
+        int         row;
+        int         tileColumn;
+        long        bits[][];
+        byte        above[];
+        byte        current[];
+        byte        below[];
+        byte        counted[];
+        SplitMix    random;
+
+        tileColumns = (int) layout.getTileColumns();
+        bits = new long[tileColumns][TileLayout.tileSize];
+        random = new SplitMix(seed);
+
+        /*
+         *  The bombs of each row have a zero on either end so the
+         *  cells on the edges can count their neighbors without
+         *  checking.
+         */
+        above = new byte[size + 2];
+        current = new byte[size + 2];
+        below = new byte[size + 2];
+        counted = new byte[size];
+        for (row = 0; (row <= size); ++row) {
+            byte    swap[];
+
+            if ((row < size) && ((row & (TileLayout.tileSize - 1)) == 0)) {
+                long    tileRow;
+
+                tileRow = row >>> TileLayout.tileShift;
+                for (tileColumn = 0; (tileColumn < tileColumns);
+                                                        ++tileColumn) {
+                    layout.layOutTile(tileRow, tileColumn,
+                                      (int) layout.bombsInTile(tileRow,
+                                                               tileColumn),
+                                      bits[tileColumn], random);
+                }
+            }
+
+            /*
+             *  Shift the rows up and fill in the new one below.
+             */
+            swap = above;
+            above = current;
+            current = below;
+            below = swap;
+            Arrays.fill(below, (byte) 0);
+            if (row < size) {
+                for (tileColumn = 0; (tileColumn < tileColumns);
+                                                        ++tileColumn) {
+                    long    word;
+
+                    for (word = bits[tileColumn][row &
+                                        (TileLayout.tileSize - 1)];
+                         (word != 0); word &= word - 1) {
+                        below[(tileColumn << TileLayout.tileShift) +
+                              Long.numberOfTrailingZeros(word) + 1] = 1;
+                    }
+                }
+            }
+
+            if (row > 0) {
+                int     column;
+
+                for (column = 1; (column <= size); ++column) {
+                    counted[column - 1] =
+                        (byte) ((above[column - 1] + above[column] +
+                                 above[column + 1] + current[column - 1] +
+                                 current[column + 1] + below[column - 1] +
+                                 below[column] + below[column + 1]) |
+                                ((current[column] != 0) ? BOMB : 0));
+                }
+                putCells((row - 1) * (long) size, counted);
+            }
+        }
+    }
+
+    /**
+     *  Write any changes out to the file.
+     */
+    public void force()
+    {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     *  Write any changes out and close the file.  The field can't
+     *  be used after it's closed.
+     *  @throws IOException if the file can't be closed
+     */
+    public void close() throws IOException
+    {
+        force();
+        channel.close();
+    }
+
+    /**
+     *  Return the size of the mine field.
+     *  @return Size of mine field.
+     */
+    public int  getSize()
+    {
+        return(size);
+    }
+
+    /**
+     *  Return the seed the field was laid out from.
+     *  @return the seed
+     */
+    public long getSeed()
+    {
+        return(seed);
+    }
+
+    /*
+     *  Return whether the whole field has been revealed.
+     */
+    private boolean     isRevealed()
+    {
+        return((getLong(statusAt) & revealedBit) != 0);
+    }
+
+    /**
+     *  Get the state of a specific cell, the same as
+     *  {@code Field.getState()}.
+     *  @param row The row of the cell whose state to get.
+     *  @param column The column of the cell whose state to get.
+     *  @return The state of the given cell or
+     *  {@code Field.invalidState} when the coordinates are off the
+     *  field.
+     */
+    public int  getState(int row, int column)
+    {
+        int     cell;
+
+        if ((row < 0) || (row >= size) || (column < 0) || (column >= size)) {
+            return(Field.invalidState);
+        }
+
+        cell = getCell((row * (long) size) + column);
+        if ((isRevealed() == true) || ((cell & EXPOSED) != 0)) {
+            return(((cell & BOMB) != 0) ?
+                            Field.bombState : (cell & ADJACENT_MASK));
+        }
+
+        if ((cell & FLAGGED) != 0) {
+            return(Field.flaggedState);
+        }
+        if ((cell & MARKED) != 0) {
+            return(Field.markedState);
+        }
+
+        return(Field.hiddenState);
+    }
+
+    /**
+     *  Expose all the cells in the field.  Like
+     *  {@code Field.exposeAll()} nothing is touched, the field just
+     *  answers as if every cell were exposed from now on.
+     */
+    public void exposeAll()
+    {
+        putLong(statusAt, (getLong(statusAt) & ~firstClickBits) |
+                          revealedBit);
+    }
+
+    /*
+     *  Expose the cell at the given index and count it as no
+     *  longer hidden.  The counts are kept in the header so they
+     *  survive with the field.
+     */
+    private void        exposeCell(long index, int cell)
+    {
+        putCell(index, cell | EXPOSED);
+        putLong(hiddenAt, getLong(hiddenAt) - 1);
+        if ((cell & FLAGGED) != 0) {
+            putLong(flaggedAt, getLong(flaggedAt) - 1);
+        }
+        if ((cell & MARKED) != 0) {
+            putLong(markedAt, getLong(markedAt) - 1);
+        }
+    }
+
+    /*
+     *  Expose an opening starting from a hidden cell with no
+     *  adjacent bombs.  Each cell is exposed when it's first
+     *  reached and only cells with no adjacent bombs go on the
+     *  stack, as in Field.
+     */
+    private void        exposeOpening(long index)
+    {
+        int     top;
+
+        exposeCell(index, getCell(index));
+        top = 0;
+        fillStack[top++] = index;
+        while (top > 0) {
+            long    row;
+            long    column;
+            long    nextRow;
+
+            index = fillStack[--top];
+            row = index / size;
+            column = index % size;
+            for (nextRow = Math.max(0, row - 1);
+                 (nextRow <= Math.min(size - 1, row + 1)); ++nextRow) {
+                long    nextColumn;
+
+                for (nextColumn = Math.max(0, column - 1);
+                     (nextColumn <= Math.min(size - 1, column + 1));
+                                                            ++nextColumn) {
+                    long    next;
+                    int     cell;
+
+                    next = (nextRow * size) + nextColumn;
+                    cell = getCell(next);
+                    if ((cell & EXPOSED) != 0) {
+                        continue;
+                    }
+
+                    exposeCell(next, cell);
+                    if ((cell & ADJACENT_MASK) != 0) {
+                        continue;
+                    }
+
+                    if (top == fillStack.length) {
+                        fillStack = Arrays.copyOf(fillStack, top * 2);
+                    }
+                    fillStack[top++] = next;
+                }
+            }
+        }
+    }
+
+    /*
+     *  Return how many of the neighbors of a cell are bombs.
+     */
+    private int         countBombs(long row, long column)
+    {
+        int     count;
+        long    nextRow;
+
+        count = 0;
+        for (nextRow = Math.max(0, row - 1);
+             (nextRow <= Math.min(size - 1, row + 1)); ++nextRow) {
+            long    nextColumn;
+
+            for (nextColumn = Math.max(0, column - 1);
+                 (nextColumn <= Math.min(size - 1, column + 1));
+                                                        ++nextColumn) {
+                if (((nextRow != row) || (nextColumn != column)) &&
+                    ((getCell((nextRow * size) + nextColumn) & BOMB) != 0)) {
+                    ++count;
+                }
+            }
+        }
+
+        return(count);
+    }
+
+    /*
+     *  Count the bombs next to each neighbor of a cell again from
+     *  the bomb bits.
+     */
+    private void        recountNeighbors(long row, long column)
+    {
+        long    nextRow;
+
+        for (nextRow = Math.max(0, row - 1);
+             (nextRow <= Math.min(size - 1, row + 1)); ++nextRow) {
+            long    nextColumn;
+
+            for (nextColumn = Math.max(0, column - 1);
+                 (nextColumn <= Math.min(size - 1, column + 1));
+                                                        ++nextColumn) {
+                long    next;
+
+                next = (nextRow * size) + nextColumn;
+                putCell(next, (getCell(next) & ~ADJACENT_MASK) |
+                              countBombs(nextRow, nextColumn));
+            }
+        }
+    }
+
+    /*
+     *  Move the bombs out of the clicked cell, and out of its
+     *  neighbors too when the first click has to open an opening,
+     *  to where TileLayout says, the same as a Field, and count
+     *  them again around where they were and where they went.
+     *  <p>
+     *  The moves come from the seed alone, the bomb bits are set
+     *  and cleared outright and the counts are taken from the bomb
+     *  bits, so a move cut short by a crash is just done again the
+     *  next time the field is clicked.  The status only says the
+     *  bombs have moved once the cells are written out.
+     */
+    private void        moveBombsFrom(int row, int column)
+    {
+        long    clear[];
+        long    moves[];
+        long    mode;
+        int     squares;
+        int     i;
+
+        mode = (getLong(statusAt) & firstClickBits) >>> firstClickShift;
+        clear = new long[18];
+        squares = 0;
+        clear[squares++] = row;
+        clear[squares++] = column;
+        if (mode == Field.firstClickOpening) {
+            for (i = 0; (i < 9); ++i) {
+                int     nextRow;
+                int     nextColumn;
+
+                nextRow = row + (i / 3) - 1;
+                nextColumn = column + (i % 3) - 1;
+                if ((i != 4) && (nextRow >= 0) && (nextRow < size) &&
+                    (nextColumn >= 0) && (nextColumn < size)) {
+                    clear[squares++] = nextRow;
+                    clear[squares++] = nextColumn;
+                }
+            }
+        }
+
+        moves = new TileLayout(size, size, bombCount, seed).moveBombs(
+                                                    clear, squares / 2);
+        for (i = 0; (i < moves.length); i += 4) {
+            long    from;
+            long    to;
+
+            from = (moves[i] * size) + moves[i + 1];
+            to = (moves[i + 2] * size) + moves[i + 3];
+            putCell(from, getCell(from) & ~BOMB);
+            putCell(to, getCell(to) | BOMB);
+        }
+        for (i = 0; (i < moves.length); i += 2) {
+            recountNeighbors(moves[i], moves[i + 1]);
+        }
+        force();
+        putLong(statusAt, getLong(statusAt) & ~firstClickBits);
+    }
+
+    /**
+     *  Expose a specific cell.
+     *  @param row The row of the cell to expose.
+     *  @param column The column of the cell to expose.
+     *  @return Is the game finished.
+     */
+    public boolean      expose(int row, int column)
+    {
+        long    index;
+        int     cell;
+
+        if ((row < 0) || (row >= size) || (column < 0) || (column >= size)) {
+            return(false);
+        }
+
+        index = (row * (long) size) + column;
+        if ((getLong(statusAt) & firstClickBits) != 0) {
+            moveBombsFrom(row, column);
+        }
+        cell = getCell(index);
+        if (isRevealed() == true) {
+            /*
+             *  Everything's already exposed.
+             */
+        } else if ((cell & EXPOSED) != 0) {
+            /*
+             *  Nothing more to expose.
+             */
+        } else if ((cell & (BOMB | ADJACENT_MASK)) == 0) {
+            exposeOpening(index);
+        } else {
+            exposeCell(index, cell);
+        }
+
+        if ((cell & BOMB) != 0) {
+            putLong(statusAt, (getLong(statusAt) & revealedBit) | lost);
+            return(true);
+        }
+
+        if (getLong(hiddenAt) == bombCount) {
+            putLong(statusAt, (getLong(statusAt) & revealedBit) | won);
+            return(true);
+        }
+
+        return(false);
+    }
+
+    /*
+     *  Set and clear bits of a cell, keeping the counts of flagged
+     *  and marked hidden cells up to date.
+     */
+    private void
+    changeCell(int row, int column, int set, int clear)
+    {
+        long    index;
+        int     cell;
+        int     changed;
+
+        if ((row < 0) || (row >= size) || (column < 0) || (column >= size)) {
+            return;
+        }
+
+        index = (row * (long) size) + column;
+        cell = getCell(index) & 0xff;
+        changed = (cell & ~clear) | set;
+        putCell(index, changed);
+        if ((cell & EXPOSED) != 0) {
+            return;
+        }
+
+        if (((cell ^ changed) & FLAGGED) != 0) {
+            putLong(flaggedAt, getLong(flaggedAt) +
+                               (((changed & FLAGGED) != 0) ? 1 : -1));
+        }
+        if (((cell ^ changed) & MARKED) != 0) {
+            putLong(markedAt, getLong(markedAt) +
+                              (((changed & MARKED) != 0) ? 1 : -1));
+        }
+    }
+
+    /**
+     *  Flag a specific cell.
+     *  @param row The row of the cell to flag.
+     *  @param column The column of the cell to flag.
+     */
+    public void flag(int row, int column)
+    {
+        changeCell(row, column, FLAGGED, MARKED);
+    }
+
+    /**
+     *  Mark a specific cell.
+     *  @param row The row of the cell to mark.
+     *  @param column The column of the cell to mark.
+     */
+    public void mark(int row, int column)
+    {
+        changeCell(row, column, MARKED, FLAGGED);
+    }
+
+    /**
+     *  Clear a specific cell's mark.
+     *  @param row The row of the cell to clear.
+     *  @param column The column of the cell to clear.
+     */
+    public void clearMark(int row, int column)
+    {
+        changeCell(row, column, 0, FLAGGED | MARKED);
+    }
+
+    /**
+     *  Return the number of bombs in the field.
+     *  @return The number of bombs in the field.
+     */
+    public long getBombCount()
+    {
+        return(bombCount);
+    }
+
+    /**
+     *  Return the number of cells that are still hidden.
+     *  @return The number of hidden cells.
+     */
+    public long getHiddenCount()
+    {
+        return((isRevealed() == true) ? 0 : getLong(hiddenAt));
+    }
+
+    /**
+     *  Return the number of hidden cells that have been flagged.
+     *  @return The number of flags placed.
+     */
+    public long getFlagCount()
+    {
+        return((isRevealed() == true) ? 0 : getLong(flaggedAt));
+    }
+
+    /**
+     *  Return the number of hidden cells that have been marked.
+     *  @return The number of marks placed.
+     */
+    public long getMarkCount()
+    {
+        return((isRevealed() == true) ? 0 : getLong(markedAt));
+    }
+
+    /**
+     *  Return the number of hidden cells that have been flagged
+     *  but aren't bombs.  Usually used when the game's over, since
+     *  it reads every cell.  Before the first click it's for the
+     *  bombs as they're laid out, the same as {@code Field}.
+     *  @return The number of wrongly flagged cells.
+     */
+    public long getWrongFlagCount()
+    {
+        long    index;
+        long    count;
+
+        count = 0;
+        for (index = 0; (index < size * (long) size); ++index) {
+            if ((getCell(index) & (FLAGGED | BOMB | EXPOSED)) == FLAGGED) {
+                ++count;
+            }
+        }
+
+        return(count);
+    }
+
+    /**
+     *  Return whether every cell that isn't a bomb is exposed.
+     *  @return Whether all the empty cells are exposed.
+     */
+    public boolean      isCleared()
+    {
+        if (isRevealed() == true) {
+            return(true);
+        }
+
+        return(getLong(hiddenAt) == bombCount);
+    }
+
+    /**
+     *  Return the status of the game.
+     *  null unless the game's over.
+     *  @return The status of the game.
+     */
+    public String       getStatus()
+    {
+        long    status;
+
+        status = getLong(statusAt) & ~revealedBit;
+        if (status == lost) {
+            return("Boom!");
+        }
+        if (status == won) {
+            return("Winner!");
+        }
+
+        return(null);
+    }
+
+    /**
+     *  @return {@code String} representation of object
+     */
+    public String toString()
+    {
+        return(getClass().getName() +
+               "[size=" + size +
+               ",bombCount=" + bombCount +
+               ",seed=" + seed + "]");
+    }
+
+    /*
+     *  Play the same moves on a Field and a MappedField laid out
+     *  from the same seed, close and open the mapped one again, and
+     *  make sure they read the same.
+     */
+    private static int
+    sameAsFieldTest(File file, int givenSize, int givenBombCount,
+                    long givenSeed) throws IOException
+    {
+        int             row;
+        int             column;
+        int             errorCount;
+        Field           field;
+        MappedField     mapped;
+
+        errorCount = 0;
+        field = new Field(givenSize, givenBombCount, givenSeed);
+        mapped = create(file, givenSize, givenBombCount, givenSeed);
+        System.out.println("Testing " + mapped + " against " + field);
+
+        /*
+         *  Before the first click a flag is wrong or not by the
+         *  bombs as they're laid out.
+         */
+        for (row = 0; (row < givenSize); row += 2) {
+            field.flag(row, givenSize - 1);
+            mapped.flag(row, givenSize - 1);
+        }
+        if (field.getWrongFlagCount() != mapped.getWrongFlagCount()) {
+            System.out.println("**** ERROR:  wrong flags differ from" +
+                               " Field before the first click");
+            ++errorCount;
+        }
+        for (row = 0; (row < givenSize); row += 2) {
+            field.clearMark(row, givenSize - 1);
+            mapped.clearMark(row, givenSize - 1);
+        }
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if (((row * 7) + column) % 11 == 0) {
+                    field.mark(row, column);
+                    mapped.mark(row, column);
+                }
+                if (((row * 3) + column) % 13 == 0) {
+                    field.flag(row, column);
+                    mapped.flag(row, column);
+                }
+                if ((field.getState(row, column) == Field.hiddenState) &&
+                    ((row + column) % 5 == 0)) {
+                    if (field.expose(row, column) !=
+                                mapped.expose(row, column)) {
+                        System.out.println("**** ERROR: Exposing " +
+                                           row + "x" + column +
+                                           " ends a different game");
+                        ++errorCount;
+                    }
+                }
+            }
+        }
+
+        /*
+         *  Pick up where we left off.
+         */
+        mapped.close();
+        mapped = open(file);
+        for (row = -1; (row <= givenSize); ++row) {
+            for (column = -1; (column <= givenSize); ++column) {
+                if (field.getState(row, column) !=
+                                    mapped.getState(row, column)) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column + " is " +
+                                       mapped.getState(row, column) +
+                                       " but Field has " +
+                                       field.getState(row, column));
+                    ++errorCount;
+                }
+            }
+        }
+        if ((field.getHiddenCount() != mapped.getHiddenCount()) ||
+            (field.getFlagCount() != mapped.getFlagCount()) ||
+            (field.getMarkCount() != mapped.getMarkCount()) ||
+            (field.getWrongFlagCount() != mapped.getWrongFlagCount()) ||
+            (field.getBombCount() != mapped.getBombCount()) ||
+            (Objects.equals(field.getStatus(), mapped.getStatus()) ==
+                                                                false)) {
+            System.out.println("**** ERROR:  counts differ from Field");
+            ++errorCount;
+        }
+
+        field.exposeAll();
+        mapped.exposeAll();
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if (field.getType(row, column).equals(
+                            mapped.getType(row, column)) == false) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column +
+                                       " has a different type");
+                    ++errorCount;
+                }
+            }
+        }
+        if (mapped.isCleared() == false) {
+            System.out.println("**** ERROR:  Revealed field should" +
+                               " be cleared");
+            ++errorCount;
+        }
+        mapped.close();
+
+        return(errorCount);
+    }
+
+    /**
+     *  Performs a unit test on the {@code MappedField} class by
+     *  comparing it with {@code Field}.
+     *  @param args arguments to the unit test
+     *  @throws IOException if the test file can't be used
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int             errors;
+        int             oldShift;
+        int             i;
+        File            file;
+        Field           field;
+        MappedField     reopened;
+
+        errors = 0;
+        file = File.createTempFile("minesweeper", ".field");
+        file.deleteOnExit();
+        errors += sameAsFieldTest(file, 1, 0, 1L);
+        errors += sameAsFieldTest(file, 30, 100, 2L);
+        errors += sameAsFieldTest(file, 200, 4000, 3L);
+
+        /*
+         *  Small segments so cells and rows cross from one segment
+         *  to the next.
+         */
+        oldShift = segmentShift;
+        segmentShift = 12;
+        errors += sameAsFieldTest(file, 333, 9000, 4L);
+        errors += sameAsFieldTest(file, 77, 0, 5L);
+        segmentShift = oldShift;
+
+        /*
+         *  A first click moves the same bombs out of its way, even
+         *  in a field closed and opened again before it.
+         */
+        Field.setFirstClick(Field.firstClickOpening);
+        errors += sameAsFieldTest(file, 30, 300, 6L);
+        errors += sameAsFieldTest(file, 200, 12000, 7L);
+        Field.setFirstClick(Field.firstClickSafe);
+        create(file, 40, 800, 8L).close();
+        field = new Field(40, 800, 8L);
+        Field.setFirstClick(Field.firstClickAnywhere);
+        reopened = open(file);
+
+        /*
+         *  Moving the bombs again, as after a crash before the
+         *  status was written, leaves the field the same.
+         */
+        reopened.moveBombsFrom(20, 20);
+        reopened.putLong(statusAt, reopened.getLong(statusAt) |
+                                   ((long) Field.firstClickSafe <<
+                                                    firstClickShift));
+        field.expose(20, 20);
+        reopened.expose(20, 20);
+        if ((reopened.getState(20, 20) == Field.bombState) ||
+            (reopened.getState(20, 20) != field.getState(20, 20)) ||
+            (reopened.getHiddenCount() != field.getHiddenCount())) {
+            System.out.println("**** ERROR:  first click on a field" +
+                               " opened again hit a bomb");
+            ++errors;
+        }
+        field.exposeAll();
+        reopened.exposeAll();
+        for (i = 0; (i < 40 * 40); ++i) {
+            if (reopened.getState(i / 40, i % 40) !=
+                                    field.getState(i / 40, i % 40)) {
+                System.out.println("**** ERROR: Position " + (i / 40) +
+                                   "x" + (i % 40) + " differs after" +
+                                   " the bombs moved twice");
+                ++errors;
+            }
+        }
+        reopened.close();
+
+        try {
+            Files.write(file.toPath(), new byte[100]);
+            open(file);
+            System.out.println("**** ERROR:  opened a file that" +
+                               " doesn't hold a field");
+            ++errors;
+        } catch (IOException e) {
+        }
+        file.delete();
+
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package minesweeper;
+
+import java.util.*;
+
+/**
+ *  {@code Openings} labels the openings of a laid out field.  An
+ *  opening is a connected group of cells with no adjacent bombs,
+ *  found with union find, together with the numbered cells around
+ *  it.  Exposing any cell of an opening exposes all of it, so with
+ *  the openings labeled that's a copy of a list of cells, with no
+ *  search of the neighbors and no cell visited twice.
+ *  <p>
+ *  Cells are given by their index in the field's padded array of
+ *  cells, and their neighbors come from the field's table of
+ *  neighbors, so any topology can be labeled.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+final class Openings {
+    /*
+     *  Marks a sentinel while collecting the numbered cells around
+     *  each opening.
+     */
+    private static final int    sentinel        = -2;
+
+    /*
+     *  The group each cell with no adjacent bombs is joined to
+     *  while labeling, and then the opening that last collected
+     *  each numbered cell.
+     */
+    private final int   parent[];
+    /*
+     *  The opening each cell with no adjacent bombs belongs to, or
+     *  -1 for any other cell.
+     */
+    private final int   openingOf[];
+    /*
+     *  The cells with no adjacent bombs sorted by opening while
+     *  labeling.  Kept, like the arrays below, so labeling the same
+     *  field again only grows them when it has to.
+     */
+    private int         emptyStart[]    = new int[16];
+    private int         emptyCells[]    = new int[16];
+    /*
+     *  The cells of opening k are openingCells[start[k]] up to, but
+     *  not including, openingCells[start[k + 1]], each cell with no
+     *  adjacent bombs followed by the numbered cells around it that
+     *  the opening hasn't collected yet.
+     */
+    private int         start[]         = new int[16];
+    private int         openingCells[]  = new int[16];
+    private int         count;
+    private int         largest;
+
+    /**
+     *  Make room to label the openings of fields of the given
+     *  number of padded cells.
+     *  @param length the number of padded cells
+     */
+    Openings(int length)
+    {
+        parent = new int[length];
+        openingOf = new int[length];
+    }
+
+    /**
+     *  Label the openings of a field.
+     *  @param cells the padded cells of the field
+     *  @param table the neighbors of each cell of the field
+     *  @param notEmpty bits of a cell that are set when it's a bomb
+     *  or has adjacent bombs
+     */
+    Openings(byte cells[], Topology.Table table, int notEmpty)
+    {
+        this(cells.length);
+        label(cells, table, notEmpty);
+    }
+
+    /*
+     *  Return the array if it holds at least the given number of
+     *  ints, or a bigger one if it doesn't.
+     */
+    private static int[]    atLeast(int array[], int length)
+    {
+        if (array.length >= length) {
+            return(array);
+        }
+
+        return(new int[Math.max(length, array.length * 2)]);
+    }
+
+    /**
+     *  Label the openings of a field, forgetting any labeled before.
+     *  The field has to have the number of padded cells these
+     *  openings were made for.
+     *  @param cells the padded cells of the field
+     *  @param table the neighbors of each cell of the field
+     *  @param notEmpty bits of a cell that are set when it's a bomb
+     *  or has adjacent bombs
+     */
+    void    label(byte cells[], Topology.Table table, int notEmpty)
+    {
+        int     size;
+        int     empties;
+        int     row;
+        int     i;
+        int     opening;
+        int     total;
+
+        size = table.size;
+
+        /*
+         *  Join each cell with no adjacent bombs to those of its
+         *  neighbors that come before it and have none either.
+         *  The root of each group is its lowest index.
+         */
+        Arrays.fill(parent, -1);
+        empties = 0;
+        for (row = 0; (row < size); ++row) {
+            int     index;
+            int     end;
+
+            index = table.index(row, 0);
+            for (end = index + size; (index < end); ++index) {
+                int     c;
+
+                if ((cells[index] & notEmpty) != 0) {
+                    continue;
+                }
+
+                ++empties;
+                parent[index] = index;
+                c = table.classOf(index);
+                for (i = table.start[c]; (i < table.start[c + 1]); ++i) {
+                    int     next;
+
+                    next = index + table.offset[i];
+                    if ((next < index) && (parent[next] >= 0)) {
+                        union(parent, index, next);
+                    }
+                }
+            }
+        }
+
+        /*
+         *  Number the openings in the order their roots come up.
+         *  A root always comes up before the rest of its opening.
+         */
+        Arrays.fill(openingOf, -1);
+        count = 0;
+        for (row = 0; (row < size); ++row) {
+            int     index;
+            int     end;
+
+            index = table.index(row, 0);
+            for (end = index + size; (index < end); ++index) {
+                int     root;
+
+                if (parent[index] < 0) {
+                    continue;
+                }
+
+                root = find(parent, index);
+                if (root == index) {
+                    openingOf[index] = count++;
+                } else {
+                    openingOf[index] = openingOf[root];
+                }
+            }
+        }
+
+        /*
+         *  Sort the cells with no adjacent bombs by opening.
+         */
+        emptyStart = atLeast(emptyStart, count + 1);
+        Arrays.fill(emptyStart, 0, count + 1, 0);
+        emptyCells = atLeast(emptyCells, empties);
+        for (i = 0; (i < cells.length); ++i) {
+            if (openingOf[i] >= 0) {
+                ++emptyStart[openingOf[i] + 1];
+            }
+        }
+        for (i = 0; (i < count); ++i) {
+            emptyStart[i + 1] += emptyStart[i];
+        }
+        for (i = 0; (i < cells.length); ++i) {
+            if (openingOf[i] >= 0) {
+                emptyCells[emptyStart[openingOf[i]]++] = i;
+            }
+        }
+        for (i = count; (i > 0); --i) {
+            emptyStart[i] = emptyStart[i - 1];
+        }
+        emptyStart[0] = 0;
+
+        /*
+         *  Collect the numbered cells around each opening after its
+         *  empty cells.  The parent array is no longer needed, so
+         *  it remembers which opening last collected each cell.
+         */
+        Arrays.fill(parent, sentinel);
+        for (row = 0; (row < size); ++row) {
+            Arrays.fill(parent, table.index(row, 0),
+                        table.index(row, 0) + size, -1);
+        }
+        start = atLeast(start, count + 1);
+        openingCells = atLeast(openingCells, empties * 2);
+        total = 0;
+        for (opening = 0; (opening < count); ++opening) {
+            int     empty;
+
+            start[opening] = total;
+            for (empty = emptyStart[opening];
+                 (empty < emptyStart[opening + 1]); ++empty) {
+                int     c;
+
+                /*
+                 *  Room for the cell and its eight neighbors at most.
+                 */
+                if ((total + 9) > openingCells.length) {
+                    openingCells = Arrays.copyOf(openingCells,
+                                                 openingCells.length * 2);
+                }
+                openingCells[total++] = emptyCells[empty];
+                c = table.classOf(emptyCells[empty]);
+                for (i = table.start[c]; (i < table.start[c + 1]); ++i) {
+                    int     next;
+
+                    next = emptyCells[empty] + table.offset[i];
+                    if ((openingOf[next] < 0) &&
+                        (parent[next] != opening) &&
+                        (parent[next] != sentinel)) {
+                        parent[next] = opening;
+                        openingCells[total++] = next;
+                    }
+                }
+            }
+        }
+        start[count] = total;
+
+        largest = largestOpening();
+    }
+
+    /*
+     *  Return the number of cells in the largest opening.
+     */
+    private int largestOpening()
+    {
+        int     i;
+        int     most;
+
+        most = 0;
+        for (i = 0; (i < count); ++i) {
+            most = Math.max(most, start[i + 1] - start[i]);
+        }
+
+        return(most);
+    }
+
+    /*
+     *  Find the root of a cell's group, halving the path to it.
+     */
+    private static int find(int parent[], int index)
+    {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+
+        return(index);
+    }
+
+    /*
+     *  Join the groups of two cells under the lower root.
+     */
+    private static void union(int parent[], int first, int second)
+    {
+        first = find(parent, first);
+        second = find(parent, second);
+        if (first < second) {
+            parent[second] = first;
+        } else if (second < first) {
+            parent[first] = second;
+        }
+    }
+
+    /**
+     *  Return the opening a cell with no adjacent bombs belongs to.
+     *  @param index the cell
+     *  @return the opening, or -1 if the cell has adjacent bombs
+     */
+    int openingOf(int index)
+    {
+        return(openingOf[index]);
+    }
+
+    /**
+     *  @param opening which opening
+     *  @return position of the first cell of the opening
+     */
+    int start(int opening)
+    {
+        return(start[opening]);
+    }
+
+    /**
+     *  @param opening which opening
+     *  @return position just past the last cell of the opening
+     */
+    int end(int opening)
+    {
+        return(start[opening + 1]);
+    }
+
+    /**
+     *  @param position position of a cell of some opening
+     *  @return the index of the cell
+     */
+    int cell(int position)
+    {
+        return(openingCells[position]);
+    }
+
+    /**
+     *  @return number of openings in the field
+     */
+    int getCount()
+    {
+        return(count);
+    }
+
+    /**
+     *  @return number of cells, including the numbered cells around
+     *  it, in the largest opening
+     */
+    int getLargest()
+    {
+        return(largest);
+    }
+
+    /**
+     *  Performs a unit test on the {@code Openings} class with a
+     *  small hand made field.
+     *  @param args arguments to the unit test
+     */
+    public static void main(String[] args)
+    {
+        int         errors;
+        int         size;
+        int         stride;
+        int         row;
+        byte        cells[];
+        Openings    openings;
+        /*
+         *  '0' has no adjacent bombs, anything else does.  There are
+         *  two openings, the top left one with 3 empty cells and 5
+         *  around it and the right one with 11 empty cells and 10
+         *  around it.  The 1 in the second row, third column
+         *  borders both.
+         */
+        String      pattern[]   = {"001100",
+                                   "011100",
+                                   "111000",
+                                   "111100",
+                                   "111100",
+                                   "111111"};
+
+        errors = 0;
+        size = pattern.length;
+        stride = size + 2;
+        cells = new byte[stride * stride];
+        for (row = 0; (row < size); ++row) {
+            int     column;
+
+            for (column = 0; (column < size); ++column) {
+                cells[((row + 1) * stride) + column + 1] =
+                        (byte) (pattern[row].charAt(column) - '0');
+            }
+        }
+
+        openings = new Openings(cells, Topology.square().table(size), 0x0f);
+        if (openings.getCount() != 2) {
+            System.out.println("**** ERROR:  " + openings.getCount() +
+                               " openings, should be 2");
+            ++errors;
+        } else {
+            if ((openings.end(0) - openings.start(0)) != 8) {
+                System.out.println("**** ERROR:  first opening has " +
+                                   (openings.end(0) - openings.start(0)) +
+                                   " cells, should be 8");
+                ++errors;
+            }
+            if ((openings.end(1) - openings.start(1)) != 21) {
+                System.out.println("**** ERROR:  second opening has " +
+                                   (openings.end(1) - openings.start(1)) +
+                                   " cells, should be 21");
+                ++errors;
+            }
+        }
+        if (openings.getLargest() != 21) {
+            System.out.println("**** ERROR:  largest opening " +
+                               openings.getLargest() + " should be 21");
+            ++errors;
+        }
+        if ((openings.openingOf(stride + 1) != 0) ||
+            (openings.openingOf((3 * stride) + 6) != 1) ||
+            (openings.openingOf((2 * stride) + 2) != -1)) {
+            System.out.println("**** ERROR:  cells are in the wrong" +
+                               " openings");
+            ++errors;
+        }
+
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package minesweeper;
+
+import java.util.*;
+
+/**
+ *  {@code RectangleIndex} counts the cells of a square field that
+ *  have some property, such as being hidden or flagged, in any
+ *  rectangle of the field.  Changing a cell and counting a
+ *  rectangle both take time proportional to the square of the log
+ *  of the size.
+ *  <p>
+ *  It's blocked to keep it small next to a field that takes a
+ *  byte a cell.  One two dimensional Fenwick tree counts the runs
+ *  of 64 cells along each row and another the runs of 64 cells
+ *  down each column, so each takes an {@code int} for every 64
+ *  cells.  A rectangle's count is the count of the runs it covers
+ *  from the trees plus, at each corner, a block smaller than 64 by
+ *  64 whose rows the field counts itself, a run at a time, which
+ *  is what a {@code Run} is for.
+ *  <p>
+ *  The cells are first given with {@code put()} and then the trees
+ *  are built in one pass with {@code build()}, which is quicker
+ *  than adding them one at a time.  {@code clear()} starts over
+ *  with the same arrays.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+final class RectangleIndex {
+    /**
+     *  Counts the cells with the property in part of a row, always
+     *  fewer than 64 of them.
+     */
+    interface Run {
+        /**
+         *  Count the cells with the property in part of a row.
+         *  @param row the row of the cells
+         *  @param column the first column of the cells
+         *  @param length how many cells to look at
+         *  @return the number of them with the property
+         */
+        int     count(int row, int column, int length);
+    }
+
+    private final int   size;
+    private final Run   run;
+    /*
+     *  How many runs of 64 cells make up a row or column, the
+     *  last of them maybe short.
+     */
+    private final int   runs;
+    /*
+     *  Row by row, each a Fenwick tree counted from zero.
+     *  rowTree has an entry for each run of each row, and
+     *  columnTree one for each column of each run of rows.
+     */
+    private final int   rowTree[];
+    private final int   columnTree[];
+
+    /**
+     *  Construct an index for a field of the given size with no
+     *  cells counted.
+     *  @param size number of cells on a side
+     *  @param run counts the cells in part of a row of the field
+     */
+    RectangleIndex(int size, Run run)
+    {
+        this.size = size;
+        this.run = run;
+        runs = (size + 63) >>> 6;
+        rowTree = new int[size * runs];
+        columnTree = new int[runs * size];
+    }
+
+    /**
+     *  Forget every cell, so they can be given again with
+     *  {@code put()} without allocating a new index.
+     */
+    void        clear()
+    {
+        Arrays.fill(rowTree, 0);
+        Arrays.fill(columnTree, 0);
+    }
+
+    /**
+     *  Count a cell before the index is built.
+     *  @param row the row of the cell
+     *  @param column the column of the cell
+     */
+    void        put(int row, int column)
+    {
+        ++rowTree[(row * runs) + (column >>> 6)];
+        ++columnTree[((row >>> 6) * size) + column];
+    }
+
+    /**
+     *  Turn the cells given with {@code put()} into the trees.
+     */
+    void        build()
+    {
+        build(rowTree, size, runs);
+        build(columnTree, runs, size);
+    }
+
+    /*
+     *  Build a Fenwick tree in place.  Each entry passes its sum on
+     *  to the next entry whose block covers it, first along each
+     *  row and then down each column.
+     */
+    private static void build(int tree[], int rows, int columns)
+    {
+        int     row;
+        int     column;
+
+        for (row = 0; (row < rows); ++row) {
+            for (column = 0; (column < columns); ++column) {
+                int     next;
+
+                next = column | (column + 1);
+                if (next < columns) {
+                    tree[(row * columns) + next] +=
+                                        tree[(row * columns) + column];
+                }
+            }
+        }
+        for (row = 0; (row < rows); ++row) {
+            int     next;
+
+            next = row | (row + 1);
+            if (next >= rows) {
+                continue;
+            }
+            for (column = 0; (column < columns); ++column) {
+                tree[(next * columns) + column] +=
+                                        tree[(row * columns) + column];
+            }
+        }
+    }
+
+    /**
+     *  Change the count of a cell.
+     *  @param row the row of the cell
+     *  @param column the column of the cell
+     *  @param delta how much to add to its count
+     */
+    void        add(int row, int column, int delta)
+    {
+        add(rowTree, size, runs, row, column >>> 6, delta);
+        add(columnTree, runs, size, row >>> 6, column, delta);
+    }
+
+    /*
+     *  Add to an entry of a Fenwick tree.
+     */
+    private static void add(int tree[], int rows, int columns,
+                            int row, int column, int delta)
+    {
+        int     i;
+
+        for (i = row; (i < rows); i |= i + 1) {
+            int     j;
+
+            for (j = column; (j < columns); j |= j + 1) {
+                tree[(i * columns) + j] += delta;
+            }
+        }
+    }
+
+    /*
+     *  Sum the entries of a Fenwick tree above the given row and
+     *  left of the given column.
+     */
+    private static int  sum(int tree[], int columns, int row, int column)
+    {
+        int     count;
+        int     i;
+
+        count = 0;
+        for (i = row - 1; (i >= 0); i = (i & (i + 1)) - 1) {
+            int     j;
+
+            for (j = column - 1; (j >= 0); j = (j & (j + 1)) - 1) {
+                count += tree[(i * columns) + j];
+            }
+        }
+
+        return(count);
+    }
+
+    /*
+     *  Count the cells above the given row and left of the given
+     *  column: the whole runs of each row left of the run the
+     *  column is in, then the whole runs of rows above the run the
+     *  row is in for the columns that are left, then the block at
+     *  the corner.
+     */
+    private int         before(int row, int column)
+    {
+        int     count;
+        int     left;
+        int     top;
+        int     i;
+
+        left = column & ~63;
+        top = row & ~63;
+        count = sum(rowTree, runs, row, column >>> 6) +
+                sum(columnTree, size, row >>> 6, column) -
+                sum(columnTree, size, row >>> 6, left);
+        if (column > left) {
+            for (i = top; (i < row); ++i) {
+                count += run.count(i, left, column - left);
+            }
+        }
+
+        return(count);
+    }
+
+    /**
+     *  Count the cells in a rectangle.  The parts of the rectangle
+     *  off the field are ignored.
+     *  @param row the top row of the rectangle
+     *  @param column the left column of the rectangle
+     *  @param rows the number of rows in the rectangle
+     *  @param columns the number of columns in the rectangle
+     *  @return the number of cells counted in the rectangle
+     */
+    int         count(int row, int column, int rows, int columns)
+    {
+        int     bottom;
+        int     right;
+
+        bottom = (int) Math.min(size, Math.max(0, (long) row + rows));
+        right = (int) Math.min(size, Math.max(0, (long) column + columns));
+        row = Math.max(0, Math.min(size, row));
+        column = Math.max(0, Math.min(size, column));
+        if ((bottom <= row) || (right <= column)) {
+            return(0);
+        }
+
+        return(before(bottom, right) - before(row, right) -
+               before(bottom, column) + before(row, column));
+    }
+
+    /**
+     *  Performs a unit test on the {@code RectangleIndex} class by
+     *  changing random cells and checking random rectangles
+     *  against a plain count.
+     *  @param args arguments to the unit test
+     */
+    public static void main(String[] args)
+    {
+        int                 errors;
+        int                 size;
+        int                 i;
+        RectangleIndex      index;
+        SplittableRandom    random;
+
+        errors = 0;
+        random = new SplittableRandom(2026L);
+        for (size = 1; (size < 300); size += 37) {
+            int     plain[][];
+
+            plain = new int[size][size];
+            index = new RectangleIndex(size, (row, column, length) -> {
+                    int     count;
+                    int     c;
+
+                    count = 0;
+                    for (c = column; (c < (column + length)); ++c) {
+                        count += plain[row][c];
+                    }
+
+                    return(count);
+                });
+            for (i = 0; (i < size * size / 3); ++i) {
+                int     row;
+                int     column;
+
+                row = random.nextInt(size);
+                column = random.nextInt(size);
+                ++plain[row][column];
+                index.put(row, column);
+            }
+            index.build();
+            if ((size % 2) == 0) {
+                /*
+                 *  Start over in the same index.
+                 */
+                index.clear();
+                for (i = 0; (i < size * size); ++i) {
+                    int     n;
+
+                    for (n = plain[i / size][i % size]; (n > 0); --n) {
+                        index.put(i / size, i % size);
+                    }
+                }
+                index.build();
+            }
+
+            for (i = 0; (i < 2000); ++i) {
+                int     row;
+                int     column;
+                int     rows;
+                int     columns;
+                int     expected;
+                int     r;
+
+                row = random.nextInt(size);
+                column = random.nextInt(size);
+                if (random.nextBoolean() == true) {
+                    int     delta;
+
+                    delta = random.nextBoolean() ? 1 : -1;
+                    plain[row][column] += delta;
+                    index.add(row, column, delta);
+                }
+
+                row = random.nextInt(size + 4) - 2;
+                column = random.nextInt(size + 4) - 2;
+                rows = random.nextInt(size + 2);
+                columns = random.nextInt(size + 2);
+                expected = 0;
+                for (r = Math.max(0, row);
+                     (r < Math.min(size, row + rows)); ++r) {
+                    int     c;
+
+                    for (c = Math.max(0, column);
+                         (c < Math.min(size, column + columns)); ++c) {
+                        expected += plain[r][c];
+                    }
+                }
+                if (index.count(row, column, rows, columns) != expected) {
+                    System.out.println("**** ERROR:  " + rows + "x" +
+                                       columns + " at " + row + "x" +
+                                       column + " counts " +
+                                       index.count(row, column, rows,
+                                                   columns) +
+                                       " not " + expected);
+                    ++errors;
+                }
+            }
+        }
+
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}
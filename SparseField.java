@@ -0,0 +1,747 @@
+package minesweeper;
+
+import java.util.*;
+
+/**
+ *  {@code SparseField} is a mine field for huge boards with few
+ *  bombs.  Rather than a byte for every cell it keeps the bombs
+ *  and the exposed, flagged and marked cells in compressed bit
+ *  sets, and works out how many bombs are next to a cell when it's
+ *  asked, so its memory follows the number of bombs and how much
+ *  has been played rather than the size of the board.
+ *  <p>
+ *  It's laid out exactly like a {@code Field} of the same size,
+ *  bomb count and seed, moves the same bombs out of the way of a
+ *  first click, and reads and plays the same way.  Counts
+ *  are {@code long}s since a field can have more cells than an
+ *  {@code int} can count.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+public class SparseField implements FieldEngine {
+    /*
+     *  An opening that exposes at least this many cells is likely
+     *  to have left long stretches of exposed cells, so the
+     *  exposed set is packed into runs afterward.
+     */
+    private static final int    optimizeAfter   = 4096;
+
+    private final int               size;
+    private final long              bombCount;
+    private final long              seed;
+    private long                    hiddenCells;
+    private long                    flaggedCells;
+    private long                    markedCells;
+    private boolean                 revealed;
+    private String                  status;
+
+    /*
+     *  Where the first cell exposed may be, taken from the default
+     *  when the field is made, and whether that first cell is
+     *  still to come.
+     */
+    private final int               firstClickMode;
+    private boolean                 firstClickPending;
+
+    /*
+     *  Cells are numbered row by row.
+     */
+    private final CompressedBitSet  bombs       = new CompressedBitSet();
+    private final CompressedBitSet  exposed     = new CompressedBitSet();
+    private final CompressedBitSet  flagged     = new CompressedBitSet();
+    private final CompressedBitSet  marked      = new CompressedBitSet();
+
+    /*
+     *  The cells of an opening waiting to have their neighbors
+     *  exposed.
+     */
+    private long                    fillStack[] = new long[64];
+
+    /*
+     *  Where an expose writes the rows and columns of the cells it
+     *  exposes, and how many it's written, or -1 once they don't
+     *  fit, as in Field.
+     */
+    private int                     changed[];
+    private int                     changedCount;
+
+    /**
+     *  Construct a mine field of the given size and with the
+     *  given number of bombs laid out from the given seed.
+     *  @param size number of cells on a side
+     *  @param bombCount number of bombs to randomly place in the
+     *  field, or a negative number to choose one from the seed
+     *  @param seed seed for laying out the bombs
+     */
+    public SparseField(int size, long bombCount, long seed)
+    {
+        long    maxCells;
+
+        /*
+         *  Gotta have at least one cell.
+         */
+        size = Math.max(1, size);
+        maxCells = size * (long) size;
+        if (bombCount < 0) {
+            /*
+             *  Given a negative number of bombs, choose a
+             *  pseudo random number.
+             */
+            bombCount = new SplittableRandom(seed).nextLong(
+                                                (maxCells / 5) + 1) + 1;
+        } else if (bombCount > maxCells) {
+            bombCount = maxCells;
+        }
+        this.size = size;
+        this.bombCount = bombCount;
+        this.seed = seed;
+        hiddenCells = maxCells;
+        firstClickMode = Field.getFirstClick();
+        firstClickPending = (firstClickMode != Field.firstClickAnywhere);
+        layOutBombs(new TileLayout(size, size, bombCount, seed));
+    }
+
+    /*
+     *  Lay out the bombs a row of tiles at a time, adding them to
+     *  the set in order so each block's array only ever grows at
+     *  the end.
+     */
+    private void        layOutBombs(TileLayout layout)
+    {
+        int         tileColumns;
+        int         row;
+        long        bits[][];
+        SplitMix    random;
+
+        tileColumns = (int) layout.getTileColumns();
+        bits = new long[tileColumns][TileLayout.tileSize];
+        random = new SplitMix(seed);
+        for (row = 0; (row < size); ++row) {
+            int     tileColumn;
+
+            if ((row & (TileLayout.tileSize - 1)) == 0) {
+                long    tileRow;
+
+                tileRow = row >>> TileLayout.tileShift;
+                for (tileColumn = 0; (tileColumn < tileColumns);
+                                                        ++tileColumn) {
+                    layout.layOutTile(tileRow, tileColumn,
+                                      (int) layout.bombsInTile(tileRow,
+                                                               tileColumn),
+                                      bits[tileColumn], random);
+                }
+            }
+
+            for (tileColumn = 0; (tileColumn < tileColumns); ++tileColumn) {
+                long    word;
+
+                for (word = bits[tileColumn][row & (TileLayout.tileSize - 1)];
+                     (word != 0); word &= word - 1) {
+                    bombs.add((row * (long) size) +
+                              (tileColumn << TileLayout.tileShift) +
+                              Long.numberOfTrailingZeros(word));
+                }
+            }
+        }
+        bombs.optimize();
+    }
+
+    /*
+     *  Move the bombs out of the clicked cell, and out of its
+     *  neighbors too when the first click has to open an opening,
+     *  to where TileLayout says, the same as a Field.
+     */
+    private void        moveBombsFrom(int row, int column)
+    {
+        long    clear[];
+        long    moves[];
+        int     squares;
+        int     i;
+
+        clear = new long[18];
+        squares = 0;
+        clear[squares++] = row;
+        clear[squares++] = column;
+        if (firstClickMode == Field.firstClickOpening) {
+            int     nextRow;
+
+            for (nextRow = Math.max(0, row - 1);
+                 (nextRow <= Math.min(size - 1, row + 1)); ++nextRow) {
+                int     nextColumn;
+
+                for (nextColumn = Math.max(0, column - 1);
+                     (nextColumn <= Math.min(size - 1, column + 1));
+                                                        ++nextColumn) {
+                    if ((nextRow != row) || (nextColumn != column)) {
+                        clear[squares++] = nextRow;
+                        clear[squares++] = nextColumn;
+                    }
+                }
+            }
+        }
+
+        moves = new TileLayout(size, size, bombCount, seed).moveBombs(
+                                                    clear, squares / 2);
+        for (i = 0; (i < moves.length); i += 4) {
+            bombs.remove((moves[i] * size) + moves[i + 1]);
+            bombs.add((moves[i + 2] * size) + moves[i + 3]);
+        }
+    }
+
+    /**
+     *  Return the size of the mine field.
+     *  @return Size of mine field.
+     */
+    public int  getSize()
+    {
+        return(size);
+    }
+
+    /**
+     *  Return the seed the field was laid out from.
+     *  @return the seed
+     */
+    public long getSeed()
+    {
+        return(seed);
+    }
+
+    /**
+     *  Return roughly how many bytes the field's sets take up.
+     *  @return the size in bytes
+     */
+    public long getSizeInBytes()
+    {
+        return(bombs.sizeInBytes() + exposed.sizeInBytes() +
+               flagged.sizeInBytes() + marked.sizeInBytes());
+    }
+
+    /*
+     *  Count the bombs next to a cell.
+     */
+    private int         adjacentBombs(int row, int column)
+    {
+        int     count;
+        int     nextRow;
+
+        count = 0;
+        for (nextRow = Math.max(0, row - 1);
+             (nextRow <= Math.min(size - 1, row + 1)); ++nextRow) {
+            int     nextColumn;
+
+            for (nextColumn = Math.max(0, column - 1);
+                 (nextColumn <= Math.min(size - 1, column + 1));
+                                                        ++nextColumn) {
+                if (((nextRow != row) || (nextColumn != column)) &&
+                    (bombs.contains((nextRow * (long) size) +
+                                    nextColumn) == true)) {
+                    ++count;
+                }
+            }
+        }
+
+        return(count);
+    }
+
+    /**
+     *  Get the state of a specific cell, the same as
+     *  {@code Field.getState()}.
+     *  @param row The row of the cell whose state to get.
+     *  @param column The column of the cell whose state to get.
+     *  @return The state of the given cell or
+     *  {@code Field.invalidState} when the coordinates are off the
+     *  field.
+     */
+    public int  getState(int row, int column)
+    {
+        long    index;
+
+        if ((row < 0) || (row >= size) || (column < 0) || (column >= size)) {
+            return(Field.invalidState);
+        }
+
+        index = (row * (long) size) + column;
+        if ((revealed == true) || (exposed.contains(index) == true)) {
+            if (bombs.contains(index) == true) {
+                return(Field.bombState);
+            }
+
+            return(adjacentBombs(row, column));
+        }
+
+        if (flagged.contains(index) == true) {
+            return(Field.flaggedState);
+        }
+        if (marked.contains(index) == true) {
+            return(Field.markedState);
+        }
+
+        return(Field.hiddenState);
+    }
+
+    /**
+     *  Expose all the cells in the field.  Like
+     *  {@code Field.exposeAll()} nothing is touched, the field just
+     *  answers as if every cell were exposed from now on.
+     */
+    public void exposeAll()
+    {
+        firstClickPending = false;
+        revealed = true;
+    }
+
+    /*
+     *  Expose the cell at the given index and count it as no
+     *  longer hidden.
+     */
+    private void        exposeCell(long index)
+    {
+        exposed.add(index);
+        --hiddenCells;
+        if ((changed != null) && (changedCount >= 0)) {
+            if (((changedCount + 1) * 2) > changed.length) {
+                changedCount = -1;
+            } else {
+                changed[changedCount * 2] = (int) (index / size);
+                changed[(changedCount * 2) + 1] = (int) (index % size);
+                ++changedCount;
+            }
+        }
+        if (flagged.contains(index) == true) {
+            --flaggedCells;
+        }
+        if (marked.contains(index) == true) {
+            --markedCells;
+        }
+    }
+
+    /*
+     *  Expose an opening starting from a hidden cell with no
+     *  adjacent bombs.  Each cell is exposed when it's first
+     *  reached and only cells with no adjacent bombs go on the
+     *  stack, as in Field.
+     */
+    private void        exposeOpening(int row, int column)
+    {
+        int     top;
+        long    before;
+
+        before = hiddenCells;
+        exposeCell((row * (long) size) + column);
+        top = 0;
+        fillStack[top++] = (row * (long) size) + column;
+        while (top > 0) {
+            long    index;
+            int     nextRow;
+
+            index = fillStack[--top];
+            row = (int) (index / size);
+            column = (int) (index % size);
+            for (nextRow = Math.max(0, row - 1);
+                 (nextRow <= Math.min(size - 1, row + 1)); ++nextRow) {
+                int     nextColumn;
+
+                for (nextColumn = Math.max(0, column - 1);
+                     (nextColumn <= Math.min(size - 1, column + 1));
+                                                            ++nextColumn) {
+                    long    next;
+
+                    next = (nextRow * (long) size) + nextColumn;
+                    if (exposed.contains(next) == true) {
+                        continue;
+                    }
+
+                    exposeCell(next);
+                    if (adjacentBombs(nextRow, nextColumn) != 0) {
+                        continue;
+                    }
+
+                    if (top == fillStack.length) {
+                        fillStack = Arrays.copyOf(fillStack, top * 2);
+                    }
+                    fillStack[top++] = next;
+                }
+            }
+        }
+
+        if ((before - hiddenCells) >= optimizeAfter) {
+            exposed.optimize();
+        }
+    }
+
+    /**
+     *  Expose a specific cell.
+     *  @param row The row of the cell to expose.
+     *  @param column The column of the cell to expose.
+     *  @return Is the game finished.
+     */
+    public boolean      expose(int row, int column)
+    {
+        long    index;
+        boolean bomb;
+
+        if ((row < 0) || (row >= size) || (column < 0) || (column >= size)) {
+            return(false);
+        }
+
+        index = (row * (long) size) + column;
+        if (firstClickPending == true) {
+            firstClickPending = false;
+            moveBombsFrom(row, column);
+        }
+        bomb = bombs.contains(index);
+        if ((revealed == true) || (exposed.contains(index) == true)) {
+            /*
+             *  Nothing more to expose.
+             */
+        } else if ((bomb == false) && (adjacentBombs(row, column) == 0)) {
+            exposeOpening(row, column);
+        } else {
+            exposeCell(index);
+        }
+
+        if (bomb == true) {
+            status = "Boom!";
+            return(true);
+        }
+
+        if (hiddenCells == bombCount) {
+            status = "Winner!";
+            return(true);
+        }
+
+        return(false);
+    }
+
+    /**
+     *  Expose a specific cell and write the row and column of
+     *  each cell it exposes into the given buffer.  An opening
+     *  with more cells than fit returns -1.
+     *  @param row The row of the cell to expose.
+     *  @param column The column of the cell to expose.
+     *  @param changed where to write the exposed cells, two
+     *  entries for each
+     *  @return the number of cells exposed, or -1
+     */
+    public int          expose(int row, int column, int changed[])
+    {
+        this.changed = changed;
+        changedCount = 0;
+        try {
+            expose(row, column);
+        } finally {
+            this.changed = null;
+        }
+
+        return(changedCount);
+    }
+
+    /*
+     *  Move a hidden cell in or out of the flagged and marked
+     *  sets, keeping their counts of hidden cells up to date.
+     */
+    private void
+    changeCell(int row, int column, boolean flag, boolean mark)
+    {
+        long    index;
+        boolean hidden;
+
+        if ((row < 0) || (row >= size) || (column < 0) || (column >= size)) {
+            return;
+        }
+
+        index = (row * (long) size) + column;
+        hidden = (exposed.contains(index) == false);
+        if ((flag ? flagged.add(index) : flagged.remove(index)) && hidden) {
+            flaggedCells += flag ? 1 : -1;
+        }
+        if ((mark ? marked.add(index) : marked.remove(index)) && hidden) {
+            markedCells += mark ? 1 : -1;
+        }
+    }
+
+    /**
+     *  Flag a specific cell.
+     *  @param row The row of the cell to flag.
+     *  @param column The column of the cell to flag.
+     */
+    public void flag(int row, int column)
+    {
+        changeCell(row, column, true, false);
+    }
+
+    /**
+     *  Mark a specific cell.
+     *  @param row The row of the cell to mark.
+     *  @param column The column of the cell to mark.
+     */
+    public void mark(int row, int column)
+    {
+        changeCell(row, column, false, true);
+    }
+
+    /**
+     *  Clear a specific cell's mark.
+     *  @param row The row of the cell to clear.
+     *  @param column The column of the cell to clear.
+     */
+    public void clearMark(int row, int column)
+    {
+        changeCell(row, column, false, false);
+    }
+
+    /**
+     *  Return the number of bombs in the field.
+     *  @return The number of bombs in the field.
+     */
+    public long getBombCount()
+    {
+        return(bombCount);
+    }
+
+    /**
+     *  Return the number of cells that are still hidden.
+     *  @return The number of hidden cells.
+     */
+    public long getHiddenCount()
+    {
+        return((revealed == true) ? 0 : hiddenCells);
+    }
+
+    /**
+     *  Return the number of hidden cells that have been flagged.
+     *  @return The number of flags placed.
+     */
+    public long getFlagCount()
+    {
+        return((revealed == true) ? 0 : flaggedCells);
+    }
+
+    /**
+     *  Return the number of hidden cells that have been marked.
+     *  @return The number of marks placed.
+     */
+    public long getMarkCount()
+    {
+        return((revealed == true) ? 0 : markedCells);
+    }
+
+    /**
+     *  Return the number of hidden cells that have been flagged
+     *  but aren't bombs, the same as {@code Field}, from the bombs
+     *  as they're laid out before the first click.
+     *  @return The number of wrongly flagged cells.
+     */
+    public long getWrongFlagCount()
+    {
+        long    count[];
+
+        count = new long[1];
+        flagged.forEach((index) -> {
+                if ((bombs.contains(index) == false) &&
+                    (exposed.contains(index) == false)) {
+                    ++count[0];
+                }
+            });
+
+        return(count[0]);
+    }
+
+    /**
+     *  Return whether every cell that isn't a bomb is exposed.
+     *  @return Whether all the empty cells are exposed.
+     */
+    public boolean      isCleared()
+    {
+        return((revealed == true) || (hiddenCells == bombCount));
+    }
+
+    /**
+     *  Return the status of the game.
+     *  null unless the game's over.
+     *  @return The status of the game.
+     */
+    public String       getStatus()
+    {
+        return(status);
+    }
+
+    /**
+     *  @return {@code String} representation of object
+     */
+    public String toString()
+    {
+        return(getClass().getName() +
+               "[size=" + size +
+               ",bombCount=" + bombCount +
+               ",seed=" + seed + "]");
+    }
+
+    /*
+     *  Play the same moves on a Field and a SparseField laid out
+     *  from the same seed and make sure they read the same.
+     */
+    private static int
+    sameAsFieldTest(int givenSize, int givenBombCount, long givenSeed)
+    {
+        int             row;
+        int             column;
+        int             errorCount;
+        Field           field;
+        SparseField     sparse;
+
+        errorCount = 0;
+        field = new Field(givenSize, givenBombCount, givenSeed);
+        sparse = new SparseField(givenSize, givenBombCount, givenSeed);
+        System.out.println("Testing " + sparse + " against " + field);
+
+        /*
+         *  Before the first click a flag is wrong or not by the
+         *  bombs as they're laid out.
+         */
+        for (row = 0; (row < givenSize); row += 2) {
+            field.flag(row, givenSize - 1);
+            sparse.flag(row, givenSize - 1);
+        }
+        if (field.getWrongFlagCount() != sparse.getWrongFlagCount()) {
+            System.out.println("**** ERROR:  wrong flags differ from" +
+                               " Field before the first click");
+            ++errorCount;
+        }
+        for (row = 0; (row < givenSize); row += 2) {
+            field.clearMark(row, givenSize - 1);
+            sparse.clearMark(row, givenSize - 1);
+        }
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if (((row * 7) + column) % 11 == 0) {
+                    field.mark(row, column);
+                    sparse.mark(row, column);
+                }
+                if (((row * 3) + column) % 13 == 0) {
+                    field.flag(row, column);
+                    sparse.flag(row, column);
+                }
+                if (((row * 5) + column) % 17 == 0) {
+                    field.clearMark(row, column);
+                    sparse.clearMark(row, column);
+                }
+                if ((field.getState(row, column) == Field.hiddenState) &&
+                    ((row + column) % 5 == 0)) {
+                    if (field.expose(row, column) !=
+                                sparse.expose(row, column)) {
+                        System.out.println("**** ERROR: Exposing " +
+                                           row + "x" + column +
+                                           " ends a different game");
+                        ++errorCount;
+                    }
+                }
+            }
+        }
+
+        for (row = -1; (row <= givenSize); ++row) {
+            for (column = -1; (column <= givenSize); ++column) {
+                if (field.getState(row, column) !=
+                                    sparse.getState(row, column)) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column + " is " +
+                                       sparse.getState(row, column) +
+                                       " but Field has " +
+                                       field.getState(row, column));
+                    ++errorCount;
+                }
+            }
+        }
+        if ((field.getHiddenCount() != sparse.getHiddenCount()) ||
+            (field.getFlagCount() != sparse.getFlagCount()) ||
+            (field.getMarkCount() != sparse.getMarkCount()) ||
+            (field.getWrongFlagCount() != sparse.getWrongFlagCount()) ||
+            (field.getBombCount() != sparse.getBombCount()) ||
+            (Objects.equals(field.getStatus(), sparse.getStatus()) ==
+                                                                false)) {
+            System.out.println("**** ERROR:  counts differ from Field");
+            ++errorCount;
+        }
+
+        field.exposeAll();
+        sparse.exposeAll();
+        for (row = 0; (row < givenSize); ++row) {
+            for (column = 0; (column < givenSize); ++column) {
+                if (field.getType(row, column).equals(
+                            sparse.getType(row, column)) == false) {
+                    System.out.println("**** ERROR: Position " +
+                                       row + "x" + column +
+                                       " has a different type");
+                    ++errorCount;
+                }
+            }
+        }
+
+        return(errorCount);
+    }
+
+    /**
+     *  Performs a unit test on the {@code SparseField} class by
+     *  comparing it with {@code Field} and checking a huge field
+     *  with few bombs takes little memory.
+     *  @param args arguments to the unit test
+     */
+    public static void main(String[] args)
+    {
+        int             errors;
+        int             column;
+        long            cells;
+        SparseField     huge;
+
+        errors = 0;
+        errors += sameAsFieldTest(1, 0, 1L);
+        errors += sameAsFieldTest(30, 100, 2L);
+        errors += sameAsFieldTest(200, 4000, 3L);
+        errors += sameAsFieldTest(333, 1000, 4L);
+
+        /*
+         *  A first click moves the same bombs out of its way.
+         */
+        Field.setFirstClick(Field.firstClickOpening);
+        errors += sameAsFieldTest(30, 300, 6L);
+        errors += sameAsFieldTest(200, 4000, 7L);
+        Field.setFirstClick(Field.firstClickSafe);
+        errors += sameAsFieldTest(30, 500, 8L);
+        Field.setFirstClick(Field.firstClickAnywhere);
+
+        /*
+         *  At 1% a dense field would need a byte for each of the
+         *  100 million cells.  The sparse one should need a few
+         *  bytes a bomb for the bombs and a few more for the runs
+         *  of exposed cells between them after a big opening.
+         */
+        huge = new SparseField(10000, 1000000, 5L);
+        System.out.println("Testing " + huge);
+        for (column = 0; (huge.getState(5000, column) ==
+                                    Field.hiddenState); ++column) {
+            if (huge.expose(5000, column) == true) {
+                break;
+            }
+            if (huge.getState(5000, column) == 0) {
+                break;
+            }
+        }
+        cells = 10000L * 10000L;
+        if (huge.getHiddenCount() >= cells) {
+            System.out.println("**** ERROR:  nothing was exposed");
+            ++errors;
+        }
+        if (huge.getSizeInBytes() > 10 * huge.getBombCount()) {
+            System.out.println("**** ERROR:  " + huge.getSizeInBytes() +
+                               " bytes for " + huge.getBombCount() +
+                               " bombs");
+            ++errors;
+        }
+
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package minesweeper;
+
+/**
+ *  {@code SplitMix} is a small SplitMix64 pseudo random number
+ *  generator.  Unlike {@code SplittableRandom} it can be reseeded,
+ *  so one instance can walk through the independent streams of
+ *  many tiles without allocating a generator for each.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+final class SplitMix {
+    private static final long  golden  = 0x9e3779b97f4a7c15L;
+    private long                state;
+
+    /**
+     *  Construct a generator starting from the given seed.
+     *  @param seed where the stream starts
+     */
+    SplitMix(long seed)
+    {
+        state = seed;
+    }
+
+    /**
+     *  Start the stream over from the given seed.
+     *  @param seed where the stream starts
+     */
+    void reseed(long seed)
+    {
+        state = seed;
+    }
+
+    /**
+     *  Return the next 64 pseudo random bits.
+     *  @return the next value in the stream
+     */
+    long nextLong()
+    {
+        state += golden;
+        return(finish(state));
+    }
+
+    /**
+     *  Return a pseudo random number from 0 up to, but not
+     *  including, the given bound with every value equally likely.
+     *  @param bound one more than the largest value to return
+     *  @return the next value in the stream
+     */
+    int nextInt(int bound)
+    {
+        int     mask;
+        int     bits;
+        int     value;
+
+        mask = bound - 1;
+        bits = (int) (nextLong() >>> 33);
+        if ((bound & mask) == 0) {
+            /*
+             *  A power of two, just take the high bits.
+             */
+            return((int) ((bound * (long) bits) >>> 31));
+        }
+
+        /*
+         *  Reject the values from the partial last copy of the
+         *  range so nothing's more likely than anything else.
+         */
+        for (value = bits % bound; (bits - value + mask) < 0;
+                                            value = bits % bound) {
+            bits = (int) (nextLong() >>> 33);
+        }
+
+        return(value);
+    }
+
+    /**
+     *  Return a pseudo random number from 0 up to, but not
+     *  including, the given bound with every value equally likely,
+     *  the same way as {@code nextInt()} for bounds too big for an
+     *  {@code int}.
+     *  @param bound one more than the largest value to return
+     *  @return the next value in the stream
+     */
+    long nextLong(long bound)
+    {
+        long    mask;
+        long    bits;
+        long    value;
+
+        mask = bound - 1;
+        bits = nextLong() >>> 1;
+        if ((bound & mask) == 0) {
+            /*
+             *  A power of two, just take the high bits.
+             */
+            return(bits >>> (Long.numberOfLeadingZeros(mask) - 1));
+        }
+
+        for (value = bits % bound; (bits - value + mask) < 0;
+                                            value = bits % bound) {
+            bits = nextLong() >>> 1;
+        }
+
+        return(value);
+    }
+
+    /**
+     *  Return a pseudo random number from 0 up to, but not
+     *  including, 1.
+     *  @return the next value in the stream
+     */
+    double nextDouble()
+    {
+        return((nextLong() >>> 11) * 0x1.0p-53);
+    }
+
+    /**
+     *  Combine a seed with a value, such as a coordinate, into a
+     *  new seed.  Different values give unrelated seeds.
+     *  @param seed the seed to start from
+     *  @param value the value to mix into it
+     *  @return the combined seed
+     */
+    static long mix(long seed, long value)
+    {
+        return(finish(seed ^ finish(value + golden)));
+    }
+
+    /*
+     *  Scramble the bits of a value so each input bit affects
+     *  every output bit.
+     */
+    private static long finish(long value)
+    {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return(value ^ (value >>> 31));
+    }
+
+    /**
+     *  Performs a unit test on the {@code SplitMix} class by
+     *  checking the streams repeat and the values are spread evenly.
+     *  @param args arguments to the unit test
+     */
+    public static void main(String[] args)
+    {
+        int         i;
+        int         errors;
+        int         counts[];
+        SplitMix    first;
+        SplitMix    second;
+
+        errors = 0;
+        first = new SplitMix(42);
+        second = new SplitMix(41);
+        second.reseed(42);
+        for (i = 0; (i < 1000); ++i) {
+            if (first.nextLong() != second.nextLong()) {
+                System.out.println("**** ERROR:  Reseeded stream" +
+                                   " differs at " + i);
+                ++errors;
+                break;
+            }
+        }
+
+        if (mix(1, 2) == mix(1, 3) || mix(1, 2) == mix(2, 2)) {
+            System.out.println("**** ERROR:  mix() collided");
+            ++errors;
+        }
+
+        /*
+         *  Each of 10 values should come up about 10000 times.
+         */
+        counts = new int[10];
+        for (i = 0; (i < 100000); ++i) {
+            ++counts[first.nextInt(10)];
+        }
+        for (i = 0; (i < counts.length); ++i) {
+            if (Math.abs(counts[i] - 10000) > 500) {
+                System.out.println("**** ERROR:  " + i + " came up " +
+                                   counts[i] + " times");
+                ++errors;
+            }
+        }
+
+        /*
+         *  And the same for a bound too big for an int, by which
+         *  third of the range each value falls in.
+         */
+        counts = new int[3];
+        for (i = 0; (i < 30000); ++i) {
+            long    value;
+
+            value = first.nextLong(3000000000007L);
+            if ((value < 0) || (value >= 3000000000007L)) {
+                System.out.println("**** ERROR:  nextLong() " +
+                                   value + " out of range");
+                ++errors;
+                break;
+            }
+            ++counts[(int) (value / 1000000000003L)];
+        }
+        for (i = 0; (i < counts.length); ++i) {
+            if (Math.abs(counts[i] - 10000) > 500) {
+                System.out.println("**** ERROR:  third " + i +
+                                   " came up " + counts[i] + " times");
+                ++errors;
+            }
+        }
+        if ((first.nextLong(1) != 0) || (first.nextLong(1L << 40) < 0)) {
+            System.out.println("**** ERROR:  nextLong() of a power of" +
+                               " two out of range");
+            ++errors;
+        }
+
+        for (i = 0; (i < 100000); ++i) {
+            double  value;
+
+            value = first.nextDouble();
+            if ((value < 0) || (value >= 1)) {
+                System.out.println("**** ERROR:  nextDouble() " +
+                                   value + " out of range");
+                ++errors;
+                break;
+            }
+        }
+
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}
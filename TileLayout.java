@@ -0,0 +1,878 @@
+package minesweeper;
+
+import java.util.*;
+
+/**
+ *  {@code TileLayout} decides where the bombs of a field go, one
+ *  64 by 64 tile at a time, so tiles can be laid out in any order,
+ *  on any thread, or only when they're needed.
+ *  <p>
+ *  The number of bombs in each tile comes from splitting the field
+ *  in half over and over.  Each split draws how many of its bombs
+ *  land in the first half from a hypergeometric distribution with
+ *  a stream seeded from the field's seed and the bounds of what's
+ *  being split.  Within a tile the bombs are placed with Floyd's
+ *  algorithm from a stream seeded from the field's seed and the
+ *  tile's coordinates.  Every arrangement of the bombs on the
+ *  whole field is equally likely and a tile's bombs depend only
+ *  on the seed and where the tile is.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+final class TileLayout {
+    /**
+     *  Tiles are this many squares on a side, so each row of a
+     *  tile fits in one {@code long}.
+     */
+    static final int    tileSize        = 64;
+    /**
+     *  The log base 2 of {@code tileSize}.
+     */
+    static final int    tileShift       = 6;
+
+    private final long  rows;
+    private final long  columns;
+    private long        bombCount;
+    private long        seed;
+    private final long  tileRows;
+    private final long  tileColumns;
+
+    /*
+     *  How many of the most recently used splits bombsInTile()
+     *  remembers.  The splits near the top of a huge field are
+     *  slow to draw and every tile goes through them, and tiles
+     *  near each other share nearly all their splits.
+     */
+    private static final int    splitCacheSize  = 4096;
+    private final Map<Block, Long>  splits      =
+            new LinkedHashMap<Block, Long>(64, 0.75f, true) {
+                protected boolean
+                removeEldestEntry(Map.Entry<Block, Long> eldest)
+                {
+                    return(size() > splitCacheSize);
+                }
+            };
+
+    /*
+     *  The bounds of a block of tiles, as a key for the splits
+     *  cache.
+     */
+    private static final class Block {
+        private final long  first;
+        private final long  end;
+
+        Block(long firstRow, long firstColumn, long endRow, long endColumn)
+        {
+            first = (firstRow << 32) | firstColumn;
+            end = (endRow << 32) | endColumn;
+        }
+
+        public boolean equals(Object other)
+        {
+            return((other instanceof Block) &&
+                   (((Block) other).first == first) &&
+                   (((Block) other).end == end));
+        }
+
+        public int hashCode()
+        {
+            return(Long.hashCode(SplitMix.mix(first, end)));
+        }
+    }
+
+    /**
+     *  Construct the layout of a field.
+     *  @param rows number of rows in the field
+     *  @param columns number of columns in the field
+     *  @param bombCount number of bombs in the whole field
+     *  @param seed seed the layout is derived from
+     */
+    TileLayout(long rows, long columns, long bombCount, long seed)
+    {
+        this.rows = rows;
+        this.columns = columns;
+        this.bombCount = bombCount;
+        this.seed = seed;
+        tileRows = (rows + tileSize - 1) >>> tileShift;
+        tileColumns = (columns + tileSize - 1) >>> tileShift;
+    }
+
+    /**
+     *  Lay out another field of the same size, keeping what was
+     *  allocated for this one.
+     *  @param bombCount number of bombs in the whole field
+     *  @param seed seed the layout is derived from
+     */
+    void reset(long bombCount, long seed)
+    {
+        this.bombCount = bombCount;
+        this.seed = seed;
+        synchronized (splits) {
+            splits.clear();
+        }
+    }
+
+    /**
+     *  @return number of rows of tiles
+     */
+    long getTileRows()
+    {
+        return(tileRows);
+    }
+
+    /**
+     *  @return number of columns of tiles
+     */
+    long getTileColumns()
+    {
+        return(tileColumns);
+    }
+
+    /**
+     *  Return the number of rows of squares in a row of tiles.
+     *  Only the last row of tiles can be short.
+     *  @param tileRow which row of tiles
+     *  @return number of rows of squares in it
+     */
+    int rowsInTile(long tileRow)
+    {
+        return((int) Math.min(tileSize, rows - (tileRow << tileShift)));
+    }
+
+    /**
+     *  Return the number of columns of squares in a column of
+     *  tiles.  Only the last column of tiles can be narrow.
+     *  @param tileColumn which column of tiles
+     *  @return number of columns of squares in it
+     */
+    int columnsInTile(long tileColumn)
+    {
+        return((int) Math.min(tileSize,
+                              columns - (tileColumn << tileShift)));
+    }
+
+    /*
+     *  Return the number of squares in the block of tiles from
+     *  firstRow and firstColumn up to, but not including, endRow
+     *  and endColumn.
+     */
+    private long
+    squaresIn(long firstRow, long firstColumn, long endRow, long endColumn)
+    {
+        return((Math.min(endRow << tileShift, rows) -
+                                        (firstRow << tileShift)) *
+               (Math.min(endColumn << tileShift, columns) -
+                                        (firstColumn << tileShift)));
+    }
+
+    /*
+     *  Split a block of tiles holding the given number of bombs
+     *  and return how many of them land in its first half.  The
+     *  first half is the top half when the block is taller than
+     *  it is wide and the left half otherwise.
+     */
+    private long
+    splitBombs(long firstRow, long firstColumn, long endRow, long endColumn,
+               long bombs, SplitMix random)
+    {
+        long    firstHalf;
+        long    hash;
+
+        if ((endRow - firstRow) > (endColumn - firstColumn)) {
+            firstHalf = squaresIn(firstRow, firstColumn,
+                                  (firstRow + endRow) >>> 1, endColumn);
+        } else {
+            firstHalf = squaresIn(firstRow, firstColumn,
+                                  endRow, (firstColumn + endColumn) >>> 1);
+        }
+
+        hash = SplitMix.mix(seed, firstRow);
+        hash = SplitMix.mix(hash, firstColumn);
+        hash = SplitMix.mix(hash, endRow);
+        random.reseed(SplitMix.mix(hash, endColumn));
+        return(hypergeometric(random,
+                              squaresIn(firstRow, firstColumn,
+                                        endRow, endColumn),
+                              bombs, firstHalf));
+    }
+
+    /*
+     *  Return how many of a block's bombs land in its first half,
+     *  remembering the answer for the next tile that passes
+     *  through the same block.
+     */
+    private long
+    cachedSplit(long firstRow, long firstColumn, long endRow,
+                long endColumn, long bombs, SplitMix random)
+    {
+        Block   block;
+        Long    firstHalf;
+
+        block = new Block(firstRow, firstColumn, endRow, endColumn);
+        synchronized (splits) {
+            firstHalf = splits.get(block);
+        }
+        if (firstHalf == null) {
+            firstHalf = splitBombs(firstRow, firstColumn, endRow, endColumn,
+                                   bombs, random);
+            synchronized (splits) {
+                splits.put(block, firstHalf);
+            }
+        }
+
+        return(firstHalf);
+    }
+
+    /**
+     *  Return the number of bombs in one tile.  This only looks at
+     *  the splits on the way down to the tile, so it's cheap enough
+     *  to use when tiles are laid out on demand, and the most
+     *  recently used splits are remembered so neighboring tiles
+     *  share the work.
+     *  @param tileRow row of the tile
+     *  @param tileColumn column of the tile
+     *  @return number of bombs in the tile
+     */
+    long bombsInTile(long tileRow, long tileColumn)
+    {
+        long        firstRow;
+        long        firstColumn;
+        long        endRow;
+        long        endColumn;
+        long        bombs;
+        SplitMix    random;
+
+        firstRow = 0;
+        firstColumn = 0;
+        endRow = tileRows;
+        endColumn = tileColumns;
+        bombs = bombCount;
+        random = new SplitMix(seed);
+        while (((endRow - firstRow) > 1) || ((endColumn - firstColumn) > 1)) {
+            long    firstHalf;
+
+            firstHalf = cachedSplit(firstRow, firstColumn, endRow,
+                                    endColumn, bombs, random);
+            if ((endRow - firstRow) > (endColumn - firstColumn)) {
+                long    middle;
+
+                middle = (firstRow + endRow) >>> 1;
+                if (tileRow < middle) {
+                    endRow = middle;
+                    bombs = firstHalf;
+                } else {
+                    firstRow = middle;
+                    bombs -= firstHalf;
+                }
+            } else {
+                long    middle;
+
+                middle = (firstColumn + endColumn) >>> 1;
+                if (tileColumn < middle) {
+                    endColumn = middle;
+                    bombs = firstHalf;
+                } else {
+                    firstColumn = middle;
+                    bombs -= firstHalf;
+                }
+            }
+        }
+
+        return(bombs);
+    }
+
+    /**
+     *  Fill in the number of bombs in every tile, indexed by
+     *  tile row times {@code getTileColumns()} plus tile column.
+     *  Each split is drawn once, so this costs about the same as
+     *  one {@code bombsInTile()} per tile.
+     *  @param counts where to store the count of each tile
+     */
+    void bombsInTiles(int counts[])
+    {
+        splitInto(counts, 0, 0, tileRows, tileColumns, bombCount,
+                  new SplitMix(seed));
+    }
+
+    /*
+     *  Recursively split a block of tiles and store the bombs
+     *  of each tile in counts.
+     */
+    private void
+    splitInto(int counts[], long firstRow, long firstColumn,
+              long endRow, long endColumn, long bombs, SplitMix random)
+    {
+        long    firstHalf;
+        long    middle;
+
+        if (((endRow - firstRow) <= 1) && ((endColumn - firstColumn) <= 1)) {
+            counts[(int) ((firstRow * tileColumns) + firstColumn)] =
+                                                            (int) bombs;
+            return;
+        }
+
+        firstHalf = splitBombs(firstRow, firstColumn, endRow, endColumn,
+                               bombs, random);
+        if ((endRow - firstRow) > (endColumn - firstColumn)) {
+            middle = (firstRow + endRow) >>> 1;
+            splitInto(counts, firstRow, firstColumn, middle, endColumn,
+                      firstHalf, random);
+            splitInto(counts, middle, firstColumn, endRow, endColumn,
+                      bombs - firstHalf, random);
+        } else {
+            middle = (firstColumn + endColumn) >>> 1;
+            splitInto(counts, firstRow, firstColumn, endRow, middle,
+                      firstHalf, random);
+            splitInto(counts, firstRow, middle, endRow, endColumn,
+                      bombs - firstHalf, random);
+        }
+    }
+
+    /**
+     *  Lay out the bombs of one tile.  Bit c of {@code bits[r]} is
+     *  set when the square at row r and column c of the tile has a
+     *  bomb.  Only the rows the tile has are written.
+     *  @param tileRow row of the tile
+     *  @param tileColumn column of the tile
+     *  @param bombs number of bombs in the tile
+     *  @param bits where to store the bombs, one word per row
+     *  @param random generator to use, it gets reseeded
+     */
+    void layOutTile(long tileRow, long tileColumn, int bombs, long bits[],
+                    SplitMix random)
+    {
+        int     width;
+        int     squares;
+        int     i;
+
+        width = columnsInTile(tileColumn);
+        squares = rowsInTile(tileRow) * width;
+        for (i = 0; (i < rowsInTile(tileRow)); ++i) {
+            bits[i] = 0;
+        }
+
+        /*
+         *  Floyd's algorithm, as Field used to use for the whole
+         *  field.
+         */
+        random.reseed(SplitMix.mix(SplitMix.mix(~seed, tileRow),
+                                   tileColumn));
+        for (i = squares - bombs; (i < squares); ++i) {
+            int     j;
+
+            j = random.nextInt(i + 1);
+            if ((bits[j / width] & (1L << (j % width))) != 0) {
+                j = i;
+            }
+            bits[j / width] |= 1L << (j % width);
+        }
+    }
+
+    /**
+     *  Find where the bombs go that a first click moves out of its
+     *  way, the same for every field laid out from this layout.
+     *  Each bomb in the squares kept clear goes to a square chosen
+     *  evenly from the ones that are neither bombs nor kept clear,
+     *  so every layout that keeps clear of them is just as likely.
+     *  The chosen squares are drawn by their rank among the free
+     *  squares and found by walking down the splits, so the time
+     *  taken doesn't depend on the size of the field.  When there
+     *  isn't room outside all the squares only the first is kept
+     *  clear, and none of them when the field is all bombs.
+     *  @param clear the row and column of each square to keep
+     *  clear, two entries each, the one clicked first
+     *  @param squares the number of squares to keep clear
+     *  @return the row and column each bomb moves from and then
+     *  the row and column it moves to, four entries for each bomb
+     */
+    long[]      moveBombs(long clear[], int squares)
+    {
+        int         count;
+        int         moved;
+        int         i;
+        long        ranks[];
+        long        free;
+        long        moves[];
+        long        bits[];
+        boolean     bomb[];
+        SplitMix    random;
+
+        /*
+         *  A topology that wraps can give the same neighbor twice.
+         */
+        clear = Arrays.copyOf(clear, 2 * squares);
+        count = 0;
+        for (i = 0; (i < squares); ++i) {
+            int     j;
+
+            for (j = 0; (j < count); ++j) {
+                if ((clear[2 * j] == clear[2 * i]) &&
+                    (clear[(2 * j) + 1] == clear[(2 * i) + 1])) {
+                    break;
+                }
+            }
+            if (j == count) {
+                clear[2 * count] = clear[2 * i];
+                clear[(2 * count) + 1] = clear[(2 * i) + 1];
+                ++count;
+            }
+        }
+        if (bombCount > ((rows * columns) - count)) {
+            count = (bombCount < (rows * columns)) ? Math.min(1, count) : 0;
+        }
+
+        bits = new long[tileSize];
+        bomb = new boolean[count];
+        moved = 0;
+        for (i = 0; (i < count); ++i) {
+            bomb[i] = isBomb(clear[2 * i], clear[(2 * i) + 1], bits);
+            if (bomb[i] == true) {
+                ++moved;
+            }
+        }
+        free = (rows * columns) - bombCount - count + moved;
+
+        /*
+         *  Choose the ranks with Floyd's algorithm so each takes
+         *  one draw, from a stream seeded from the clicked square.
+         */
+        random = (count == 0) ? null :
+                    new SplitMix(SplitMix.mix(SplitMix.mix(seed, clear[0]),
+                                              clear[1]));
+        ranks = new long[moved];
+        for (i = 0; (i < moved); ++i) {
+            long    rank;
+            int     j;
+
+            rank = random.nextLong(free - moved + i + 1);
+            for (j = 0; (j < i); ++j) {
+                if (ranks[j] == rank) {
+                    rank = free - moved + i;
+                    break;
+                }
+            }
+            ranks[i] = rank;
+        }
+
+        moves = new long[4 * moved];
+        moved = 0;
+        for (i = 0; (i < count); ++i) {
+            if (bomb[i] == true) {
+                moves[4 * moved] = clear[2 * i];
+                moves[(4 * moved) + 1] = clear[(2 * i) + 1];
+                findFree(ranks[moved], clear, bomb, count, bits,
+                         new SplitMix(seed), moves, (4 * moved) + 2);
+                ++moved;
+            }
+        }
+
+        return(moves);
+    }
+
+    /*
+     *  Return how many of the squares kept clear that aren't bombs
+     *  are in a block of tiles.
+     */
+    private static int
+    clearIn(long clear[], boolean bomb[], int count, long firstRow,
+            long firstColumn, long endRow, long endColumn)
+    {
+        int     found;
+        int     i;
+
+        found = 0;
+        for (i = 0; (i < count); ++i) {
+            if ((bomb[i] == false) &&
+                ((clear[2 * i] >>> tileShift) >= firstRow) &&
+                ((clear[2 * i] >>> tileShift) < endRow) &&
+                ((clear[(2 * i) + 1] >>> tileShift) >= firstColumn) &&
+                ((clear[(2 * i) + 1] >>> tileShift) < endColumn)) {
+                ++found;
+            }
+        }
+
+        return(found);
+    }
+
+    /*
+     *  Find the free square of the given rank, counting the free
+     *  squares of the first half of each split on the way down to
+     *  the tile it's in and then the free squares of each row of
+     *  the tile, and store its row and column at moves[at].
+     */
+    private void
+    findFree(long rank, long clear[], boolean bomb[], int count,
+             long bits[], SplitMix random, long moves[], int at)
+    {
+        long    firstRow;
+        long    firstColumn;
+        long    endRow;
+        long    endColumn;
+        long    bombs;
+        int     row;
+        int     i;
+
+        firstRow = 0;
+        firstColumn = 0;
+        endRow = tileRows;
+        endColumn = tileColumns;
+        bombs = bombCount;
+        while (((endRow - firstRow) > 1) || ((endColumn - firstColumn) > 1)) {
+            long    firstHalf;
+            long    halfRow;
+            long    halfColumn;
+            long    halfFree;
+
+            firstHalf = cachedSplit(firstRow, firstColumn, endRow,
+                                    endColumn, bombs, random);
+            halfRow = endRow;
+            halfColumn = endColumn;
+            if ((endRow - firstRow) > (endColumn - firstColumn)) {
+                halfRow = (firstRow + endRow) >>> 1;
+            } else {
+                halfColumn = (firstColumn + endColumn) >>> 1;
+            }
+            halfFree = squaresIn(firstRow, firstColumn, halfRow, halfColumn) -
+                       firstHalf -
+                       clearIn(clear, bomb, count, firstRow, firstColumn,
+                               halfRow, halfColumn);
+            if (rank < halfFree) {
+                endRow = halfRow;
+                endColumn = halfColumn;
+                bombs = firstHalf;
+            } else {
+                rank -= halfFree;
+                if (halfRow < endRow) {
+                    firstRow = halfRow;
+                } else {
+                    firstColumn = halfColumn;
+                }
+                bombs -= firstHalf;
+            }
+        }
+
+        /*
+         *  The squares kept clear count as taken in the tile too.
+         */
+        layOutTile(firstRow, firstColumn, (int) bombs, bits, random);
+        for (i = 0; (i < count); ++i) {
+            if (((clear[2 * i] >>> tileShift) == firstRow) &&
+                ((clear[(2 * i) + 1] >>> tileShift) == firstColumn)) {
+                bits[(int) (clear[2 * i] & (tileSize - 1))] |=
+                                                1L << clear[(2 * i) + 1];
+            }
+        }
+        for (row = 0; (row < rowsInTile(firstRow)); ++row) {
+            long    open;
+
+            open = ~bits[row] & (-1L >>> (tileSize -
+                                          columnsInTile(firstColumn)));
+            if (rank >= Long.bitCount(open)) {
+                rank -= Long.bitCount(open);
+                continue;
+            }
+
+            for (; (rank > 0); --rank) {
+                open &= open - 1;
+            }
+            moves[at] = (firstRow << tileShift) + row;
+            moves[at + 1] = (firstColumn << tileShift) +
+                            Long.numberOfTrailingZeros(open);
+            return;
+        }
+    }
+
+    /*
+     *  Return whether a square is a bomb, laying out its tile in
+     *  the given space.
+     */
+    private boolean
+    isBomb(long row, long column, long bits[])
+    {
+        long    tileRow;
+        long    tileColumn;
+
+        tileRow = row >>> tileShift;
+        tileColumn = column >>> tileShift;
+        layOutTile(tileRow, tileColumn,
+                   (int) bombsInTile(tileRow, tileColumn), bits,
+                   new SplitMix(seed));
+
+        return(((bits[(int) (row & (tileSize - 1))] >>> column) & 1) != 0);
+    }
+
+    /**
+     *  Draw the number of marked items picked when picking
+     *  {@code draws} items without replacement from
+     *  {@code population} items, {@code marked} of which are marked.
+     *  The weights of the possible results are walked outward from
+     *  the most likely one, once to total them and once to find
+     *  where the random number lands, so the cost grows with the
+     *  standard deviation and there are no factorials to overflow.
+     *  @param random where the random number comes from
+     *  @param population number of items to pick from
+     *  @param marked number of those that are marked
+     *  @param draws number of items picked
+     *  @return number of marked items picked
+     */
+    static long
+    hypergeometric(SplitMix random, long population, long marked,
+                   long draws)
+    {
+        long    lowest;
+        long    highest;
+        long    mode;
+        double  total;
+        double  target;
+
+        lowest = Math.max(0, draws - (population - marked));
+        highest = Math.min(draws, marked);
+        if (lowest >= highest) {
+            return(lowest);
+        }
+
+        mode = (long) (((draws + 1.0) * (marked + 1.0)) /
+                                                (population + 2.0));
+        mode = Math.max(lowest, Math.min(highest, mode));
+
+        total = walkWeights(population, marked, draws, lowest, highest,
+                            mode, Double.POSITIVE_INFINITY);
+        target = random.nextDouble() * total;
+        return((long) walkWeights(population, marked, draws,
+                                  lowest, highest, mode, target));
+    }
+
+    /*
+     *  Walk the weights of the hypergeometric distribution outward
+     *  from the mode, which has a weight of 1, alternating up and
+     *  down.  With an infinite target, return the total of all the
+     *  weights that matter.  Otherwise return the result where the
+     *  running total reaches the target.
+     */
+    private static double
+    walkWeights(long population, long marked, long draws,
+                long lowest, long highest, long mode, double target)
+    {
+        long    up;
+        long    down;
+        double  upWeight;
+        double  downWeight;
+        double  total;
+        double  unmarked;
+
+        unmarked = (double) population - marked - draws;
+        up = mode;
+        down = mode;
+        upWeight = 1;
+        downWeight = 1;
+        total = 1;
+        if (total >= target) {
+            return(mode);
+        }
+
+        while (((up < highest) && (upWeight > total * 0x1.0p-60)) ||
+               ((down > lowest) && (downWeight > total * 0x1.0p-60))) {
+            if (up < highest) {
+                /*
+                 *  weight(x + 1) / weight(x)
+                 */
+                upWeight *= ((double) (marked - up) * (draws - up)) /
+                            ((up + 1.0) * (unmarked + up + 1.0));
+                ++up;
+                total += upWeight;
+                if (total >= target) {
+                    return(up);
+                }
+            }
+            if (down > lowest) {
+                /*
+                 *  weight(x - 1) / weight(x)
+                 */
+                downWeight *= ((double) down * (unmarked + down)) /
+                              ((marked - down + 1.0) * (draws - down + 1.0));
+                --down;
+                total += downWeight;
+                if (total >= target) {
+                    return(down);
+                }
+            }
+        }
+
+        /*
+         *  Rounding can leave the target just past the total.
+         */
+        return((target == Double.POSITIVE_INFINITY) ? total : mode);
+    }
+
+    /**
+     *  Performs a unit test on the {@code TileLayout} class.
+     *  @param args arguments to the unit test
+     */
+    public static void main(String[] args)
+    {
+        int         errors;
+        int         i;
+        int         counts[];
+        long        total;
+        long        bits[];
+        double      sum;
+        double      sumOfSquares;
+        SplitMix    random;
+        TileLayout  layout;
+
+        errors = 0;
+
+        /*
+         *  The hypergeometric draws should have the right mean and
+         *  variance and never go out of range.
+         */
+        random = new SplitMix(7);
+        sum = 0;
+        sumOfSquares = 0;
+        for (i = 0; (i < 200000); ++i) {
+            long    drawn;
+
+            drawn = hypergeometric(random, 1000, 300, 100);
+            if ((drawn < 0) || (drawn > 100)) {
+                System.out.println("**** ERROR:  drew " + drawn);
+                ++errors;
+            }
+            sum += drawn;
+            sumOfSquares += drawn * (double) drawn;
+        }
+        sum /= 200000;
+        sumOfSquares = (sumOfSquares / 200000) - (sum * sum);
+        System.out.println("hypergeometric mean " + sum +
+                           " variance " + sumOfSquares);
+        if ((Math.abs(sum - 30) > 0.05) ||
+            (Math.abs(sumOfSquares - (21 * 900.0 / 999)) > 0.3)) {
+            System.out.println("**** ERROR:  expected mean 30 and" +
+                               " variance " + (21 * 900.0 / 999));
+            ++errors;
+        }
+        if ((hypergeometric(random, 10, 10, 4) != 4) ||
+            (hypergeometric(random, 10, 0, 4) != 0) ||
+            (hypergeometric(random, 10, 7, 10) != 7)) {
+            System.out.println("**** ERROR:  forced draws are wrong");
+            ++errors;
+        }
+
+        /*
+         *  The tiles of an odd sized field should add up to the
+         *  bomb count, agree with bombsInTile() and lay out
+         *  exactly their share of bombs.
+         */
+        layout = new TileLayout(1000, 333, 55555, 99);
+        counts = new int[(int) (layout.getTileRows() *
+                                layout.getTileColumns())];
+        layout.bombsInTiles(counts);
+        total = 0;
+        bits = new long[tileSize];
+        for (i = 0; (i < counts.length); ++i) {
+            long    tileRow;
+            long    tileColumn;
+            int     laidOut;
+            int     row;
+
+            tileRow = i / layout.getTileColumns();
+            tileColumn = i % layout.getTileColumns();
+            total += counts[i];
+            if (layout.bombsInTile(tileRow, tileColumn) != counts[i]) {
+                System.out.println("**** ERROR:  tile " + tileRow + "x" +
+                                   tileColumn + " has " + counts[i] +
+                                   " or " +
+                                   layout.bombsInTile(tileRow,
+                                                      tileColumn));
+                ++errors;
+            }
+
+            layout.layOutTile(tileRow, tileColumn, counts[i], bits, random);
+            laidOut = 0;
+            for (row = 0; (row < layout.rowsInTile(tileRow)); ++row) {
+                laidOut += Long.bitCount(bits[row]);
+                if ((bits[row] >>> layout.columnsInTile(tileColumn)) != 0 &&
+                    (layout.columnsInTile(tileColumn) < tileSize)) {
+                    System.out.println("**** ERROR:  tile " + tileRow +
+                                       "x" + tileColumn +
+                                       " has a bomb past its edge");
+                    ++errors;
+                }
+            }
+            if (laidOut != counts[i]) {
+                System.out.println("**** ERROR:  tile " + tileRow + "x" +
+                                   tileColumn + " laid out " + laidOut +
+                                   " of " + counts[i] + " bombs");
+                ++errors;
+            }
+        }
+        if (total != 55555) {
+            System.out.println("**** ERROR:  tiles hold " + total +
+                               " bombs, not 55555");
+            ++errors;
+        }
+
+        /*
+         *  Bombs moved out of the way of a first click land on
+         *  different squares that weren't bombs or kept clear.
+         */
+        for (i = 0; (i < 200); ++i) {
+            long    clear[];
+            long    moves[];
+            int     j;
+
+            layout = new TileLayout(130, 70, 7000, i);
+            clear = new long[18];
+            for (j = 0; (j < 9); ++j) {
+                clear[2 * j] = 63 + (j / 3);
+                clear[(2 * j) + 1] = 63 + (j % 3);
+            }
+            moves = layout.moveBombs(clear, 9);
+            for (j = 0; (j < moves.length); j += 4) {
+                int     k;
+
+                if ((layout.isBomb(moves[j], moves[j + 1], bits) == false) ||
+                    (layout.isBomb(moves[j + 2], moves[j + 3], bits) ==
+                                                                    true) ||
+                    (Math.abs(moves[j + 2] - 64) <= 1) &&
+                    (Math.abs(moves[j + 3] - 64) <= 1)) {
+                    System.out.println("**** ERROR:  moved a bomb from " +
+                                       moves[j] + "x" + moves[j + 1] +
+                                       " to " + moves[j + 2] + "x" +
+                                       moves[j + 3]);
+                    ++errors;
+                }
+                for (k = j + 4; (k < moves.length); k += 4) {
+                    if ((moves[j + 2] == moves[k + 2]) &&
+                        (moves[j + 3] == moves[k + 3])) {
+                        System.out.println("**** ERROR:  moved two" +
+                                           " bombs to " + moves[j + 2] +
+                                           "x" + moves[j + 3]);
+                        ++errors;
+                    }
+                }
+            }
+        }
+
+        /*
+         *  A huge field can still find the bombs of a tile, and
+         *  where to move them.
+         */
+        layout = new TileLayout(1000000, 1000000, 500000000000L, 5);
+        System.out.println("tile of a huge field has " +
+                           layout.bombsInTile(7777, 3333) + " bombs and" +
+                           " moves " +
+                           (layout.moveBombs(new long[] {
+                                                497777, 213333,
+                                                497777, 213334,
+                                                497778, 213333,
+                                                497778, 213334 },
+                                             4).length / 4) +
+                           " from a click");
+
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}
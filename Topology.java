@@ -0,0 +1,397 @@
+package minesweeper;
+
+import java.util.*;
+
+/**
+ *  {@code Topology} says which cells of a field are next to each
+ *  other.  The usual field is {@code square()}, where a cell's
+ *  neighbors are the eight cells around it.  {@code hex()} lays
+ *  the cells out as hexagons, and {@code wrapped()} joins the
+ *  edges of either to the opposite edges, so that
+ *  {@code square().wrapped()} is a torus.
+ *  <p>
+ *  A field turns its topology into a table of neighbors once, when
+ *  it's laid out, and everything that walks the neighbors of a
+ *  cell walks the table.  A cell has at most eight neighbors,
+ *  since its count has to fit below the states {@code Field}
+ *  gives to bombs and hidden cells, so there are no square
+ *  neighborhoods wider than the eight cells around a cell.
+ *  @version 2026101700
+ *  @author Trevor Watts
+ */
+public final class Topology {
+    /*
+     *  The row and column each neighbor is from a cell.
+     */
+    private final int       rowMoves[];
+    private final int       columnMoves[];
+    private final boolean   wraps;
+    private final String    name;
+
+    private Topology(String name, int moves[][], boolean wraps)
+    {
+        int     i;
+
+        if (moves.length > 8) {
+            throw new IllegalArgumentException(name + " has " +
+                                               moves.length +
+                                               " neighbors, more than 8");
+        }
+        this.name = name;
+        this.wraps = wraps;
+        rowMoves = new int[moves.length];
+        columnMoves = new int[moves.length];
+        for (i = 0; (i < moves.length); ++i) {
+            rowMoves[i] = moves[i][0];
+            columnMoves[i] = moves[i][1];
+        }
+    }
+
+    /**
+     *  The eight cells around a cell, the usual mine field.
+     *  @return the square topology
+     */
+    public static Topology  square()
+    {
+        return(new Topology("square",
+                            new int[][] {{-1, -1}, {-1, 0}, {-1, 1},
+                                         {0, -1}, {0, 1},
+                                         {1, -1}, {1, 0}, {1, 1}},
+                            false));
+    }
+
+    /**
+     *  Hexagonal cells, each with six neighbors.  Row by row the
+     *  field is a rhombus of hexagons, each row shifted half a cell
+     *  to the right of the one above.
+     *  @return the hexagonal topology
+     */
+    public static Topology  hex()
+    {
+        return(new Topology("hex",
+                            new int[][] {{-1, 0}, {-1, 1},
+                                         {0, -1}, {0, 1},
+                                         {1, -1}, {1, 0}},
+                            false));
+    }
+
+    /**
+     *  The same neighbors with each edge of the field joined to
+     *  the opposite edge.
+     *  @return the wrapped topology
+     */
+    public Topology     wrapped()
+    {
+        int     moves[][];
+        int     i;
+
+        moves = new int[rowMoves.length][];
+        for (i = 0; (i < moves.length); ++i) {
+            moves[i] = new int[] {rowMoves[i], columnMoves[i]};
+        }
+
+        return(new Topology(name, moves, true));
+    }
+
+    /**
+     *  Return whether the edges of the field are joined.
+     *  @return whether the topology wraps
+     */
+    public boolean      isWrapped()
+    {
+        return(wraps);
+    }
+
+    /**
+     *  Return whether a cell's neighbors are the eight around it
+     *  and the edges aren't joined.
+     *  @return whether the topology is the usual one
+     */
+    public boolean      isSquare()
+    {
+        return((wraps == false) && (name.equals("square") == true));
+    }
+
+    /**
+     *  Return how far a neighbor can be from a cell, which is how
+     *  wide a border of sentinels a field needs.  A wrapped field
+     *  doesn't need one.
+     *  @return the width of the border
+     */
+    int         border()
+    {
+        int     width;
+        int     i;
+
+        if (wraps == true) {
+            return(0);
+        }
+
+        width = 0;
+        for (i = 0; (i < rowMoves.length); ++i) {
+            width = Math.max(width, Math.max(Math.abs(rowMoves[i]),
+                                             Math.abs(columnMoves[i])));
+        }
+
+        return(width);
+    }
+
+    /**
+     *  Build the table of neighbors for a field of the given size,
+     *  with the border this topology needs.
+     *  @param size number of cells on a side
+     *  @return the table
+     */
+    Table       table(int size)
+    {
+        return(new Table(this, size));
+    }
+
+    /**
+     *  @return {@code String} representation of object
+     */
+    public String toString()
+    {
+        return(getClass().getName() +
+               "[" + name + ((wraps == true) ? ",wrapped" : "") + "]");
+    }
+
+    /**
+     *  The neighbors of every cell of a field, as offsets from the
+     *  cell's index in the field's padded array of cells.  Cells
+     *  that have the same offsets to their neighbors share a
+     *  class, and the offsets of class c are
+     *  {@code offset[start[c]]} up to, but not including,
+     *  {@code offset[start[c + 1]]}.
+     *  <p>
+     *  Without wrapping every cell has the same offsets, since the
+     *  border of sentinels catches the neighbors off the field, so
+     *  there's one class.  With wrapping the cells near an edge
+     *  reach round to the other side, so each row and column near
+     *  an edge gets its own class and the rest share one.  The
+     *  class of a cell is then the class of its row plus the class
+     *  of its column, which the table keeps for each.
+     */
+    static final class Table {
+        final int       size;
+        final int       border;
+        final int       stride;
+        final int       start[];
+        final int       offset[];
+        private final int   rowClass[];
+        private final int   columnClass[];
+
+        private Table(Topology topology, int size)
+        {
+            int     lineClass[];
+            int     representative[];
+            int     classes;
+            int     lines;
+            int     reach;
+            int     i;
+            int     total;
+
+            this.size = size;
+            border = topology.border();
+            stride = size + (2 * border);
+            if (topology.wraps == false) {
+                rowClass = null;
+                columnClass = null;
+                start = new int[] {0, topology.rowMoves.length};
+                offset = new int[topology.rowMoves.length];
+                for (i = 0; (i < offset.length); ++i) {
+                    offset[i] = (topology.rowMoves[i] * stride) +
+                                topology.columnMoves[i];
+                }
+                return;
+            }
+
+            /*
+             *  Give the rows near each edge their own class and the
+             *  rows in between one they share, and the same for
+             *  the columns.
+             */
+            reach = 0;
+            for (i = 0; (i < topology.rowMoves.length); ++i) {
+                reach = Math.max(reach,
+                                 Math.max(Math.abs(topology.rowMoves[i]),
+                                          Math.abs(topology.columnMoves[i])));
+            }
+            lineClass = new int[size];
+            representative = new int[size];
+            lines = 0;
+            for (i = 0; (i < size); ++i) {
+                if ((i >= reach) && (i < (size - reach)) && (i != reach)) {
+                    lineClass[i] = lineClass[reach];
+                    continue;
+                }
+
+                lineClass[i] = lines;
+                representative[lines++] = i;
+            }
+            rowClass = new int[size];
+            columnClass = lineClass;
+            for (i = 0; (i < size); ++i) {
+                rowClass[i] = lineClass[i] * lines;
+            }
+
+            /*
+             *  Work out the offsets of one cell of each class.  On
+             *  a small enough field a move can land on the cell
+             *  itself or on a neighbor another move already reached,
+             *  and those don't count.
+             */
+            classes = lines * lines;
+            start = new int[classes + 1];
+            offset = new int[classes * topology.rowMoves.length];
+            total = 0;
+            for (i = 0; (i < classes); ++i) {
+                int     row;
+                int     column;
+                int     move;
+
+                start[i] = total;
+                row = representative[i / lines];
+                column = representative[i % lines];
+                for (move = 0; (move < topology.rowMoves.length); ++move) {
+                    int     next;
+                    int     k;
+
+                    next = (Math.floorMod(row + topology.rowMoves[move],
+                                          size) * stride) +
+                           Math.floorMod(column + topology.columnMoves[move],
+                                         size) -
+                           ((row * stride) + column);
+                    for (k = start[i]; (k < total); ++k) {
+                        if (offset[k] == next) {
+                            break;
+                        }
+                    }
+                    if ((next != 0) && (k == total)) {
+                        offset[total++] = next;
+                    }
+                }
+            }
+            start[classes] = total;
+        }
+
+        /**
+         *  Return the class of the cell at the given index.
+         *  @param index the index of the cell
+         *  @return its class
+         */
+        int     classOf(int index)
+        {
+            if (rowClass == null) {
+                return(0);
+            }
+
+            return(rowClass[index / stride] + columnClass[index % stride]);
+        }
+
+        /**
+         *  Return the index of a cell in the padded array.
+         *  @param row the row of the cell
+         *  @param column the column of the cell
+         *  @return its index
+         */
+        int     index(int row, int column)
+        {
+            return(((row + border) * stride) + column + border);
+        }
+    }
+
+    /*
+     *  Check every cell's neighbors from the table against its
+     *  moves worked out directly.
+     */
+    private static int  tableTest(Topology topology, int size)
+    {
+        int     errorCount;
+        int     row;
+        Table   table;
+
+        errorCount = 0;
+        table = topology.table(size);
+        System.out.println("Testing " + topology + " at " + size);
+        for (row = 0; (row < size); ++row) {
+            int     column;
+
+            for (column = 0; (column < size); ++column) {
+                int             index;
+                int             c;
+                int             i;
+                Set<Integer>    expected;
+                Set<Integer>    found;
+
+                index = table.index(row, column);
+                expected = new HashSet<Integer>();
+                for (i = 0; (i < topology.rowMoves.length); ++i) {
+                    int     nextRow;
+                    int     nextColumn;
+
+                    nextRow = row + topology.rowMoves[i];
+                    nextColumn = column + topology.columnMoves[i];
+                    if (topology.wraps == true) {
+                        nextRow = Math.floorMod(nextRow, size);
+                        nextColumn = Math.floorMod(nextColumn, size);
+                    }
+                    expected.add(table.index(nextRow, nextColumn));
+                }
+                expected.remove(index);
+
+                found = new HashSet<Integer>();
+                c = table.classOf(index);
+                for (i = table.start[c]; (i < table.start[c + 1]); ++i) {
+                    found.add(index + table.offset[i]);
+                }
+                if ((found.equals(expected) == false) ||
+                    (found.size() != (table.start[c + 1] -
+                                      table.start[c]))) {
+                    System.out.println("**** ERROR:  " + row + "x" +
+                                       column + " has neighbors " +
+                                       found + " not " + expected);
+                    ++errorCount;
+                }
+            }
+        }
+
+        return(errorCount);
+    }
+
+    /**
+     *  Performs a unit test on the {@code Topology} class by
+     *  checking the tables of each topology for several sizes.
+     *  @param args arguments to the unit test
+     */
+    public static void main(String[] args)
+    {
+        int         errors;
+        int         size;
+        Topology    topologies[];
+
+        errors = 0;
+        topologies = new Topology[] {
+            square(), hex(), square().wrapped(), hex().wrapped()
+        };
+        for (Topology topology : topologies) {
+            for (size = 1; (size < 12); size += 2) {
+                errors += tableTest(topology, size);
+            }
+            errors += tableTest(topology, 2);
+            errors += tableTest(topology, 4);
+        }
+        if ((square().isSquare() == false) ||
+            (square().wrapped().isSquare() == true) ||
+            (hex().isSquare() == true)) {
+            System.out.println("**** ERROR:  only square() is square");
+            ++errors;
+        }
+
+        if (errors > 0) {
+            System.out.println("\n UNIT TEST FAILED! with " +
+                               errors + " errors");
+            System.exit(1);
+        }
+    }
+}